@@ -0,0 +1,97 @@
+package ru.practicum.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and outcomes of the calls to one endpoint made after the warm-up. Latency runs from the moment a call
+ * was scheduled to the moment its response was read, so a stalled server shows up as latency of the calls queued
+ * behind it. Calls that failed or timed out are counted as errors and their latency is recorded as well.
+ */
+public class EndpointStats {
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p99.9"};
+
+    private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+    private final LongAdder[] statuses = new LongAdder[6];
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public EndpointStats() {
+        for (int i = 0; i < statuses.length; i++) {
+            statuses[i] = new LongAdder();
+        }
+    }
+
+    public void recordResponse(int status, long latencyNanos) {
+        statuses[Math.min(status / 100, statuses.length - 1)].increment();
+        recorder.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+    }
+
+    public void recordError(long latencyNanos) {
+        errors.increment();
+        recorder.recordValue(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+    }
+
+    /**
+     * Counts a call that was not sent because too many calls were already waiting for a response.
+     */
+    public void recordDropped() {
+        dropped.increment();
+    }
+
+    /**
+     * Takes the results recorded so far.
+     */
+    public Result collect() {
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        for (int i = 1; i < statuses.length; i++) {
+            if (statuses[i].sum() > 0) {
+                byStatus.put(i + "xx", statuses[i].sum());
+            }
+        }
+        return new Result(recorder.getIntervalHistogram(), byStatus, errors.sum(), dropped.sum());
+    }
+
+    public record Result(Histogram histogram, Map<String, Long> statuses, long errors, long dropped) {
+
+        public Map<String, Object> toReport(double seconds) {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("count", histogram.getTotalCount());
+            report.put("throughput", histogram.getTotalCount() / seconds);
+            report.put("statuses", statuses);
+            report.put("errors", errors);
+            report.put("dropped", dropped);
+            Map<String, Double> latency = new LinkedHashMap<>();
+            latency.put("mean", histogram.getMean() / 1000);
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                latency.put(PERCENTILE_NAMES[i], millis(PERCENTILES[i]));
+            }
+            latency.put("max", histogram.getMaxValue() / 1000.0);
+            report.put("latencyMs", latency);
+            ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+            int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+            report.put("histogram", Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length)));
+            return report;
+        }
+
+        public String format(String endpoint) {
+            return String.format("%-50s %8d  p50 %8.2f  p99 %8.2f  p99.9 %8.2f  max %8.2f ms  errors %d, dropped %d",
+                    endpoint, histogram.getTotalCount(), millis(50), millis(99), millis(99.9),
+                    histogram.getMaxValue() / 1000.0, errors, dropped);
+        }
+
+        private double millis(double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1000.0;
+        }
+    }
+}
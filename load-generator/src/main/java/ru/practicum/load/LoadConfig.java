@@ -0,0 +1,105 @@
+package ru.practicum.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Settings of a run: the bundled load-generator.properties, overridden by a file given as {@code config=<path>} and
+ * then by {@code key=value} arguments.
+ */
+public record LoadConfig(URI mainUrl,
+                         URI statsUrl,
+                         int rate,
+                         Duration warmup,
+                         Duration duration,
+                         Duration timeout,
+                         int maxInFlight,
+                         long randomSeed,
+                         int categories,
+                         int users,
+                         int events,
+                         int batchSize,
+                         Map<Operation, Integer> mix,
+                         String label,
+                         Path report) {
+
+    public static LoadConfig load(String[] args) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream defaults = LoadConfig.class.getResourceAsStream("/load-generator.properties")) {
+            properties.load(defaults);
+        }
+        Properties overrides = new Properties();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 1) {
+                throw new IllegalArgumentException("Аргумент должен иметь вид key=value: " + arg);
+            }
+            overrides.setProperty(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        if (overrides.containsKey("config")) {
+            try (Reader file = Files.newBufferedReader(Path.of(overrides.getProperty("config")))) {
+                properties.load(file);
+            }
+        }
+        properties.putAll(overrides);
+        return from(properties);
+    }
+
+    /**
+     * Whether every call of the mix goes to the stats service, so the main service is not needed for the run.
+     */
+    public boolean statsOnly() {
+        return mix.keySet().stream().allMatch(Operation::isStats);
+    }
+
+    public long totalWeight() {
+        return mix.values().stream().mapToLong(Integer::longValue).sum();
+    }
+
+    private static LoadConfig from(Properties properties) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            int weight = Integer.parseInt(properties.getProperty("mix." + operation.getKey(), "0"));
+            if (weight < 0) {
+                throw new IllegalArgumentException("Вес операции не может быть отрицательным: " + operation.getKey());
+            }
+            if (weight > 0) {
+                mix.put(operation, weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("В смеси нагрузки нет ни одной операции");
+        }
+        LoadConfig config = new LoadConfig(
+                URI.create(properties.getProperty("main.url")),
+                URI.create(properties.getProperty("stats.url")),
+                Integer.parseInt(properties.getProperty("rate")),
+                Duration.parse(properties.getProperty("warmup")),
+                Duration.parse(properties.getProperty("duration")),
+                Duration.parse(properties.getProperty("timeout")),
+                Integer.parseInt(properties.getProperty("max-in-flight")),
+                Long.parseLong(properties.getProperty("random-seed")),
+                Integer.parseInt(properties.getProperty("seed.categories")),
+                Integer.parseInt(properties.getProperty("seed.users")),
+                Integer.parseInt(properties.getProperty("seed.events")),
+                Integer.parseInt(properties.getProperty("batch-size")),
+                mix,
+                properties.getProperty("label"),
+                Path.of(properties.getProperty("report")));
+        if (config.rate() < 1 || config.categories() < 1 || config.users() < 2 || config.events() < 1) {
+            throw new IllegalArgumentException("Нужны rate >= 1, хотя бы одна категория, два пользователя и событие");
+        }
+        if (config.batchSize() < 1) {
+            throw new IllegalArgumentException("Размер пакета просмотров должен быть положительным");
+        }
+        return config;
+    }
+}
@@ -0,0 +1,155 @@
+package ru.practicum.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator for the main and stats services. Calls are scheduled at a fixed arrival rate regardless
+ * of how fast responses come back, each on its own virtual thread, and their latency is measured from the scheduled
+ * time, so a slow server cannot lower the load it is measured under. The calls of the warm-up are sent but not
+ * recorded. Results are printed and written as a JSON report.
+ * <p>
+ * Usage: {@code LoadGenerator [config=<file>] [key=value ...]}, see load-generator.properties for the keys.
+ */
+public class LoadGenerator {
+    private final LoadConfig config;
+    private final HttpClient httpClient;
+    private final Map<Operation, EndpointStats> stats = new EnumMap<>(Operation.class);
+
+    public LoadGenerator(LoadConfig config, HttpClient httpClient) {
+        this.config = config;
+        this.httpClient = httpClient;
+        config.mix().keySet().forEach(operation -> stats.put(operation, new EndpointStats()));
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        LoadConfig config = LoadConfig.load(args);
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(config.timeout())
+                .build();
+        SeedData data;
+        if (config.statsOnly()) {
+            data = SeedData.synthetic(config);
+        } else {
+            System.out.printf("Подготовка данных на %s: категорий %d, пользователей %d, событий %d%n",
+                    config.mainUrl(), config.categories(), config.users(), config.events());
+            data = new Seeder(httpClient, config).seed();
+        }
+        LoadGenerator generator = new LoadGenerator(config, httpClient);
+        Instant startedAt = Instant.now();
+        generator.run(data);
+        Map<String, Object> report = generator.report(startedAt);
+        Path path = config.report();
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(path.toFile(), report);
+        System.out.println("Отчёт записан в " + path.toAbsolutePath());
+    }
+
+    public void run(SeedData data) {
+        Random random = new Random(config.randomSeed());
+        Semaphore inFlight = new Semaphore(config.maxInFlight());
+        double periodNanos = 1e9 / config.rate();
+        long start = System.nanoTime();
+        long measureFrom = start + config.warmup().toNanos();
+        long end = measureFrom + config.duration().toNanos();
+        System.out.printf("Нагрузка %d запросов/с: прогрев %s, измерение %s%n", config.rate(), config.warmup(),
+                config.duration());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long call = 0; ; call++) {
+                long scheduled = start + (long) (call * periodNanos);
+                if (scheduled >= end) {
+                    break;
+                }
+                long delay = scheduled - System.nanoTime();
+                if (delay > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+                Operation operation = pick(random);
+                HttpRequest request = operation.build(config, data, random);
+                EndpointStats endpoint = scheduled >= measureFrom ? stats.get(operation) : null;
+                if (!inFlight.tryAcquire()) {
+                    if (endpoint != null) {
+                        endpoint.recordDropped();
+                    }
+                    continue;
+                }
+                executor.execute(() -> {
+                    try {
+                        send(request, scheduled, endpoint);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+    }
+
+    public Map<String, Object> report(Instant startedAt) {
+        double seconds = config.duration().toMillis() / 1000.0;
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        stats.forEach((operation, endpoint) -> {
+            EndpointStats.Result result = endpoint.collect();
+            System.out.println(result.format(operation.getEndpoint()));
+            endpoints.put(operation.getEndpoint(), result.toReport(seconds));
+        });
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("mainUrl", config.mainUrl().toString());
+        settings.put("statsUrl", config.statsUrl().toString());
+        settings.put("rate", config.rate());
+        settings.put("warmupSeconds", config.warmup().toSeconds());
+        settings.put("durationSeconds", config.duration().toSeconds());
+        settings.put("batchSize", config.batchSize());
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        config.mix().forEach((operation, weight) -> mix.put(operation.getKey(), weight));
+        settings.put("mix", mix);
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", config.label());
+        report.put("startedAt", startedAt.toString());
+        report.put("config", settings);
+        report.put("endpoints", endpoints);
+        return report;
+    }
+
+    private void send(HttpRequest request, long scheduled, EndpointStats endpoint) {
+        try {
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            if (endpoint != null) {
+                endpoint.recordResponse(response.statusCode(), System.nanoTime() - scheduled);
+            }
+        } catch (IOException e) {
+            if (endpoint != null) {
+                endpoint.recordError(System.nanoTime() - scheduled);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Operation pick(Random random) {
+        long ticket = (long) (random.nextDouble() * config.totalWeight());
+        for (Map.Entry<Operation, Integer> entry : config.mix().entrySet()) {
+            ticket -= entry.getValue();
+            if (ticket < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Операция не выбрана");
+    }
+}
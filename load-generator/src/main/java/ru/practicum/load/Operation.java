@@ -0,0 +1,143 @@
+package ru.practicum.load;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Public API calls replayed by the generator. Each one is reported under its endpoint name.
+ */
+public enum Operation {
+    EVENTS("events", "GET /events", false) {
+        @Override
+        HttpRequest.Builder request(LoadConfig config, SeedData data, Random random) {
+            int from = random.nextInt(Math.max(1, data.eventIds().size() / 10)) * 10;
+            return HttpRequest.newBuilder(config.mainUrl().resolve("/events?sort=VIEWS&from=" + from + "&size=10"));
+        }
+    },
+    EVENT("event", "GET /events/{id}", false) {
+        @Override
+        HttpRequest.Builder request(LoadConfig config, SeedData data, Random random) {
+            return HttpRequest.newBuilder(config.mainUrl().resolve("/events/" + data.randomEvent(random)));
+        }
+    },
+    HIT("hit", "POST /hit", true) {
+        @Override
+        HttpRequest.Builder request(LoadConfig config, SeedData data, Random random) {
+            return HttpRequest.newBuilder(config.statsUrl().resolve("/hit"))
+                    .header("Content-Type", "application/json")
+                    .POST(json(Map.of(
+                            "app", "ewm-main-service",
+                            "uri", "/events/" + data.randomEvent(random),
+                            "ip", "10.0." + random.nextInt(256) + "." + random.nextInt(256),
+                            "timestamp", LocalDateTime.now().format(TIMESTAMP_FORMATTER))));
+        }
+    },
+    HIT_BATCH("hit-batch", "POST /hits/batch", true) {
+        @Override
+        HttpRequest.Builder request(LoadConfig config, SeedData data, Random random) {
+            String timestamp = LocalDateTime.now().format(TIMESTAMP_FORMATTER);
+            List<Map<String, String>> hits = new ArrayList<>(config.batchSize());
+            for (int i = 0; i < config.batchSize(); i++) {
+                hits.add(Map.of(
+                        "app", "ewm-main-service",
+                        "uri", "/events/" + data.randomEvent(random),
+                        "ip", "10.0." + random.nextInt(256) + "." + random.nextInt(256),
+                        "timestamp", timestamp));
+            }
+            return HttpRequest.newBuilder(config.statsUrl().resolve("/hits/batch"))
+                    .header("Content-Type", "application/json")
+                    .POST(json(hits));
+        }
+    },
+    STATS("stats", "GET /stats", true) {
+        @Override
+        HttpRequest.Builder request(LoadConfig config, SeedData data, Random random) {
+            LocalDateTime end = LocalDateTime.now();
+            String query = "start=" + encode(end.minusDays(1).format(TIMESTAMP_FORMATTER))
+                    + "&end=" + encode(end.format(TIMESTAMP_FORMATTER))
+                    + "&uris=" + encode("/events/" + data.randomEvent(random))
+                    + "&unique=" + random.nextBoolean();
+            return HttpRequest.newBuilder(config.statsUrl().resolve("/stats?" + query));
+        }
+    },
+    REQUESTS("requests", "POST /users/{userId}/requests", false) {
+        @Override
+        HttpRequest.Builder request(LoadConfig config, SeedData data, Random random) {
+            return HttpRequest.newBuilder(config.mainUrl().resolve("/users/" + data.randomParticipant(random)
+                            + "/requests?eventId=" + data.randomEvent(random)))
+                    .POST(HttpRequest.BodyPublishers.noBody());
+        }
+    },
+    COMMENTS("comments", "GET /events/{eventId}/comments", false) {
+        @Override
+        HttpRequest.Builder request(LoadConfig config, SeedData data, Random random) {
+            return HttpRequest.newBuilder(config.mainUrl().resolve("/events/" + data.randomEvent(random)
+                    + "/comments"));
+        }
+    },
+    NEW_COMMENT("new-comment", "POST /user/{userId}/events/{eventId}/comment/", false) {
+        @Override
+        HttpRequest.Builder request(LoadConfig config, SeedData data, Random random) {
+            return HttpRequest.newBuilder(config.mainUrl().resolve("/user/" + data.randomParticipant(random)
+                            + "/events/" + data.randomEvent(random) + "/comment/"))
+                    .header("Content-Type", "application/json")
+                    .POST(json(Map.of("text", "Комментарий нагрузочного теста №" + random.nextInt(1_000_000))));
+        }
+    };
+
+    static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final String key;
+    private final String endpoint;
+    private final boolean stats;
+
+    Operation(String key, String endpoint, boolean stats) {
+        this.key = key;
+        this.endpoint = endpoint;
+        this.stats = stats;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Whether the call goes to the stats service, which needs no seeded entities.
+     */
+    public boolean isStats() {
+        return stats;
+    }
+
+    public HttpRequest build(LoadConfig config, SeedData data, Random random) {
+        return request(config, data, random).timeout(config.timeout()).build();
+    }
+
+    abstract HttpRequest.Builder request(LoadConfig config, SeedData data, Random random);
+
+    static HttpRequest.BodyPublisher json(Object body) {
+        try {
+            return HttpRequest.BodyPublishers.ofString(OBJECT_MAPPER.writeValueAsString(body));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Не удалось сериализовать тело запроса", e);
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,205 @@
+package ru.practicum.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the substring search the public event listing used to run with the full-text search that replaced it, on
+ * a PostgreSQL database of the main service seeded with published events of generated text. Each search term is run
+ * as the old {@code LIKE} query, as the full-text query in id order and as the full-text query ranked by relevance,
+ * all for one page of ten events; latencies are printed and written as a JSON report.
+ * <p>
+ * Usage: {@code SearchBenchmark [key=value ...]}, see search-benchmark.properties for the keys. Events are only
+ * generated until the database holds {@code events} of them, so repeated runs reuse the seeded data.
+ */
+public class SearchBenchmark {
+    private static final int SEED_CHUNK = 100_000;
+    private static final int PAGE_SIZE = 10;
+    private static final String WORDS = "концерт джаз фестиваль выставка театр спектакль лекция мастер класс "
+            + "кино премьера опера балет экскурсия музей галерея квест турнир шахматы футбол марафон забег "
+            + "велопрогулка йога медитация кулинария дегустация вино кофе книга поэзия стендап импровизация "
+            + "фотография живопись скульптура архитектура история наука космос робототехника программирование "
+            + "дизайн мода ярмарка маркет благотворительность волонтёры семейный детский вечерний ночной "
+            + "бесплатный городской парк набережная площадь";
+    private static final String LIKE_QUERY = "SELECT e.id FROM events e WHERE e.state = 'PUBLISHED' "
+            + "AND (lower(e.annotation) LIKE lower(concat('%', ?, '%')) "
+            + "OR lower(e.description) LIKE lower(concat('%', ?, '%'))) "
+            + "AND e.event_date >= now() LIMIT " + PAGE_SIZE;
+    private static final String FULL_TEXT_QUERY = "SELECT e.id FROM events e WHERE e.state = 'PUBLISHED' "
+            + "AND e.search_vector @@ to_tsquery('russian', ?) "
+            + "AND e.event_date >= now() ORDER BY e.id LIMIT " + PAGE_SIZE;
+    private static final String RELEVANCE_QUERY = "SELECT e.id FROM events e WHERE e.state = 'PUBLISHED' "
+            + "AND e.search_vector @@ to_tsquery('russian', ?) "
+            + "AND e.event_date >= now() "
+            + "ORDER BY ts_rank_cd(e.search_vector, to_tsquery('russian', ?)) DESC, e.id LIMIT " + PAGE_SIZE;
+
+    private final Properties config;
+
+    public SearchBenchmark(Properties config) {
+        this.config = config;
+    }
+
+    public static void main(String[] args) throws IOException, SQLException {
+        Properties config = new Properties();
+        try (InputStream defaults = SearchBenchmark.class.getResourceAsStream("/search-benchmark.properties")) {
+            config.load(defaults);
+        }
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 1) {
+                throw new IllegalArgumentException("Аргумент должен иметь вид key=value: " + arg);
+            }
+            config.setProperty(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        SearchBenchmark benchmark = new SearchBenchmark(config);
+        Map<String, Object> report;
+        try (Connection connection = DriverManager.getConnection(config.getProperty("jdbc.url"),
+                config.getProperty("jdbc.username"), config.getProperty("jdbc.password"))) {
+            benchmark.seed(connection);
+            report = benchmark.run(connection);
+        }
+        Path path = Path.of(config.getProperty("report"));
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(path.toFile(), report);
+        System.out.println("Отчёт записан в " + path.toAbsolutePath());
+    }
+
+    public void seed(Connection connection) throws SQLException {
+        long target = Long.parseLong(config.getProperty("events"));
+        long categoryId = upsertId(connection,
+                "INSERT INTO categories (name) VALUES ('search-benchmark') ON CONFLICT (name) DO NOTHING",
+                "SELECT id FROM categories WHERE name = 'search-benchmark'");
+        long userId = upsertId(connection,
+                "INSERT INTO users (name, email) VALUES ('Search benchmark', 'search-benchmark@example.com') "
+                        + "ON CONFLICT (email) DO NOTHING",
+                "SELECT id FROM users WHERE email = 'search-benchmark@example.com'");
+        long seeded = queryLong(connection, "SELECT count(*) FROM events WHERE category_id = " + categoryId);
+        if (seeded >= target) {
+            System.out.printf("В базе уже %d событий бенчмарка%n", seeded);
+            return;
+        }
+        String[] words = WORDS.split(" ");
+        String insert = "INSERT INTO events (title, annotation, description, category_id, event_date, paid, "
+                + "participant_limit, request_moderation, created_on, published_on, initiator_id, state, views) "
+                + "SELECT initcap(w[(1 + g % n)::int]) || ' ' || w[(1 + (g / n) % n)::int], "
+                + "array_to_string(ARRAY(SELECT w[(1 + (g * 31 + k * 7 + g / (k + 1)) % n)::int] "
+                + "FROM generate_series(1, 25) k), ' '), "
+                + "array_to_string(ARRAY(SELECT w[(1 + (g * 17 + k * 13 + g / (k + 3)) % n)::int] "
+                + "FROM generate_series(1, 250) k), ' '), "
+                + "?, now() + interval '30 days', g % 2 = 0, 0, false, now(), now(), ?, 'PUBLISHED', 0 "
+                + "FROM generate_series(?::bigint, ?::bigint) g, (SELECT ?::text[] AS w, ?::int AS n) v";
+        try (PreparedStatement statement = connection.prepareStatement(insert)) {
+            for (long from = seeded; from < target; from += SEED_CHUNK) {
+                long to = Math.min(target, from + SEED_CHUNK) - 1;
+                statement.setLong(1, categoryId);
+                statement.setLong(2, userId);
+                statement.setLong(3, from);
+                statement.setLong(4, to);
+                statement.setArray(5, connection.createArrayOf("text", words));
+                statement.setInt(6, words.length);
+                statement.executeUpdate();
+                System.out.printf("Создано событий: %d из %d%n", to + 1, target);
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE events");
+        }
+    }
+
+    public Map<String, Object> run(Connection connection) throws SQLException {
+        int warmup = Integer.parseInt(config.getProperty("warmup-runs"));
+        int runs = Integer.parseInt(config.getProperty("runs"));
+        Map<String, Object> results = new LinkedHashMap<>();
+        for (String term : config.getProperty("terms").split(",")) {
+            String text = term.trim();
+            String prefixQuery = toPrefixQuery(text);
+            Map<String, Object> variants = new LinkedHashMap<>();
+            variants.put("like", measure(connection, LIKE_QUERY, List.of(text, text), warmup, runs));
+            variants.put("fullText", measure(connection, FULL_TEXT_QUERY, List.of(prefixQuery), warmup, runs));
+            variants.put("relevance", measure(connection, RELEVANCE_QUERY, List.of(prefixQuery, prefixQuery),
+                    warmup, runs));
+            variants.forEach((variant, result) -> System.out.printf("%-30s %-10s %s%n", text, variant, result));
+            results.put(text, variants);
+        }
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", config.getProperty("label"));
+        report.put("events", queryLong(connection, "SELECT count(*) FROM events"));
+        report.put("runs", runs);
+        report.put("terms", results);
+        return report;
+    }
+
+    private Map<String, Object> measure(Connection connection, String sql, List<String> parameters, int warmup,
+                                        int runs) throws SQLException {
+        Histogram histogram = new Histogram(3);
+        int found = 0;
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setString(i + 1, parameters.get(i));
+            }
+            for (int run = 0; run < warmup + runs; run++) {
+                long start = System.nanoTime();
+                int rows = 0;
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        rows++;
+                    }
+                }
+                if (run >= warmup) {
+                    histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                    found = rows;
+                }
+            }
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("rows", found);
+        result.put("p50Ms", histogram.getValueAtPercentile(50) / 1000.0);
+        result.put("p99Ms", histogram.getValueAtPercentile(99) / 1000.0);
+        result.put("maxMs", histogram.getMaxValue() / 1000.0);
+        return result;
+    }
+
+    private static String toPrefixQuery(String text) {
+        StringJoiner query = new StringJoiner(" & ");
+        Arrays.stream(text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .forEach(word -> query.add(word + ":*"));
+        return query.toString();
+    }
+
+    private static long upsertId(Connection connection, String insert, String select) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(insert);
+        }
+        return queryLong(connection, select);
+    }
+
+    private static long queryLong(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package ru.practicum.load;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+/**
+ * Entities created before the run. All events belong to the first user, so any other user may take part in them.
+ */
+public record SeedData(List<Long> userIds, List<Long> eventIds) {
+
+    /**
+     * Identifiers for a run against the stats service alone, which only uses them to build hit URIs.
+     */
+    public static SeedData synthetic(LoadConfig config) {
+        return new SeedData(LongStream.rangeClosed(1, config.users()).boxed().toList(),
+                LongStream.rangeClosed(1, config.events()).boxed().toList());
+    }
+
+    public long randomEvent(Random random) {
+        return eventIds.get(random.nextInt(eventIds.size()));
+    }
+
+    public long randomParticipant(Random random) {
+        return userIds.get(1 + random.nextInt(userIds.size() - 1));
+    }
+}
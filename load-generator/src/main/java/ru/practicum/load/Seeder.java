@@ -0,0 +1,75 @@
+package ru.practicum.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates the categories, users and published events the replayed calls refer to, through the admin and private
+ * API of the main service.
+ */
+public class Seeder {
+    private final HttpClient httpClient;
+    private final LoadConfig config;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public Seeder(HttpClient httpClient, LoadConfig config) {
+        this.httpClient = httpClient;
+        this.config = config;
+    }
+
+    public SeedData seed() throws IOException, InterruptedException {
+        String run = Long.toString(System.currentTimeMillis(), 36);
+        List<Long> categoryIds = new ArrayList<>();
+        for (int i = 0; i < config.categories(); i++) {
+            categoryIds.add(post("/admin/categories", Map.of("name", "load-" + run + "-" + i)));
+        }
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < config.users(); i++) {
+            userIds.add(post("/admin/users", Map.of(
+                    "name", "Load user " + i,
+                    "email", "load-" + run + "-" + i + "@example.com")));
+        }
+        String eventDate = LocalDateTime.now().plusDays(30).format(Operation.TIMESTAMP_FORMATTER);
+        List<Long> eventIds = new ArrayList<>();
+        for (int i = 0; i < config.events(); i++) {
+            long eventId = post("/users/" + userIds.get(0) + "/events", Map.of(
+                    "title", "Load event " + i,
+                    "annotation", "Событие для нагрузочного теста номер " + i,
+                    "description", "Описание события для нагрузочного теста номер " + i,
+                    "category", categoryIds.get(i % categoryIds.size()),
+                    "eventDate", eventDate,
+                    "location", Map.of("lat", 55.75, "lon", 37.62),
+                    "participantLimit", 0));
+            send(HttpRequest.newBuilder(config.mainUrl().resolve("/admin/events/" + eventId))
+                    .header("Content-Type", "application/json")
+                    .method("PATCH", Operation.json(Map.of("stateAction", "PUBLISH_EVENT"))));
+            eventIds.add(eventId);
+        }
+        return new SeedData(userIds, eventIds);
+    }
+
+    private long post(String path, Object body) throws IOException, InterruptedException {
+        String response = send(HttpRequest.newBuilder(config.mainUrl().resolve(path))
+                .header("Content-Type", "application/json")
+                .POST(Operation.json(body)));
+        return objectMapper.readTree(response).get("id").asLong();
+    }
+
+    private String send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        HttpRequest built = request.timeout(config.timeout()).build();
+        HttpResponse<String> response = httpClient.send(built, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("Подготовка данных не удалась: " + built.method() + " " + built.uri() + " -> "
+                    + response.statusCode() + " " + response.body());
+        }
+        return response.body();
+    }
+}
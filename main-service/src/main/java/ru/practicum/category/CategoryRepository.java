@@ -1,6 +1,10 @@
 package ru.practicum.category;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
+
 public interface CategoryRepository extends JpaRepository<Category, Long> {
+    List<Category> findByIdGreaterThanOrderById(Long afterId, Pageable pageable);
 }
\ No newline at end of file
@@ -2,12 +2,11 @@ package ru.practicum.category;
 
 import ru.practicum.category.dto.CategoryDto;
 import ru.practicum.category.dto.NewCategoryDto;
-
-import java.util.List;
+import ru.practicum.pagination.CursorPage;
 
 public interface CategoryService {
 
-    List<CategoryDto> getCategories(int from, int size);
+    CursorPage<CategoryDto> getCategories(int from, int size, String after);
 
     CategoryDto getCategoryById(long catId);
 
@@ -2,7 +2,6 @@ package ru.practicum.category;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import ru.practicum.category.dto.CategoryDto;
 import ru.practicum.category.dto.CategoryMapper;
@@ -11,6 +10,9 @@ import ru.practicum.event.Event;
 import ru.practicum.event.EventRepository;
 import ru.practicum.exceptions.CategoryNotFoundException;
 import ru.practicum.exceptions.ForbiddenException;
+import ru.practicum.pagination.Cursor;
+import ru.practicum.pagination.CursorPage;
+import ru.practicum.pagination.OffsetPageRequest;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -27,12 +29,14 @@ public class CategoryServiceImpl implements CategoryService {
     private final EventRepository eventRepository;
 
     @Override
-    public List<CategoryDto> getCategories(int from, int size) {
-        log.info("Получение списка категорий: from = " + from + ", size = " + size);
-        return categoryRepository.findAll(PageRequest.of(from / size, size))
+    public CursorPage<CategoryDto> getCategories(int from, int size, String after) {
+        log.info("Получение списка категорий: from = " + from + ", size = " + size + ", after = " + after);
+        List<CategoryDto> categories = categoryRepository.findByIdGreaterThanOrderById(Cursor.decode(after).id(),
+                        OffsetPageRequest.of(after == null ? from : 0, size))
                 .stream()
                 .map(CategoryMapper::toCategoryDto)
                 .collect(Collectors.toList());
+        return CursorPage.of(categories, size, category -> Cursor.of(category.getId()));
     }
 
     @Override
@@ -5,6 +5,7 @@ import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -34,10 +35,12 @@ public class CommentController {
     }
 
     @GetMapping("/events/{eventId}/comments")
-    public List<CommentResponseDto> getEventComments(@PathVariable @Positive Long eventId,
-                                                     @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-                                                     @RequestParam(defaultValue = "10") @Positive int size) {
-        return commentService.getEventComments(eventId, from, size);
+    public ResponseEntity<List<CommentResponseDto>> getEventComments(
+            @PathVariable @Positive Long eventId,
+            @RequestParam(defaultValue = "0") @PositiveOrZero int from,
+            @RequestParam(defaultValue = "10") @Positive int size,
+            @RequestParam(required = false) String after) {
+        return commentService.getEventComments(eventId, from, size, after).toResponse();
     }
 
     @GetMapping("/comment/{commentId}")
@@ -8,5 +8,5 @@ import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
 
-    List<Comment> findByEvent(Event event, Pageable pageable);
+    List<Comment> findByEventAndIdGreaterThanOrderById(Event event, Long afterId, Pageable pageable);
 }
\ No newline at end of file
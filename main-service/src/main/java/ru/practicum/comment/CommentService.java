@@ -2,14 +2,13 @@ package ru.practicum.comment;
 
 import ru.practicum.comment.dto.CommentResponseDto;
 import ru.practicum.comment.dto.NewCommentDto;
-
-import java.util.List;
+import ru.practicum.pagination.CursorPage;
 
 public interface CommentService {
 
     CommentResponseDto createComment(Long userId, Long eventId, NewCommentDto newCommentDto);
 
-    List<CommentResponseDto> getEventComments(Long eventId, int from, int size);
+    CursorPage<CommentResponseDto> getEventComments(Long eventId, int from, int size, String after);
 
     CommentResponseDto getCommentById(Long commentId);
 
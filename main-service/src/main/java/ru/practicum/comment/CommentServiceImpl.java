@@ -3,7 +3,6 @@ package ru.practicum.comment;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import ru.practicum.comment.dto.CommentMapper;
 import ru.practicum.comment.dto.CommentResponseDto;
@@ -15,6 +14,9 @@ import ru.practicum.exceptions.CommentNotFoundException;
 import ru.practicum.exceptions.EventNotFoundException;
 import ru.practicum.exceptions.ForbiddenException;
 import ru.practicum.exceptions.UserNotFoundException;
+import ru.practicum.pagination.Cursor;
+import ru.practicum.pagination.CursorPage;
+import ru.practicum.pagination.OffsetPageRequest;
 import ru.practicum.user.User;
 import ru.practicum.user.UserRepository;
 
@@ -49,12 +51,14 @@ public class CommentServiceImpl implements CommentService {
     }
 
     @Override
-    public List<CommentResponseDto> getEventComments(Long eventId, int from, int size) {
+    public CursorPage<CommentResponseDto> getEventComments(Long eventId, int from, int size, String after) {
         log.info("Получить комментарии события с ID = " + eventId);
         Event event = eventRepository.findByIdAndState(eventId, EventState.PUBLISHED)
                 .orElseThrow(() -> new EventNotFoundException(eventId));
-        List<Comment> comments = commentRepository.findByEvent(event, PageRequest.of(from / size, size));
-        return comments.stream().map(CommentMapper::toCommentResponseDto).collect(Collectors.toList());
+        List<Comment> comments = commentRepository.findByEventAndIdGreaterThanOrderById(event,
+                Cursor.decode(after).id(), OffsetPageRequest.of(after == null ? from : 0, size));
+        return CursorPage.of(comments.stream().map(CommentMapper::toCommentResponseDto).collect(Collectors.toList()),
+                size, comment -> Cursor.of(comment.getId()));
     }
 
     @Override
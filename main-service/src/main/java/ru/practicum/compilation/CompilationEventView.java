@@ -0,0 +1,11 @@
+package ru.practicum.compilation;
+
+import ru.practicum.event.EventShortView;
+
+/**
+ * Event list row tagged with the compilation it belongs to, so the events of a page of compilations are read at once.
+ */
+public interface CompilationEventView extends EventShortView {
+
+    Long getCompilationId();
+}
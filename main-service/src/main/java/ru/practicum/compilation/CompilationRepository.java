@@ -6,5 +6,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import java.util.List;
 
 public interface CompilationRepository extends JpaRepository<Compilation, Long> {
-    List<Compilation> findByPinned(Boolean pinned, Pageable pageable);
+    List<Compilation> findByPinnedAndIdGreaterThanOrderById(Boolean pinned, Long afterId, Pageable pageable);
+
+    List<Compilation> findByIdGreaterThanOrderById(Long afterId, Pageable pageable);
 }
\ No newline at end of file
@@ -2,7 +2,7 @@ package ru.practicum.compilation;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.compilation.dto.CompilationDto;
@@ -10,15 +10,19 @@ import ru.practicum.compilation.dto.CompilationMapper;
 import ru.practicum.compilation.dto.NewCompilationDto;
 import ru.practicum.compilation.dto.UpdateCompilationRequestDto;
 import ru.practicum.event.EventRepository;
+import ru.practicum.event.EventViewService;
 import ru.practicum.exceptions.CompilationNotFoundException;
 import ru.practicum.exceptions.ValidationRequestException;
+import ru.practicum.pagination.Cursor;
+import ru.practicum.pagination.CursorPage;
+import ru.practicum.pagination.OffsetPageRequest;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import static ru.practicum.compilation.dto.CompilationMapper.toCompilation;
-import static ru.practicum.compilation.dto.CompilationMapper.toCompilationDto;
 
 @Service
 @RequiredArgsConstructor
@@ -26,18 +30,21 @@ import static ru.practicum.compilation.dto.CompilationMapper.toCompilationDto;
 public class CompilationServiceImpl implements CompilationService {
     private final CompilationRepository compilationRepository;
     private final EventRepository eventRepository;
+    private final EventViewService eventViewService;
 
     @Override
-    public List<CompilationDto> getCompilations(Boolean pinned, int from, int size) {
-        log.info("Получение коллекций события по параметрам: pinned = " + pinned + ", from = " + from + ", size = " + size);
+    public CursorPage<CompilationDto> getCompilations(Boolean pinned, int from, int size, String after) {
+        log.info("Получение коллекций события по параметрам: pinned = " + pinned + ", from = " + from + ", size = " + size +
+                ", after = " + after);
+        Long afterId = Cursor.decode(after).id();
+        Pageable pageable = OffsetPageRequest.of(after == null ? from : 0, size);
         List<Compilation> compilations;
         if (pinned != null) {
-            compilations = compilationRepository.findByPinned(pinned, PageRequest.of(from / size, size));
+            compilations = compilationRepository.findByPinnedAndIdGreaterThanOrderById(pinned, afterId, pageable);
         } else {
-            compilations = compilationRepository.findAll(PageRequest.of(from / size, size)).getContent();
+            compilations = compilationRepository.findByIdGreaterThanOrderById(afterId, pageable);
         }
-        return !compilations.isEmpty() ? compilations.stream().map(CompilationMapper::toCompilationDto)
-                .collect(Collectors.toList()) : Collections.emptyList();
+        return CursorPage.of(toCompilationDtos(compilations), size, compilation -> Cursor.of(compilation.getId()));
     }
 
     @Override
@@ -55,7 +62,7 @@ public class CompilationServiceImpl implements CompilationService {
         if (newCompilationDto.getEvents() != null) {
             compilation.setEvents(eventRepository.findByIdIn(newCompilationDto.getEvents()));
         }
-        return toCompilationDto(compilationRepository.save(compilation));
+        return toCompilationDto(compilationRepository.saveAndFlush(compilation));
     }
 
     @Override
@@ -76,7 +83,7 @@ public class CompilationServiceImpl implements CompilationService {
         if (updateCompilationRequestDto.getEvents() != null) {
             compilation.setEvents(eventRepository.findByIdIn(updateCompilationRequestDto.getEvents()));
         }
-        return toCompilationDto(compilationRepository.save(compilation));
+        return toCompilationDto(compilationRepository.saveAndFlush(compilation));
     }
 
     @Override
@@ -86,4 +93,25 @@ public class CompilationServiceImpl implements CompilationService {
         compilationRepository.findById(compId).orElseThrow(() -> new CompilationNotFoundException(compId));
         compilationRepository.deleteById(compId);
     }
+
+    private List<CompilationDto> toCompilationDtos(List<Compilation> compilations) {
+        if (compilations.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<CompilationEventView> rows = eventRepository.findShortViewsByCompilationIdIn(
+                compilations.stream().map(Compilation::getId).toList());
+        Map<Long, Long> views = eventViewService.getViews(rows);
+        Map<Long, List<CompilationEventView>> events = rows.stream()
+                .collect(Collectors.groupingBy(CompilationEventView::getCompilationId));
+        return compilations.stream()
+                .map(compilation -> CompilationMapper.toCompilationDto(compilation,
+                        events.getOrDefault(compilation.getId(), Collections.emptyList()), views))
+                .collect(Collectors.toList());
+    }
+
+    private CompilationDto toCompilationDto(Compilation compilation) {
+        List<CompilationEventView> events = eventRepository.findShortViewsByCompilationIdIn(
+                List.of(compilation.getId()));
+        return CompilationMapper.toCompilationDto(compilation, events, eventViewService.getViews(events));
+    }
 }
\ No newline at end of file
@@ -2,21 +2,24 @@ package ru.practicum.compilation.dto;
 
 import lombok.NoArgsConstructor;
 import ru.practicum.compilation.Compilation;
-import ru.practicum.event.dto.EventMapper;
+import ru.practicum.event.EventShortView;
 
-import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
+import static ru.practicum.event.dto.EventMapper.toEventShortDto;
+
 @NoArgsConstructor
 public class CompilationMapper {
 
-    public static CompilationDto toCompilationDto(Compilation compilation) {
+    public static CompilationDto toCompilationDto(Compilation compilation, List<? extends EventShortView> events,
+                                                  Map<Long, Long> views) {
         return CompilationDto.builder()
                 .id(compilation.getId())
-                .events(compilation.getEvents() != null ?
-                        compilation.getEvents().stream()
-                                .map(EventMapper::toEventShortDto)
-                                .collect(Collectors.toList()) : Collections.emptyList())
+                .events(events.stream()
+                        .map(event -> toEventShortDto(event, views.get(event.getId())))
+                        .collect(Collectors.toList()))
                 .pinned(compilation.isPinned())
                 .title(compilation.getTitle())
                 .build();
@@ -0,0 +1,42 @@
+package ru.practicum.event;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Repairs the confirmed request counters of events that no longer match their confirmed requests, e.g. after a
+ * manual change in the database. Each event is recounted in its own transaction after locking its row, so the
+ * recount waits for the request changes in flight and sees all of them. Also runs at startup, which fills the
+ * counters of events created before the column existed.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ConfirmedRequestsReconciler {
+    private final EventRepository eventRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${confirmed-requests.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        List<Long> eventIds = eventRepository.findIdsWithConfirmedRequestsDrift();
+        if (eventIds.isEmpty()) {
+            return;
+        }
+        log.warn("Счётчик подтверждённых заявок расходится с заявками у {} событий: {}", eventIds.size(), eventIds);
+        for (Long eventId : eventIds) {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (eventRepository.lockById(eventId) != null) {
+                    eventRepository.recountConfirmedRequests(eventId);
+                }
+            });
+        }
+    }
+}
@@ -78,4 +78,11 @@ public class Event {
 
     @Column(columnDefinition = "bigint default 0")
     private Long views;
+
+    /**
+     * Number of confirmed participation requests. Changed only by the atomic updates of {@link EventRepository}, so
+     * saving an event never overwrites a concurrent change.
+     */
+    @Column(name = "confirmed_requests", insertable = false, updatable = false)
+    private long confirmedRequests;
 }
\ No newline at end of file
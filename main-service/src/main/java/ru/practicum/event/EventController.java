@@ -4,6 +4,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -35,10 +36,11 @@ public class EventController {
     }
 
     @GetMapping("/users/{userId}/events")
-    public List<EventShortDto> getEvents(@PathVariable @Positive Long userId,
-                                         @RequestParam(defaultValue = "0") int from,
-                                         @RequestParam(defaultValue = "10") int size) {
-        return eventService.getEvents(userId, from, size);
+    public ResponseEntity<List<EventShortDto>> getEvents(@PathVariable @Positive Long userId,
+                                                         @RequestParam(defaultValue = "0") int from,
+                                                         @RequestParam(defaultValue = "10") int size,
+                                                         @RequestParam(required = false) String after) {
+        return eventService.getEvents(userId, from, size, after).toResponse();
     }
 
     @GetMapping("/users/{userId}/events/{eventId}")
@@ -55,14 +57,16 @@ public class EventController {
     }
 
     @GetMapping("/admin/events")
-    public List<EventFullDto> getEventsByAdmin(@RequestParam(required = false) List<Long> users,
-                                               @RequestParam(required = false) List<String> states,
-                                               @RequestParam(required = false) List<Long> categories,
-                                               @RequestParam(required = false) String rangeStart,
-                                               @RequestParam(required = false) String rangeEnd,
-                                               @RequestParam(defaultValue = "0") int from,
-                                               @RequestParam(defaultValue = "10") int size) {
-        return eventService.getEventsByAdmin(users, states, categories, rangeStart, rangeEnd, from, size);
+    public ResponseEntity<List<EventFullDto>> getEventsByAdmin(@RequestParam(required = false) List<Long> users,
+                                                               @RequestParam(required = false) List<String> states,
+                                                               @RequestParam(required = false) List<Long> categories,
+                                                               @RequestParam(required = false) String rangeStart,
+                                                               @RequestParam(required = false) String rangeEnd,
+                                                               @RequestParam(defaultValue = "0") int from,
+                                                               @RequestParam(defaultValue = "10") int size,
+                                                               @RequestParam(required = false) String after) {
+        return eventService.getEventsByAdmin(users, states, categories, rangeStart, rangeEnd, from, size, after)
+                .toResponse();
     }
 
     @PatchMapping("/admin/events/{eventId}")
@@ -72,18 +76,20 @@ public class EventController {
     }
 
     @GetMapping("/events")
-    public List<EventShortDto> getPublishedEvents(@RequestParam(required = false) String text,
-                                                  @RequestParam(required = false) List<Long> categories,
-                                                  @RequestParam(required = false) Boolean paid,
-                                                  @RequestParam(required = false) String rangeStart,
-                                                  @RequestParam(required = false) String rangeEnd,
-                                                  @RequestParam(defaultValue = "false") boolean onlyAvailable,
-                                                  @RequestParam(required = false) String sort,
-                                                  @RequestParam(defaultValue = "0") int from,
-                                                  @RequestParam(defaultValue = "10") int size,
-                                                  HttpServletRequest request) {
+    public ResponseEntity<List<EventShortDto>> getPublishedEvents(
+            @RequestParam(required = false) String text,
+            @RequestParam(required = false) List<Long> categories,
+            @RequestParam(required = false) Boolean paid,
+            @RequestParam(required = false) String rangeStart,
+            @RequestParam(required = false) String rangeEnd,
+            @RequestParam(defaultValue = "false") boolean onlyAvailable,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "0") int from,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String after,
+            HttpServletRequest request) {
         return eventService.getPublishedEvents(text, categories, paid, rangeStart, rangeEnd, onlyAvailable,
-                sort, from, size, request);
+                sort, from, size, after, request).toResponse();
     }
 
     @GetMapping("/events/{id}")
@@ -1,19 +1,67 @@
 package ru.practicum.event;
 
-import jakarta.transaction.Transactional;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import ru.practicum.compilation.CompilationEventView;
+import ru.practicum.event.index.IndexedEvent;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 public interface EventRepository extends JpaRepository<Event, Long> {
+    String SHORT_VIEW = "e.id AS id, e.title AS title, e.annotation AS annotation, "
+            + "c.id AS categoryId, c.name AS categoryName, e.eventDate AS eventDate, "
+            + "u.id AS initiatorId, u.name AS initiatorName, e.paid AS paid, "
+            + "e.participantLimit AS participantLimit, e.views AS views, e.confirmedRequests AS confirmedRequests, "
+            + "e.publishedOn AS publishedOn ";
+    String SHORT_VIEW_JOINS = "LEFT JOIN e.category c LEFT JOIN e.initiator u ";
+    String NATIVE_SHORT_VIEW = "e.id AS \"id\", e.title AS \"title\", e.annotation AS \"annotation\", "
+            + "c.id AS \"categoryId\", c.name AS \"categoryName\", e.event_date AS \"eventDate\", "
+            + "u.id AS \"initiatorId\", u.name AS \"initiatorName\", e.paid AS \"paid\", "
+            + "e.participant_limit AS \"participantLimit\", e.views AS \"views\", "
+            + "e.confirmed_requests AS \"confirmedRequests\", e.published_on AS \"publishedOn\" ";
+    String NATIVE_SHORT_VIEW_JOINS = "LEFT JOIN categories c ON c.id = e.category_id "
+            + "LEFT JOIN users u ON u.id = e.initiator_id ";
+    String PUBLISHED_FILTER = "(e.state = 'PUBLISHED') "
+            + "and (:categories is null or e.category_id IN (cast(cast(:categories AS TEXT) AS BIGINT))) "
+            + "and (:paid is null or e.paid = cast(cast(:paid AS text) AS BOOLEAN)) "
+            + "and (e.event_date >= :rangeStart) "
+            + "and (cast(:rangeEnd AS timestamp) is null or e.event_date < cast(:rangeEnd AS timestamp)) "
+            + "and (:onlyAvailable = false or e.participant_limit = 0 "
+            + "or e.confirmed_requests < e.participant_limit) ";
+    String AFTER_ID = "and e.id > :afterId ";
+    String AFTER_EVENT_DATE = "and (e.event_date, e.id) > (:afterDate, :afterId) ";
+    String TEXT_FILTER = "and (:text is null or lower(e.title) LIKE lower(concat('%',cast(:text AS text),'%')) "
+            + "or lower(e.annotation) LIKE lower(concat('%',cast(:text AS text),'%')) "
+            + "or lower(e.description) LIKE lower(concat('%',cast(:text AS text),'%'))) ";
+    String FULL_TEXT_FILTER = "and e.search_vector @@ to_tsquery('russian', :query) ";
+
+    @Query("SELECT " + SHORT_VIEW + "FROM Event e " + SHORT_VIEW_JOINS
+            + "WHERE u.id = :userId AND e.id > :afterId ORDER BY e.id")
+    List<EventShortView> findShortViewsByInitiatorId(@Param("userId") Long userId, @Param("afterId") Long afterId,
+                                                     Pageable pageable);
+
+    @Query("SELECT comp.id AS compilationId, " + SHORT_VIEW + "FROM Compilation comp JOIN comp.events e "
+            + SHORT_VIEW_JOINS + "WHERE comp.id IN :compilationIds")
+    List<CompilationEventView> findShortViewsByCompilationIdIn(@Param("compilationIds") List<Long> compilationIds);
+
+    @Query("SELECT " + SHORT_VIEW + "FROM Event e " + SHORT_VIEW_JOINS
+            + "WHERE e.id IN :ids AND e.state = ru.practicum.event.EventState.PUBLISHED")
+    List<EventShortView> findPublishedShortViewsByIdIn(@Param("ids") List<Long> ids);
+
+    @Query("SELECT new ru.practicum.event.index.IndexedEvent(e.id, e.title, e.annotation, e.description, "
+            + "c.id, e.paid, e.eventDate) FROM Event e LEFT JOIN e.category c "
+            + "WHERE e.state = ru.practicum.event.EventState.PUBLISHED AND e.id > :afterId ORDER BY e.id")
+    List<IndexedEvent> findIndexedEvents(@Param("afterId") Long afterId, Pageable pageable);
 
-    List<Event> findByInitiatorId(Long userId, Pageable pageable);
+    @Query("SELECT e.id FROM Event e WHERE e.id IN :ids "
+            + "AND (lower(e.title) LIKE :pattern ESCAPE '!' OR lower(e.annotation) LIKE :pattern ESCAPE '!' "
+            + "OR lower(e.description) LIKE :pattern ESCAPE '!')")
+    List<Long> findIdsContaining(@Param("ids") List<Long> ids, @Param("pattern") String pattern);
 
     List<Event> findByIdAndInitiatorId(Long eventId, Long userId);
 
@@ -25,33 +73,120 @@ public interface EventRepository extends JpaRepository<Event, Long> {
             + "AND e.state IN (:states) "
             + "AND e.category_id IN (:categories) "
             + "AND e.event_date >= :rangeStart "
-            + "AND e.event_date < :rangeEnd",
+            + "AND e.event_date < :rangeEnd "
+            + "AND e.id > :afterId ORDER BY e.id",
             nativeQuery = true)
     List<Event> findEvents(@Param("userId") List<Long> userId,
                            @Param("states") List<String> states,
                            @Param("categories") List<Long> categories,
                            @Param("rangeStart") LocalDateTime rangeStart,
                            @Param("rangeEnd") LocalDateTime rangeEnd,
+                           @Param("afterId") long afterId,
                            Pageable pageable);
 
-    @Query(value = "SELECT * FROM Events e WHERE (e.state = 'PUBLISHED') "
-            + "and (:text is null or lower(e.annotation) LIKE lower(concat('%',cast(:text AS text),'%')) "
-            + "or lower(e.description) LIKE lower(concat('%',cast(:text AS text),'%'))) "
-            + "and (:categories is null or e.category_id IN (cast(cast(:categories AS TEXT) AS BIGINT))) "
-            + "and (:paid is null or e.paid = cast(cast(:paid AS text) AS BOOLEAN)) "
-            + "and (e.event_date >= :rangeStart) "
-            + "and (cast(:rangeEnd AS timestamp) is null or e.event_date < cast(:rangeEnd AS timestamp))",
+    List<Event> findByIdGreaterThanOrderById(Long afterId, Pageable pageable);
+
+    /**
+     * Published events matching the filter and the text as a substring, after {@code afterId} in id order, or ranked
+     * by where the text was found for the RELEVANCE sort.
+     */
+    @Query(value = "SELECT " + NATIVE_SHORT_VIEW + "FROM events e " + NATIVE_SHORT_VIEW_JOINS
+            + "WHERE " + PUBLISHED_FILTER + TEXT_FILTER + AFTER_ID
+            + "ORDER BY CASE WHEN cast(:sort AS varchar) = 'RELEVANCE' AND :text is not null THEN "
+            + "(CASE WHEN lower(e.title) LIKE lower(concat('%',cast(:text AS text),'%')) THEN 4 ELSE 0 END) "
+            + "+ (CASE WHEN lower(e.annotation) LIKE lower(concat('%',cast(:text AS text),'%')) THEN 2 ELSE 0 END) "
+            + "+ (CASE WHEN lower(e.description) LIKE lower(concat('%',cast(:text AS text),'%')) THEN 1 ELSE 0 END) "
+            + "END DESC, e.id",
             nativeQuery = true)
+    List<EventShortView> findPublishedEvents(String text, List<Long> categories, Boolean paid,
+                                             @Param("rangeStart") LocalDateTime rangeStart,
+                                             @Param("rangeEnd") LocalDateTime rangeEnd,
+                                             @Param("onlyAvailable") boolean onlyAvailable,
+                                             @Param("sort") String sort,
+                                             @Param("afterId") long afterId,
+                                             Pageable pageable);
 
-    List<Event> findPublishedEvents(String text, List<Long> categories, Boolean paid,
-                                    @Param("rangeStart") LocalDateTime rangeStart,
-                                    @Param("rangeEnd") LocalDateTime rangeEnd, Pageable pageable);
+    /**
+     * EVENT_DATE variant of {@link #findPublishedEvents}: the keyset is a row comparison on
+     * {@code (event_date, id)}, so the scan seeks into the {@code (state, event_date, id)} index.
+     */
+    @Query(value = "SELECT " + NATIVE_SHORT_VIEW + "FROM events e " + NATIVE_SHORT_VIEW_JOINS
+            + "WHERE " + PUBLISHED_FILTER + TEXT_FILTER + AFTER_EVENT_DATE
+            + "ORDER BY e.event_date, e.id",
+            nativeQuery = true)
+    List<EventShortView> findPublishedEventsByEventDate(String text, List<Long> categories, Boolean paid,
+                                                        @Param("rangeStart") LocalDateTime rangeStart,
+                                                        @Param("rangeEnd") LocalDateTime rangeEnd,
+                                                        @Param("onlyAvailable") boolean onlyAvailable,
+                                                        @Param("afterId") long afterId,
+                                                        @Param("afterDate") LocalDateTime afterDate,
+                                                        Pageable pageable);
+
+    /**
+     * Full-text variant of {@link #findPublishedEvents} for PostgreSQL: {@code query} is a tsquery matched against
+     * the indexed {@code search_vector} column and ranked with {@code ts_rank_cd}.
+     */
+    @Query(value = "SELECT " + NATIVE_SHORT_VIEW + "FROM events e " + NATIVE_SHORT_VIEW_JOINS
+            + "WHERE " + PUBLISHED_FILTER + FULL_TEXT_FILTER + AFTER_ID
+            + "ORDER BY CASE WHEN cast(:sort AS varchar) = 'RELEVANCE' "
+            + "THEN ts_rank_cd(e.search_vector, to_tsquery('russian', :query)) END DESC, e.id",
+            nativeQuery = true)
+    List<EventShortView> searchPublishedEvents(@Param("query") String query, List<Long> categories, Boolean paid,
+                                               @Param("rangeStart") LocalDateTime rangeStart,
+                                               @Param("rangeEnd") LocalDateTime rangeEnd,
+                                               @Param("onlyAvailable") boolean onlyAvailable,
+                                               @Param("sort") String sort,
+                                               @Param("afterId") long afterId,
+                                               Pageable pageable);
+
+    /**
+     * EVENT_DATE variant of {@link #searchPublishedEvents}, with the same row comparison keyset as
+     * {@link #findPublishedEventsByEventDate}.
+     */
+    @Query(value = "SELECT " + NATIVE_SHORT_VIEW + "FROM events e " + NATIVE_SHORT_VIEW_JOINS
+            + "WHERE " + PUBLISHED_FILTER + FULL_TEXT_FILTER + AFTER_EVENT_DATE
+            + "ORDER BY e.event_date, e.id",
+            nativeQuery = true)
+    List<EventShortView> searchPublishedEventsByEventDate(@Param("query") String query, List<Long> categories,
+                                                          Boolean paid,
+                                                          @Param("rangeStart") LocalDateTime rangeStart,
+                                                          @Param("rangeEnd") LocalDateTime rangeEnd,
+                                                          @Param("onlyAvailable") boolean onlyAvailable,
+                                                          @Param("afterId") long afterId,
+                                                          @Param("afterDate") LocalDateTime afterDate,
+                                                          Pageable pageable);
 
     Optional<Event> findByIdAndState(Long eventId, EventState state);
 
-    @Transactional
+    /**
+     * Takes {@code count} places of the event if its participant limit allows it.
+     *
+     * @return 1 if the places were taken, 0 if the limit would be exceeded
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query(value = "UPDATE events SET confirmed_requests = confirmed_requests + :count WHERE id = :eventId "
+            + "AND (participant_limit = 0 OR confirmed_requests + :count <= participant_limit)",
+            nativeQuery = true)
+    int reserveConfirmedRequests(@Param("eventId") Long eventId, @Param("count") long count);
+
     @Modifying(clearAutomatically = true, flushAutomatically = true)
-    @Query("UPDATE Event e SET e.views = e.views + 1 WHERE e.id = :eventId")
-    void incrementViews(@Param("eventId") Long eventId);
+    @Query(value = "UPDATE events SET confirmed_requests = confirmed_requests - :count WHERE id = :eventId",
+            nativeQuery = true)
+    void releaseConfirmedRequests(@Param("eventId") Long eventId, @Param("count") long count);
+
+    @Query(value = "SELECT e.id FROM events e WHERE e.confirmed_requests <> "
+            + "(SELECT COUNT(*) FROM requests r WHERE r.event_id = e.id AND r.status = 'CONFIRMED')",
+            nativeQuery = true)
+    List<Long> findIdsWithConfirmedRequestsDrift();
+
+    @Query(value = "SELECT id FROM events WHERE id = :eventId FOR UPDATE", nativeQuery = true)
+    Long lockById(@Param("eventId") Long eventId);
+
+    @Modifying
+    @Query(value = "UPDATE events SET confirmed_requests = "
+            + "(SELECT COUNT(*) FROM requests r WHERE r.event_id = events.id AND r.status = 'CONFIRMED') "
+            + "WHERE id = :eventId",
+            nativeQuery = true)
+    int recountConfirmedRequests(@Param("eventId") Long eventId);
 
 }
\ No newline at end of file
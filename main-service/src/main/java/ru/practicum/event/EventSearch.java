@@ -0,0 +1,107 @@
+package ru.practicum.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+import ru.practicum.event.index.EventTextIndex;
+import ru.practicum.pagination.Cursor;
+import ru.practicum.pagination.CursorPage;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.StringJoiner;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Search over published events. On PostgreSQL with the {@code search_vector} column from schema-postgresql.sql every
+ * word of the text is matched as a prefix against the GIN-indexed title, annotation and description, and relevance
+ * is {@code ts_rank_cd} with the title weighted highest. Elsewhere, e.g. on the local H2, the whole text is matched
+ * as a substring and relevance is the most important field it was found in. With
+ * {@code events.text-index.enabled} the text is matched as a substring by the in-memory {@link EventTextIndex}
+ * instead, whenever it can serve the search.
+ */
+@Component
+@Slf4j
+public class EventSearch {
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+
+    private final EventRepository eventRepository;
+    private final EventTextIndex eventTextIndex;
+    private final boolean fullText;
+
+    public EventSearch(EventRepository eventRepository, EventTextIndex eventTextIndex, DataSource dataSource)
+            throws MetaDataAccessException {
+        this.eventRepository = eventRepository;
+        this.eventTextIndex = eventTextIndex;
+        this.fullText = JdbcUtils.extractDatabaseMetaData(dataSource, metaData ->
+                "PostgreSQL".equals(metaData.getDatabaseProductName()) && hasSearchVector(metaData));
+        log.info("Поиск событий по тексту: {}", fullText ? "полнотекстовый индекс" : "поиск подстроки");
+    }
+
+    /**
+     * Finds a page of published events together with the cursor of the next page.
+     */
+    public CursorPage<EventShortView> findPublished(String text, List<Long> categories, Boolean paid,
+                                                    LocalDateTime rangeStart, LocalDateTime rangeEnd,
+                                                    boolean onlyAvailable, EventSort sort, Cursor after,
+                                                    Pageable pageable) {
+        if (eventTextIndex.canSearch(text, onlyAvailable, sort)) {
+            return eventTextIndex.findPublished(text, categories, paid, rangeStart, rangeEnd, sort, after, pageable);
+        }
+        return CursorPage.of(findInDatabase(text, categories, paid, rangeStart, rangeEnd, onlyAvailable, sort, after,
+                pageable), pageable.getPageSize(), event -> sort == EventSort.EVENT_DATE
+                ? new Cursor(event.getId(), event.getEventDate())
+                : Cursor.of(event.getId()));
+    }
+
+    private List<EventShortView> findInDatabase(String text, List<Long> categories, Boolean paid,
+                                                LocalDateTime rangeStart, LocalDateTime rangeEnd,
+                                                boolean onlyAvailable, EventSort sort, Cursor after,
+                                                Pageable pageable) {
+        String sortName = sort != null ? sort.name() : null;
+        // Without a cursor the date keyset starts at rangeStart, which the range filter requires anyway.
+        LocalDateTime afterDate = after.sortKey() != null ? after.sortKey() : rangeStart;
+        if (text != null && fullText) {
+            String query = toPrefixQuery(text);
+            if (!query.isEmpty()) {
+                return sort == EventSort.EVENT_DATE
+                        ? eventRepository.searchPublishedEventsByEventDate(query, categories, paid, rangeStart,
+                        rangeEnd, onlyAvailable, after.id(), afterDate, pageable)
+                        : eventRepository.searchPublishedEvents(query, categories, paid, rangeStart, rangeEnd,
+                        onlyAvailable, sortName, after.id(), pageable);
+            }
+        }
+        return sort == EventSort.EVENT_DATE
+                ? eventRepository.findPublishedEventsByEventDate(text, categories, paid, rangeStart, rangeEnd,
+                onlyAvailable, after.id(), afterDate, pageable)
+                : eventRepository.findPublishedEvents(text, categories, paid, rangeStart, rangeEnd, onlyAvailable,
+                sortName, after.id(), pageable);
+    }
+
+    /**
+     * Turns free text into a tsquery requiring every word as a prefix, e.g. {@code "Джаз, конц"} into
+     * {@code "джаз:* & конц:*"}. Anything but letters and digits is dropped, so the result is always valid.
+     */
+    static String toPrefixQuery(String text) {
+        Matcher matcher = WORD.matcher(text.toLowerCase(Locale.ROOT));
+        StringJoiner query = new StringJoiner(" & ");
+        while (matcher.find()) {
+            query.add(matcher.group() + ":*");
+        }
+        return query.toString();
+    }
+
+    private static boolean hasSearchVector(DatabaseMetaData metaData) throws SQLException {
+        try (ResultSet columns = metaData.getColumns(null, null, "events", "search_vector")) {
+            return columns.next();
+        }
+    }
+}
@@ -6,6 +6,7 @@ import ru.practicum.event.dto.EventShortDto;
 import ru.practicum.event.dto.NewEventDto;
 import ru.practicum.event.dto.UpdateEventAdminRequestDto;
 import ru.practicum.event.dto.UpdateEventUserRequestDto;
+import ru.practicum.pagination.CursorPage;
 
 import java.util.List;
 
@@ -13,7 +14,7 @@ public interface EventService {
 
     EventFullDto createEvent(Long userId, NewEventDto newEventDto);
 
-    List<EventShortDto> getEvents(Long userId, int from, int size);
+    CursorPage<EventShortDto> getEvents(Long userId, int from, int size, String after);
 
     EventFullDto getEventById(Long userId, Long eventId);
 
@@ -21,11 +22,12 @@ public interface EventService {
 
     EventFullDto updateEventByAdmin(Long eventId, UpdateEventAdminRequestDto updateEventAdminRequestDto);
 
-    List<EventFullDto> getEventsByAdmin(List<Long> users, List<String> states, List<Long> categories, String rangeStart,
-                                        String rangeEnd, int from, int size);
+    CursorPage<EventFullDto> getEventsByAdmin(List<Long> users, List<String> states, List<Long> categories,
+                                              String rangeStart, String rangeEnd, int from, int size, String after);
 
-    List<EventShortDto> getPublishedEvents(String text, List<Long> categories, Boolean paid, String rangeStart, String rangeEnd,
-                                           boolean onlyAvailable, String sort, int from, int size, HttpServletRequest request);
+    CursorPage<EventShortDto> getPublishedEvents(String text, List<Long> categories, Boolean paid, String rangeStart,
+                                                 String rangeEnd, boolean onlyAvailable, String sort, int from, int size,
+                                                 String after, HttpServletRequest request);
 
     EventFullDto getPublishedEventById(Long eventId, HttpServletRequest request);
 }
\ No newline at end of file
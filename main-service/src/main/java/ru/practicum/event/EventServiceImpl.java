@@ -3,7 +3,7 @@ package ru.practicum.event;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -13,11 +13,11 @@ import ru.practicum.StatDto;
 import ru.practicum.category.Category;
 import ru.practicum.category.CategoryRepository;
 import ru.practicum.event.dto.EventFullDto;
-import ru.practicum.event.dto.EventMapper;
 import ru.practicum.event.dto.EventShortDto;
 import ru.practicum.event.dto.NewEventDto;
 import ru.practicum.event.dto.UpdateEventAdminRequestDto;
 import ru.practicum.event.dto.UpdateEventUserRequestDto;
+import ru.practicum.event.index.EventTextIndex;
 import ru.practicum.exceptions.CategoryNotFoundException;
 import ru.practicum.exceptions.EventNotFoundException;
 import ru.practicum.exceptions.ForbiddenException;
@@ -25,20 +25,23 @@ import ru.practicum.exceptions.UserNotFoundException;
 import ru.practicum.exceptions.ValidationRequestException;
 import ru.practicum.location.Location;
 import ru.practicum.location.LocationRepository;
+import ru.practicum.pagination.Cursor;
+import ru.practicum.pagination.CursorPage;
+import ru.practicum.pagination.OffsetPageRequest;
 import ru.practicum.user.User;
 import ru.practicum.user.UserRepository;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
-import static ru.practicum.event.dto.EventMapper.countConfirmedRequests;
 import static ru.practicum.event.dto.EventMapper.toEvent;
 import static ru.practicum.event.dto.EventMapper.toEventFullDto;
+import static ru.practicum.event.dto.EventMapper.toEventShortDto;
 import static ru.practicum.location.dto.LocationMapper.toLocation;
 
 @Service
@@ -51,6 +54,9 @@ public class EventServiceImpl implements EventService {
     private final CategoryRepository categoryRepository;
     private final LocationRepository locationRepository;
     private final StatClient statClient;
+    private final EventViewService eventViewService;
+    private final EventSearch eventSearch;
+    private final EventTextIndex eventTextIndex;
 
     @Override
     @Transactional
@@ -74,19 +80,21 @@ public class EventServiceImpl implements EventService {
         event.setState(EventState.PENDING);
         event.setLocation(locationRepository.save(toLocation(newEventDto.getLocation())));
         event.setViews(0L);
-        return toEventFullDto(eventRepository.save(event));
+        return toEventFullDto(eventRepository.save(event), 0L);
     }
 
 
     @Override
-    public List<EventShortDto> getEvents(Long userId, int from, int size) {
+    public CursorPage<EventShortDto> getEvents(Long userId, int from, int size, String after) {
         log.info("Получение событий, добавленных пользователем: user_id = " + userId + ", from = " + from +
-                ", size = " + size);
+                ", size = " + size + ", after = " + after);
         userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException(userId));
-        List<Event> events = eventRepository.findByInitiatorId(userId, PageRequest.of(from / size, size));
-        return events.stream()
-                .map(EventMapper::toEventShortDto)
-                .collect(Collectors.toList());
+        List<EventShortView> events = eventRepository.findShortViewsByInitiatorId(userId, Cursor.decode(after).id(),
+                OffsetPageRequest.of(after == null ? from : 0, size));
+        Map<Long, Long> views = eventViewService.getViews(events);
+        return CursorPage.of(events.stream()
+                .map(event -> toEventShortDto(event, views.get(event.getId())))
+                .collect(Collectors.toList()), size, event -> Cursor.of(event.getId()));
     }
 
     @Override
@@ -94,8 +102,8 @@ public class EventServiceImpl implements EventService {
         log.info("Получение всей информации о событии, добавленнном конкретным пользователем: user_id = " + userId +
                 ", event_id = " + eventId);
         userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException(userId));
-        return toEventFullDto(eventRepository.findById(eventId)
-                .orElseThrow(() -> new EventNotFoundException(eventId)));
+        Event event = eventRepository.findById(eventId).orElseThrow(() -> new EventNotFoundException(eventId));
+        return toEventFullDto(event, eventViewService.getViews(event));
     }
 
     @Override
@@ -154,7 +162,7 @@ public class EventServiceImpl implements EventService {
             event.setRequestModeration(updateEventUserRequestDto.getRequestModeration());
         }
         if (updateEventUserRequestDto.getStateAction() == null) {
-            return toEventFullDto(eventRepository.save(event));
+            return saveAndIndex(event);
         }
         if (updateEventUserRequestDto.getStateAction() == StateUserAction.CANCEL_REVIEW) {
             event.setState(EventState.CANCELED);
@@ -162,7 +170,7 @@ public class EventServiceImpl implements EventService {
         if (updateEventUserRequestDto.getStateAction() == StateUserAction.SEND_TO_REVIEW) {
             event.setState(EventState.PENDING);
         }
-        return toEventFullDto(eventRepository.save(event));
+        return saveAndIndex(event);
     }
 
 
@@ -231,14 +239,16 @@ public class EventServiceImpl implements EventService {
         if (updateEventAdminRequestDto.getParticipantLimit() != null) {
             event.setParticipantLimit(updateEventAdminRequestDto.getParticipantLimit());
         }
-        return toEventFullDto(eventRepository.save(event));
+        return saveAndIndex(event);
     }
 
     @Override
-    public List<EventFullDto> getEventsByAdmin(List<Long> users, List<String> states, List<Long> categories,
-                                               String rangeStart, String rangeEnd, int from, int size) {
+    public CursorPage<EventFullDto> getEventsByAdmin(List<Long> users, List<String> states, List<Long> categories,
+                                                     String rangeStart, String rangeEnd, int from, int size,
+                                                     String after) {
         log.info("Поиск событий по параметрам: user_ids = " + users + ", states = " + states + ", categories = " + categories +
-                ", rangeStart = " + rangeStart + ", rangeEnd = " + rangeEnd);
+                ", rangeStart = " + rangeStart + ", rangeEnd = " + rangeEnd + ", from = " + from + ", size = " + size +
+                ", after = " + after);
         validateEventStates(states);
 
         users = (users == null || users.isEmpty()) ? List.of() : users;
@@ -247,73 +257,75 @@ public class EventServiceImpl implements EventService {
         LocalDateTime startDate = (rangeStart != null) ? LocalDateTime.parse(rangeStart, formatter) : LocalDateTime.of(2000, 1, 1, 0, 0);
         LocalDateTime endDate = (rangeEnd != null) ? LocalDateTime.parse(rangeEnd, formatter) : LocalDateTime.of(2099, 1, 1, 0, 0);
 
-        int page = 0;
-        int pageSize = 10;
-        PageRequest pageable = PageRequest.of(page, pageSize);
+        long afterId = Cursor.decode(after).id();
+        Pageable pageable = OffsetPageRequest.of(after == null ? from : 0, size);
 
         List<Event> events;
         if (users.isEmpty()) {
-            events = eventRepository.findAll(pageable).toList();
+            events = eventRepository.findByIdGreaterThanOrderById(afterId, pageable);
         } else {
-            events = eventRepository.findEvents(users, states, categories, startDate, endDate, pageable);
+            events = eventRepository.findEvents(users, states, categories, startDate, endDate, afterId, pageable);
         }
-        return events.stream()
-                .map(EventMapper::toEventFullDto)
-                .collect(Collectors.toList());
+        Map<Long, Long> views = eventViewService.getEventViews(events);
+        return CursorPage.of(events.stream()
+                .map(event -> toEventFullDto(event, views.get(event.getId())))
+                .collect(Collectors.toList()), size, event -> Cursor.of(event.getId()));
     }
 
     @Override
-    public List<EventShortDto> getPublishedEvents(String text, List<Long> categories, Boolean paid, String rangeStart,
-                                                  String rangeEnd, boolean onlyAvailable, String sort, int from, int size,
-                                                  HttpServletRequest request) {
+    public CursorPage<EventShortDto> getPublishedEvents(String text, List<Long> categories, Boolean paid,
+                                                        String rangeStart, String rangeEnd, boolean onlyAvailable,
+                                                        String sort, int from, int size, String after,
+                                                        HttpServletRequest request) {
         log.info("Поиск опубликованных событий по параметрам: text = " + text + ", categories = " + categories +
                 ", paid = " + paid + ", rangeStart = " + rangeStart + ", rangeEnd = " + rangeEnd +
                 ", onlyAvailable = " + onlyAvailable + ", sort = " + sort + ", from = " + from +
-                ", size = " + size);
+                ", size = " + size + ", after = " + after);
         log.info("Client ip: {}", request.getRemoteAddr());
         log.info("Endpoint path: {}", request.getRequestURI());
-        statClient.addHit(HitDto.builder()
-                .app("ewm-main-service")
-                .uri(request.getRequestURI())
-                .ip(request.getRemoteAddr())
-                .timestamp(LocalDateTime.now().format(formatter))
-                .build());
+        try {
+            statClient.addHit(HitDto.builder()
+                    .app("ewm-main-service")
+                    .uri(request.getRequestURI())
+                    .ip(request.getRemoteAddr())
+                    .timestamp(LocalDateTime.now().format(formatter))
+                    .build());
+        } catch (Exception e) {
+            log.warn("StatClient недоступен, но продолжаем выполнение. Ошибка: {}", e.getMessage());
+        }
         if (rangeStart != null && rangeEnd != null &&
                 LocalDateTime.parse(rangeStart, formatter).isAfter(LocalDateTime.parse(rangeEnd, formatter))) {
             throw new ValidationRequestException("Дата начинается после даты окончания.");
         }
-        List<Event> events = eventRepository.findPublishedEvents(
+        EventSort eventSort = toEventSort(sort);
+        Cursor cursor = Cursor.decode(after);
+        if (after != null && eventSort == EventSort.RELEVANCE) {
+            throw new ValidationRequestException("Сортировка RELEVANCE не поддерживает курсор, используйте from");
+        }
+        if (after != null && (eventSort == EventSort.EVENT_DATE) != (cursor.sortKey() != null)) {
+            throw new ValidationRequestException("Курсор получен для другой сортировки: " + after);
+        }
+        CursorPage<EventShortView> events = eventSearch.findPublished(
                 text,
                 categories,
                 paid,
                 rangeStart != null ? LocalDateTime.parse(rangeStart, formatter) : LocalDateTime.now(),
                 rangeEnd != null ? LocalDateTime.parse(rangeEnd, formatter) : null,
-                PageRequest.of(from / size, size));
-        List<EventShortDto> eventShortDtos = Collections.emptyList();
-        if (events != null) {
-            eventShortDtos = events.stream().map(EventMapper::toEventShortDto).collect(Collectors.toList());
-            if (onlyAvailable) {
-                eventShortDtos = events.stream().filter(event ->
-                        countConfirmedRequests(event.getRequests()) < event.getParticipantLimit()
-                ).map(EventMapper::toEventShortDto).collect(Collectors.toList());
-            }
-            if (sort != null) {
-                switch (EventSort.valueOf(sort)) {
-                    case EVENT_DATE:
-                        eventShortDtos.sort(Comparator.comparing(EventShortDto::getEventDate));
-                        break;
-                    case VIEWS:
-                        eventShortDtos.sort(Comparator.comparing(EventShortDto::getViews));
-                        break;
-                    default: throw new ValidationRequestException("Параметр sort недопустим");
-                }
-            }
+                onlyAvailable,
+                eventSort,
+                cursor,
+                OffsetPageRequest.of(after == null ? from : 0, size));
+        Map<Long, Long> views = eventViewService.getViews(events.content());
+        List<EventShortDto> eventShortDtos = events.content().stream()
+                .map(event -> toEventShortDto(event, views.get(event.getId())))
+                .collect(Collectors.toList());
+        if (eventSort == EventSort.VIEWS) {
+            eventShortDtos.sort(Comparator.comparing(EventShortDto::getViews));
         }
-        return eventShortDtos;
+        return new CursorPage<>(eventShortDtos, events.nextCursor());
     }
 
     @Override
-    @Transactional
     public EventFullDto getPublishedEventById(Long eventId, HttpServletRequest request) {
         log.info("Получение опубликованного события с ID: {}", eventId);
 
@@ -325,21 +337,6 @@ public class EventServiceImpl implements EventService {
         String clientIp = request.getRemoteAddr();
         log.info("IP клиента: {}", clientIp);
 
-        // Проверяем, увеличивался ли views в этом запросе
-        if (request.getSession().getAttribute("viewed_" + eventId) == null) {
-            log.info("Вызываем incrementViews() для события ID: {}", eventId);
-            eventRepository.incrementViews(eventId);
-
-            // Обновляем объект event из БД, чтобы получить новое значение views
-            event = eventRepository.findById(eventId).orElseThrow();
-            log.info("Обновлен views для события {}: {}", event.getId(), event.getViews());
-
-            // Помечаем, что для этого события уже было увеличение просмотров
-            request.getSession().setAttribute("viewed_" + eventId, true);
-        } else {
-            log.info("Просмотр уже засчитан в этом сеансе, повторное увеличение отменено.");
-        }
-
         try {
             log.info("Вызываем StatClient.addHit() для события ID: {}", eventId);
             statClient.addHit(HitDto.builder()
@@ -352,7 +349,24 @@ public class EventServiceImpl implements EventService {
             log.warn("StatClient недоступен, но продолжаем выполнение. Ошибка: {}", e.getMessage());
         }
 
-        return toEventFullDto(event);
+        return toEventFullDto(event, eventViewService.getViews(event));
+    }
+
+    private EventFullDto saveAndIndex(Event event) {
+        Event saved = eventRepository.save(event);
+        eventTextIndex.onEventChanged(saved);
+        return toEventFullDto(saved, eventViewService.getViews(saved));
+    }
+
+    private EventSort toEventSort(String sort) {
+        if (sort == null) {
+            return null;
+        }
+        try {
+            return EventSort.valueOf(sort);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationRequestException("Параметр sort недопустим");
+        }
     }
 
     private void validateEventStates(List<String> states) {
@@ -0,0 +1,36 @@
+package ru.practicum.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row of an event list: the fields of the short DTO with the category and initiator joined in and the confirmed
+ * requests counted by the database, so a page of events is read in one query without loading the entities.
+ */
+public interface EventShortView {
+
+    Long getId();
+
+    String getTitle();
+
+    String getAnnotation();
+
+    Long getCategoryId();
+
+    String getCategoryName();
+
+    LocalDateTime getEventDate();
+
+    Long getInitiatorId();
+
+    String getInitiatorName();
+
+    boolean isPaid();
+
+    int getParticipantLimit();
+
+    Long getViews();
+
+    long getConfirmedRequests();
+
+    LocalDateTime getPublishedOn();
+}
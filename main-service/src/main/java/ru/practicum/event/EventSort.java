@@ -2,5 +2,6 @@ package ru.practicum.event;
 
 public enum EventSort {
     EVENT_DATE,
-    VIEWS
+    VIEWS,
+    RELEVANCE
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+package ru.practicum.event;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.practicum.StatClient;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Unique views of events taken from the stats service. Counts are kept in a size-bounded near-cache for a short
+ * time, so a page of events costs at most one stats request for the events not seen recently and none when all of
+ * them are cached. Views are counted from the earliest publication among the requested events, since no event is
+ * viewed before it is published. If the stats service fails, the views stored with the events are used and nothing
+ * is cached. Lists and the event page read views from here alike, so an event shows the same count everywhere.
+ */
+@Service
+@Slf4j
+public class EventViewService {
+    private static final String EVENT_URI_PREFIX = "/events/";
+
+    private final StatClient statClient;
+    private final Cache<Long, Long> views;
+
+    public EventViewService(StatClient statClient,
+                            @Value("${views-cache.max-size:10000}") long maxSize,
+                            @Value("${views-cache.ttl:30s}") Duration ttl) {
+        this.statClient = statClient;
+        this.views = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public Map<Long, Long> getViews(List<? extends EventShortView> events) {
+        return getViews(events, EventShortView::getId, EventShortView::getPublishedOn, EventShortView::getViews);
+    }
+
+    public Map<Long, Long> getEventViews(List<Event> events) {
+        return getViews(events, Event::getId, Event::getPublishedOn, Event::getViews);
+    }
+
+    public long getViews(Event event) {
+        return getEventViews(List.of(event)).get(event.getId());
+    }
+
+    private <T> Map<Long, Long> getViews(List<? extends T> events, Function<T, Long> id,
+                                         Function<T, LocalDateTime> publishedOn, Function<T, Long> storedViews) {
+        List<Long> ids = events.stream().map(id).toList();
+        try {
+            return views.getAll(ids, missing -> loadViews(missing, events.stream()
+                    .filter(event -> missing.contains(id.apply(event)))
+                    .map(publishedOn)
+                    .filter(Objects::nonNull)
+                    .min(Comparator.naturalOrder())
+                    .orElse(null)));
+        } catch (RuntimeException e) {
+            log.warn("Сервис статистики недоступен, просмотры берутся из событий: {}", e.getMessage());
+            Map<Long, Long> stored = new HashMap<>(views.getAllPresent(ids));
+            for (T event : events) {
+                Long viewed = storedViews.apply(event);
+                stored.putIfAbsent(id.apply(event), viewed != null ? viewed : 0L);
+            }
+            return stored;
+        }
+    }
+
+    private Map<Long, Long> loadViews(Set<? extends Long> ids, LocalDateTime start) {
+        Map<Long, Long> loaded = new HashMap<>();
+        if (start == null) {
+            for (Long id : ids) {
+                loaded.put(id, 0L);
+            }
+            return loaded;
+        }
+        List<String> uris = ids.stream().map(id -> EVENT_URI_PREFIX + id).toList();
+        Map<String, Long> hits = statClient.getHits(uris, start, true);
+        for (Long id : ids) {
+            loaded.put(id, hits.getOrDefault(EVENT_URI_PREFIX + id, 0L));
+        }
+        return loaded;
+    }
+}
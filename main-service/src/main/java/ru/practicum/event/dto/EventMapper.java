@@ -1,13 +1,13 @@
 package ru.practicum.event.dto;
 
 import lombok.NoArgsConstructor;
+import ru.practicum.category.dto.CategoryDto;
 import ru.practicum.event.Event;
-import ru.practicum.request.Request;
-import ru.practicum.request.RequestStatus;
+import ru.practicum.event.EventShortView;
+import ru.practicum.user.dto.UserShortDto;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 
 import static ru.practicum.category.dto.CategoryMapper.toCategoryDto;
 import static ru.practicum.location.dto.LocationMapper.toLocation;
@@ -31,7 +31,7 @@ public class EventMapper {
                 .build();
     }
 
-    public static EventFullDto toEventFullDto(Event event) {
+    public static EventFullDto toEventFullDto(Event event, Long views) {
         return EventFullDto.builder()
                 .id(event.getId())
                 .title(event.getTitle())
@@ -43,32 +43,44 @@ public class EventMapper {
                 .paid(event.isPaid())
                 .participantLimit(event.getParticipantLimit())
                 .requestModeration(event.isRequestModeration())
-                .confirmedRequests(countConfirmedRequests(event.getRequests()))
+                .confirmedRequests(event.getConfirmedRequests())
                 .createdOn(event.getCreatedOn().format(formatter))
                 .publishedOn(event.getPublishedOn() != null ? event.getPublishedOn().format(formatter) : null)
                 .initiator(toUserShortDto(event.getInitiator()))
                 .state(event.getState().toString())
-                .views(event.getViews())
+                .views(views)
                 .build();
     }
 
     public static EventShortDto toEventShortDto(Event event) {
+        return toEventShortDto(event, event.getViews());
+    }
+
+    public static EventShortDto toEventShortDto(Event event, Long views) {
         return EventShortDto.builder()
                 .id(event.getId())
                 .title(event.getTitle())
                 .annotation(event.getAnnotation())
                 .category(toCategoryDto(event.getCategory()))
                 .eventDate(event.getEventDate().format(formatter))
-                .confirmedRequests(countConfirmedRequests(event.getRequests()))
+                .confirmedRequests(event.getConfirmedRequests())
                 .initiator(toUserShortDto(event.getInitiator()))
                 .paid(event.isPaid())
-                .views(event.getViews())
+                .views(views)
                 .build();
     }
 
-    public static long countConfirmedRequests(List<Request> requests) {
-        return requests != null
-                ? requests.stream().filter(r -> r.getStatus() == RequestStatus.CONFIRMED).count()
-                : 0;
+    public static EventShortDto toEventShortDto(EventShortView view, Long views) {
+        return EventShortDto.builder()
+                .id(view.getId())
+                .title(view.getTitle())
+                .annotation(view.getAnnotation())
+                .category(new CategoryDto(view.getCategoryId(), view.getCategoryName()))
+                .eventDate(view.getEventDate().format(formatter))
+                .confirmedRequests(view.getConfirmedRequests())
+                .initiator(new UserShortDto(view.getInitiatorId(), view.getInitiatorName()))
+                .paid(view.isPaid())
+                .views(views)
+                .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,307 @@
+package ru.practicum.event.index;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.event.Event;
+import ru.practicum.event.EventRepository;
+import ru.practicum.event.EventShortView;
+import ru.practicum.event.EventSort;
+import ru.practicum.event.EventState;
+import ru.practicum.pagination.Cursor;
+import ru.practicum.pagination.CursorPage;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Serves substring search over published events from a {@link TrigramIndex}. The index is built at startup and
+ * rebuilt once too many of its entries are dead, while searches keep going to the current one; the changes made to
+ * events during a build are replayed onto the new index before it replaces the old one. Filtering and paging happen
+ * on the index, and the database is only asked for the events of the page and, for texts longer than a trigram, to
+ * confirm that a candidate really contains the text.
+ */
+@Service
+@Slf4j
+public class EventTextIndex {
+    private static final Comparator<TrigramIndex.Match> BY_ID = Comparator.comparingLong(TrigramIndex.Match::eventId);
+    private static final Comparator<TrigramIndex.Match> BY_EVENT_DATE =
+            Comparator.comparingLong(TrigramIndex.Match::eventDate).thenComparing(BY_ID);
+
+    private final EventRepository eventRepository;
+    private final boolean enabled;
+    private final int buildBatchSize;
+    private final int verifyBatchSize;
+    private final double maxDeadRatio;
+    private final Timer rebuildTimer;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean building = new AtomicBoolean();
+    private TrigramIndex index;
+    private List<IndexedEvent> changedDuringBuild;
+    private List<Long> removedDuringBuild;
+
+    public EventTextIndex(EventRepository eventRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${events.text-index.enabled:false}") boolean enabled,
+                          @Value("${events.text-index.build-batch-size:1000}") int buildBatchSize,
+                          @Value("${events.text-index.verify-batch-size:200}") int verifyBatchSize,
+                          @Value("${events.text-index.max-dead-ratio:0.5}") double maxDeadRatio) {
+        this.eventRepository = eventRepository;
+        this.enabled = enabled;
+        this.buildBatchSize = buildBatchSize;
+        this.verifyBatchSize = verifyBatchSize;
+        this.maxDeadRatio = maxDeadRatio;
+        this.rebuildTimer = Timer.builder("events.text-index.rebuild")
+                .description("Time to build the trigram index of published events")
+                .register(meterRegistry);
+        gauge(meterRegistry, "events.text-index.memory", "Estimated heap taken by the trigram index, bytes",
+                TrigramIndex::getEstimatedBytes);
+        gauge(meterRegistry, "events.text-index.postings", "Size of the compressed postings, bytes",
+                TrigramIndex::getPostingBytes);
+        gauge(meterRegistry, "events.text-index.events", "Published events in the trigram index",
+                TrigramIndex::getEventCount);
+        gauge(meterRegistry, "events.text-index.dead", "Stale entries left by changed events until the next rebuild",
+                TrigramIndex::getDeadCount);
+        gauge(meterRegistry, "events.text-index.trigrams", "Distinct trigrams in the index",
+                TrigramIndex::getTrigramCount);
+    }
+
+    /**
+     * Whether the search can be answered from the index: it is built and the text has at least one trigram. Free
+     * places change with every request, so searches for available events only still go to the database.
+     */
+    public boolean canSearch(String text, boolean onlyAvailable, EventSort sort) {
+        return text != null && text.length() >= TrigramIndex.GRAM && !onlyAvailable && sort != EventSort.RELEVANCE
+                && read(Objects::nonNull);
+    }
+
+    /**
+     * Finds a page of published events. The next cursor is taken from the last event the index matched for the
+     * page, not from the rows read back, so an event dropped because the index is behind the database does not end
+     * the list early.
+     */
+    public CursorPage<EventShortView> findPublished(String text, List<Long> categories, Boolean paid,
+                                                    LocalDateTime rangeStart, LocalDateTime rangeEnd,
+                                                    EventSort sort, Cursor after, Pageable pageable) {
+        String query = text.toLowerCase(Locale.ROOT);
+        Comparator<TrigramIndex.Match> order = sort == EventSort.EVENT_DATE ? BY_EVENT_DATE : BY_ID;
+        TrigramIndex.Match last = new TrigramIndex.Match(after.id(),
+                after.sortKey() != null ? after.sortKey().toEpochSecond(ZoneOffset.UTC) : Long.MIN_VALUE);
+        List<TrigramIndex.Match> matches = read(index -> index.search(query, categories, paid, rangeStart, rangeEnd))
+                .stream()
+                .filter(match -> order.compare(match, last) > 0)
+                .sorted(order)
+                .toList();
+        List<Long> ids = matches.stream().map(TrigramIndex.Match::eventId).toList();
+        List<Long> page = query.length() == TrigramIndex.GRAM
+                ? ids.subList(Math.min((int) pageable.getOffset(), ids.size()),
+                Math.min((int) pageable.getOffset() + pageable.getPageSize(), ids.size()))
+                : confirmedPage(ids, query, (int) pageable.getOffset(), pageable.getPageSize());
+        if (page.isEmpty()) {
+            return new CursorPage<>(List.of(), null);
+        }
+        Map<Long, EventShortView> views = eventRepository.findPublishedShortViewsByIdIn(page).stream()
+                .collect(Collectors.toMap(EventShortView::getId, view -> view));
+        List<EventShortView> events = page.stream()
+                .map(views::get)
+                .filter(Objects::nonNull)
+                .toList();
+        String nextCursor = page.size() >= pageable.getPageSize()
+                ? cursorAt(matches, page.get(page.size() - 1), sort).encode()
+                : null;
+        return new CursorPage<>(events, nextCursor);
+    }
+
+    /**
+     * Updates the index after the transaction changing the event commits: a published event is indexed anew, any
+     * other one is removed.
+     */
+    public void onEventChanged(Event event) {
+        if (!enabled) {
+            return;
+        }
+        Long eventId = event.getId();
+        IndexedEvent indexed = event.getState() == EventState.PUBLISHED
+                ? new IndexedEvent(eventId, event.getTitle(), event.getAnnotation(), event.getDescription(),
+                event.getCategory() != null ? event.getCategory().getId() : null, event.isPaid(),
+                event.getEventDate())
+                : null;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(eventId, indexed);
+                }
+            });
+        } else {
+            apply(eventId, indexed);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildAtStartup() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${events.text-index.compaction-check-interval:PT1M}")
+    public void compact() {
+        if (enabled && read(index -> index != null
+                && index.getDeadCount() > maxDeadRatio * Math.max(index.getEventCount(), buildBatchSize))) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Builds a new index from the published events in the database and swaps it in. Does nothing if a build is
+     * already running.
+     */
+    public void rebuild() {
+        if (!building.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            write(() -> {
+                changedDuringBuild = new ArrayList<>();
+                removedDuringBuild = new ArrayList<>();
+            });
+            TrigramIndex fresh = new TrigramIndex();
+            long afterId = 0;
+            List<IndexedEvent> batch;
+            do {
+                batch = eventRepository.findIndexedEvents(afterId, PageRequest.of(0, buildBatchSize));
+                batch.forEach(fresh::put);
+                if (!batch.isEmpty()) {
+                    afterId = batch.get(batch.size() - 1).id();
+                }
+            } while (batch.size() == buildBatchSize);
+            fresh.trim();
+            write(() -> {
+                removedDuringBuild.forEach(fresh::remove);
+                changedDuringBuild.forEach(fresh::put);
+                index = fresh;
+            });
+            long elapsed = System.nanoTime() - start;
+            rebuildTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            log.info("Индекс триграмм построен за {} мс: событий {}, триграмм {}, около {} байт",
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), fresh.getEventCount(), fresh.getTrigramCount(),
+                    fresh.getEstimatedBytes());
+        } catch (RuntimeException e) {
+            log.error("Не удалось построить индекс триграмм", e);
+        } finally {
+            write(() -> {
+                changedDuringBuild = null;
+                removedDuringBuild = null;
+            });
+            building.set(false);
+        }
+    }
+
+    private static Cursor cursorAt(List<TrigramIndex.Match> matches, long eventId, EventSort sort) {
+        if (sort != EventSort.EVENT_DATE) {
+            return Cursor.of(eventId);
+        }
+        return matches.stream()
+                .filter(match -> match.eventId() == eventId)
+                .map(match -> new Cursor(eventId, LocalDateTime.ofEpochSecond(match.eventDate(), 0, ZoneOffset.UTC)))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private List<Long> confirmedPage(List<Long> ids, String query, int offset, int size) {
+        String pattern = "%" + query.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+        List<Long> page = new ArrayList<>(size);
+        int skipped = 0;
+        for (int from = 0; from < ids.size() && page.size() < size; from += verifyBatchSize) {
+            List<Long> batch = ids.subList(from, Math.min(from + verifyBatchSize, ids.size()));
+            Set<Long> confirmed = new HashSet<>(eventRepository.findIdsContaining(batch, pattern));
+            for (Long id : batch) {
+                if (page.size() == size) {
+                    break;
+                }
+                if (!confirmed.contains(id)) {
+                    continue;
+                }
+                if (skipped < offset) {
+                    skipped++;
+                } else {
+                    page.add(id);
+                }
+            }
+        }
+        return page;
+    }
+
+    private void apply(Long eventId, IndexedEvent indexed) {
+        write(() -> {
+            if (indexed != null) {
+                if (index != null) {
+                    index.put(indexed);
+                }
+                if (changedDuringBuild != null) {
+                    changedDuringBuild.add(indexed);
+                }
+            } else {
+                if (index != null) {
+                    index.remove(eventId);
+                }
+                if (changedDuringBuild != null) {
+                    changedDuringBuild.removeIf(changed -> changed.id().equals(eventId));
+                    removedDuringBuild.add(eventId);
+                }
+            }
+        });
+    }
+
+    private <T> T read(Function<TrigramIndex, T> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.apply(index);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void write(Runnable writer) {
+        lock.writeLock().lock();
+        try {
+            writer.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void gauge(MeterRegistry meterRegistry, String name, String description,
+                       ToLongFunction<TrigramIndex> value) {
+        Gauge.builder(name, this, service -> service.read(index -> index != null ? value.applyAsLong(index) : 0L))
+                .description(description)
+                .register(meterRegistry);
+    }
+}
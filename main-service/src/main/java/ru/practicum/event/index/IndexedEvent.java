@@ -0,0 +1,10 @@
+package ru.practicum.event.index;
+
+import java.time.LocalDateTime;
+
+/**
+ * What {@link TrigramIndex} keeps of a published event: the searched text and the fields of the public filters.
+ */
+public record IndexedEvent(Long id, String title, String annotation, String description, Long categoryId,
+                           boolean paid, LocalDateTime eventDate) {
+}
@@ -0,0 +1,97 @@
+package ru.practicum.event.index;
+
+import java.util.Arrays;
+
+/**
+ * Ascending document ordinals of one trigram, stored as variable-length deltas: a frequent trigram costs about a byte
+ * per document. Ordinals can only be appended in increasing order, which is how {@link TrigramIndex} assigns them.
+ */
+final class PostingList {
+    private static final int[] EMPTY = new int[0];
+
+    private byte[] data = new byte[4];
+    private int length;
+    private int size;
+    private int last = -1;
+
+    void add(int ordinal) {
+        if (ordinal <= last) {
+            throw new IllegalArgumentException("Порядковые номера должны возрастать: " + ordinal + " после " + last);
+        }
+        if (length + 5 > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + 5));
+        }
+        int delta = ordinal - last;
+        while ((delta & ~0x7F) != 0) {
+            data[length++] = (byte) ((delta & 0x7F) | 0x80);
+            delta >>>= 7;
+        }
+        data[length++] = (byte) delta;
+        last = ordinal;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int sizeInBytes() {
+        return data.length;
+    }
+
+    void trim() {
+        data = Arrays.copyOf(data, length);
+    }
+
+    int[] decode() {
+        int[] ordinals = new int[size];
+        int position = 0;
+        int ordinal = -1;
+        for (int i = 0; i < size; i++) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            ordinal += delta;
+            ordinals[i] = ordinal;
+        }
+        return ordinals;
+    }
+
+    /**
+     * Keeps the ordinals of {@code candidates}, which must be ascending, that are also in this list.
+     */
+    int[] retain(int[] candidates) {
+        if (candidates.length == 0) {
+            return EMPTY;
+        }
+        int[] kept = new int[Math.min(candidates.length, size)];
+        int count = 0;
+        int next = 0;
+        int position = 0;
+        int ordinal = -1;
+        for (int i = 0; i < size && next < candidates.length; i++) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            ordinal += delta;
+            while (next < candidates.length && candidates[next] < ordinal) {
+                next++;
+            }
+            if (next < candidates.length && candidates[next] == ordinal) {
+                kept[count++] = ordinal;
+                next++;
+            }
+        }
+        return count == kept.length ? kept : Arrays.copyOf(kept, count);
+    }
+}
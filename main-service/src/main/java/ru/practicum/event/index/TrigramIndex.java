@@ -0,0 +1,175 @@
+package ru.practicum.event.index;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index from the lower-case character trigrams of the title, annotation and description of events to the
+ * events containing them, together with the category, paid flag and date of every event, so a search is answered
+ * without the database. An event is found by a text when it has all the trigrams of the text; for a text of three
+ * characters that is exact, longer texts may also match events that have the trigrams in other places.
+ * <p>
+ * Events are numbered in the order they are added and postings are ascending numbers, so they stay append-only
+ * and delta-encoded. A changed event gets a new number and the old one is left behind as a dead entry until the
+ * index is rebuilt. Not thread-safe.
+ */
+public class TrigramIndex {
+    public static final int GRAM = 3;
+    private static final long[] NO_GRAMS = new long[0];
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAP_ENTRY_BYTES = 64;
+
+    private final Map<Long, PostingList> postings = new HashMap<>();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private long[] eventIds = new long[INITIAL_CAPACITY];
+    private long[] categoryIds = new long[INITIAL_CAPACITY];
+    private long[] eventDates = new long[INITIAL_CAPACITY];
+    private final BitSet paid = new BitSet();
+    private int nextOrdinal;
+
+    public void put(IndexedEvent event) {
+        remove(event.id());
+        int ordinal = nextOrdinal++;
+        if (ordinal == eventIds.length) {
+            int capacity = eventIds.length * 2;
+            eventIds = Arrays.copyOf(eventIds, capacity);
+            categoryIds = Arrays.copyOf(categoryIds, capacity);
+            eventDates = Arrays.copyOf(eventDates, capacity);
+        }
+        eventIds[ordinal] = event.id();
+        categoryIds[ordinal] = event.categoryId() != null ? event.categoryId() : 0;
+        eventDates[ordinal] = event.eventDate().toEpochSecond(ZoneOffset.UTC);
+        paid.set(ordinal, event.paid());
+        ordinals.put(event.id(), ordinal);
+        for (long gram : grams(event.title(), event.annotation(), event.description())) {
+            postings.computeIfAbsent(gram, key -> new PostingList()).add(ordinal);
+        }
+    }
+
+    public void remove(Long eventId) {
+        Integer ordinal = ordinals.remove(eventId);
+        if (ordinal != null) {
+            eventIds[ordinal] = 0;
+        }
+    }
+
+    /**
+     * Returns the events that have every trigram of the text and pass the filters, in no particular order.
+     * The text must be lower case and at least {@link #GRAM} characters long.
+     */
+    public List<Match> search(String text, Collection<Long> categories, Boolean paid,
+                              LocalDateTime rangeStart, LocalDateTime rangeEnd) {
+        long[] grams = grams(text);
+        PostingList[] lists = new PostingList[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            lists[i] = postings.get(grams[i]);
+            if (lists[i] == null) {
+                return List.of();
+            }
+        }
+        Arrays.sort(lists, Comparator.comparingInt(PostingList::size));
+        int[] candidates = lists[0].decode();
+        for (int i = 1; i < lists.length && candidates.length > 0; i++) {
+            candidates = lists[i].retain(candidates);
+        }
+        Set<Long> categorySet = categories != null ? new HashSet<>(categories) : null;
+        long from = rangeStart.toEpochSecond(ZoneOffset.UTC);
+        long to = rangeEnd != null ? rangeEnd.toEpochSecond(ZoneOffset.UTC) : Long.MAX_VALUE;
+        List<Match> matches = new ArrayList<>();
+        for (int ordinal : candidates) {
+            long eventId = eventIds[ordinal];
+            if (eventId == 0
+                    || categorySet != null && !categorySet.contains(categoryIds[ordinal])
+                    || paid != null && this.paid.get(ordinal) != paid
+                    || eventDates[ordinal] < from || eventDates[ordinal] >= to) {
+                continue;
+            }
+            matches.add(new Match(eventId, eventDates[ordinal]));
+        }
+        return matches;
+    }
+
+    /**
+     * Releases the spare capacity of the postings, once the bulk of the events is added.
+     */
+    public void trim() {
+        postings.values().forEach(PostingList::trim);
+    }
+
+    public int getEventCount() {
+        return ordinals.size();
+    }
+
+    /**
+     * Entries of events that were changed or removed since the index was built.
+     */
+    public int getDeadCount() {
+        return nextOrdinal - ordinals.size();
+    }
+
+    public int getTrigramCount() {
+        return postings.size();
+    }
+
+    public long getPostingBytes() {
+        long bytes = 0;
+        for (PostingList list : postings.values()) {
+            bytes += list.sizeInBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Approximate heap taken by the index: the postings, the per-event arrays and the hash map entries.
+     */
+    public long getEstimatedBytes() {
+        return getPostingBytes()
+                + (long) postings.size() * (MAP_ENTRY_BYTES + 32)
+                + (long) ordinals.size() * MAP_ENTRY_BYTES
+                + 3L * Long.BYTES * eventIds.length
+                + paid.size() / Byte.SIZE;
+    }
+
+    static long[] grams(String... texts) {
+        long[] grams = NO_GRAMS;
+        int count = 0;
+        for (String text : texts) {
+            if (text == null || text.length() < GRAM) {
+                continue;
+            }
+            String lower = text.toLowerCase(Locale.ROOT);
+            grams = Arrays.copyOf(grams, count + lower.length() - GRAM + 1);
+            for (int i = 0; i + GRAM <= lower.length(); i++) {
+                grams[count++] = (long) lower.charAt(i) << 32 | (long) lower.charAt(i + 1) << 16 | lower.charAt(i + 2);
+            }
+        }
+        if (count == 0) {
+            return NO_GRAMS;
+        }
+        Arrays.sort(grams, 0, count);
+        int distinct = 1;
+        for (int i = 1; i < count; i++) {
+            if (grams[i] != grams[distinct - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    /**
+     * An event found by {@link #search}, with its date in epoch seconds for sorting.
+     */
+    public record Match(long eventId, long eventDate) {
+    }
+}
@@ -0,0 +1,46 @@
+package ru.practicum.pagination;
+
+import ru.practicum.exceptions.ValidationRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position after the last row of a page: its id and, for lists sorted by a date, that date. Clients get it as an
+ * opaque token and pass it back as {@code after}, and the next page is read with {@code WHERE (key, id) > cursor}
+ * on an index, so it costs the same however far into the list it is.
+ */
+public record Cursor(long id, LocalDateTime sortKey) {
+    public static final Cursor START = new Cursor(0, null);
+    private static final String SEPARATOR = ";";
+
+    public static Cursor of(long id) {
+        return new Cursor(id, null);
+    }
+
+    /**
+     * Reads a token made by {@link #encode}; no token means the start of the list.
+     */
+    public static Cursor decode(String token) {
+        if (token == null) {
+            return START;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8)
+                    .split(SEPARATOR, -1);
+            if (parts.length > 2) {
+                throw new IllegalArgumentException("Лишние части курсора");
+            }
+            return new Cursor(Long.parseLong(parts[0]), parts.length == 2 ? LocalDateTime.parse(parts[1]) : null);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ValidationRequestException("Некорректный курсор: " + token);
+        }
+    }
+
+    public String encode() {
+        String value = sortKey != null ? id + SEPARATOR + sortKey : Long.toString(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,30 @@
+package ru.practicum.pagination;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A page of a list with the cursor of the next one, which is sent in the {@value #NEXT_CURSOR_HEADER} header so
+ * the response body stays the plain list old clients expect. A page built by {@link #of} that is shorter than
+ * requested is the last one and has no next cursor.
+ */
+public record CursorPage<T>(List<T> content, String nextCursor) {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    public static <T> CursorPage<T> of(List<T> content, int size, Function<T, Cursor> cursor) {
+        String nextCursor = !content.isEmpty() && content.size() >= size
+                ? cursor.apply(content.get(content.size() - 1)).encode()
+                : null;
+        return new CursorPage<>(content, nextCursor);
+    }
+
+    public ResponseEntity<List<T>> toResponse() {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextCursor != null) {
+            response.header(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return response.body(content);
+    }
+}
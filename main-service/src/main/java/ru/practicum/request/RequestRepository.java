@@ -15,8 +15,6 @@ public interface RequestRepository extends JpaRepository<Request, Long> {
 
     List<Optional<Request>> findByRequesterId(Long userId);
 
-    Integer countByEventIdAndStatus(Long eventId, RequestStatus status);
-
     List<Optional<Request>> findByEventIn(List<Event> userEvents);
 
     @Modifying
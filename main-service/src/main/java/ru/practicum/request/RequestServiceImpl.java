@@ -52,13 +52,16 @@ public class RequestServiceImpl implements RequestService {
             log.info("Ошибка: Пользователь с ID = " + userId + " не может принять участие в неопубликованном мероприятии с ID = " + eventId);
             throw new ForbiddenException("Could not participate in non-published event.");
         }
-        if (event.getParticipantLimit() != 0 && participationRequestRepository.countByEventIdAndStatus(eventId, RequestStatus.CONFIRMED) >= event.getParticipantLimit()) {
+        if (event.getParticipantLimit() != 0 && event.getConfirmedRequests() >= event.getParticipantLimit()) {
             log.info("Ошибка: Пользователь с ID = " + userId + " не может участвовать в мероприятии с ID = " + eventId + ", с тех пор, как был достигнут лимит заявок на участие");
             throw new ForbiddenException("Достигнут лимит участников.");
         }
         RequestStatus status = RequestStatus.PENDING;
         if (event.getParticipantLimit() == 0 || !event.isRequestModeration()) {
             status = RequestStatus.CONFIRMED;
+            if (eventRepository.reserveConfirmedRequests(eventId, 1) == 0) {
+                throw new ForbiddenException("Достигнут лимит участников.");
+            }
         }
         Request newParticipationRequest = Request.builder()
                 .event(event)
@@ -75,6 +78,10 @@ public class RequestServiceImpl implements RequestService {
         log.info("Отмена вашего запроса на участие в мероприятии: user_id = " + userId + ", request_id = " + requestId);
         userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException(userId));
         Request requestToUpdate = participationRequestRepository.getReferenceById(requestId);
+        if (requestToUpdate.getStatus() == RequestStatus.CONFIRMED) {
+            eventRepository.releaseConfirmedRequests(requestToUpdate.getEvent().getId(), 1);
+            requestToUpdate = participationRequestRepository.getReferenceById(requestId);
+        }
         requestToUpdate.setStatus(RequestStatus.CANCELED);
         return toParticipationRequestDto(participationRequestRepository.save(requestToUpdate));
     }
@@ -125,8 +132,8 @@ public class RequestServiceImpl implements RequestService {
                     throw new ForbiddenException("Не требуется принимать запросы, поскольку лимит участников равен 0 или " +
                             "pre-moderation off");
                 }
-                Integer countParticipants = participationRequestRepository.countByEventIdAndStatus(event.getId(), RequestStatus.CONFIRMED);
-                if (countParticipants == limitParticipants) {
+                long countParticipants = event.getConfirmedRequests();
+                if (countParticipants >= limitParticipants) {
                     throw new ForbiddenException("Достигнут лимит участников");
                 }
                 for (Request request : requests) {
@@ -143,6 +150,10 @@ public class RequestServiceImpl implements RequestService {
                     }
                 }
                 participationRequestRepository.saveAll(requests);
+                long confirmed = eventRequestStatusUpdateResultDto.getConfirmedRequests().size();
+                if (confirmed > 0 && eventRepository.reserveConfirmedRequests(event.getId(), confirmed) == 0) {
+                    throw new ForbiddenException("Достигнут лимит участников");
+                }
                 if (countParticipants == limitParticipants) {
                     participationRequestRepository.updateRequestStatusByEventIdAndStatus(event,
                             RequestStatus.PENDING, RequestStatus.REJECTED);
@@ -6,5 +6,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import java.util.List;
 
 public interface UserRepository extends JpaRepository<User, Long> {
-    List<User> findByIdIn(List<Long> ids, Pageable pageable);
+    List<User> findByIdInAndIdGreaterThanOrderById(List<Long> ids, Long afterId, Pageable pageable);
+
+    List<User> findByIdGreaterThanOrderById(Long afterId, Pageable pageable);
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package ru.practicum.user;
 
+import ru.practicum.pagination.CursorPage;
 import ru.practicum.user.dto.NewUserRequestDto;
 import ru.practicum.user.dto.UserDto;
 
@@ -7,9 +8,9 @@ import java.util.List;
 
 public interface UserService {
 
-    List<UserDto> getUsers(List<Long> ids, int from, int size);
+    CursorPage<UserDto> getUsers(List<Long> ids, int from, int size, String after);
 
-    List<UserDto> getUsers(int from, int size);
+    CursorPage<UserDto> getUsers(int from, int size, String after);
 
     UserDto createUser(NewUserRequestDto newUserRequestDto);
 
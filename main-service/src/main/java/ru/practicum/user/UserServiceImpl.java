@@ -3,8 +3,11 @@ package ru.practicum.user;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import ru.practicum.pagination.Cursor;
+import ru.practicum.pagination.CursorPage;
+import ru.practicum.pagination.OffsetPageRequest;
 import ru.practicum.user.dto.NewUserRequestDto;
 import ru.practicum.user.dto.UserDto;
 
@@ -19,14 +22,21 @@ import static ru.practicum.user.dto.UserMapper.toUserDto;
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
 
-    public List<UserDto> getUsers(List<Long> ids, int from, int size) {
-        log.info("Получение списка пользователей с IDs: ids = " + ids + ", from = " + from + ", size = " + size);
-        return toUserDto(userRepository.findByIdIn(ids, PageRequest.of(from / size, size)));
+    public CursorPage<UserDto> getUsers(List<Long> ids, int from, int size, String after) {
+        log.info("Получение списка пользователей с IDs: ids = " + ids + ", from = " + from + ", size = " + size +
+                ", after = " + after);
+        Pageable pageable = OffsetPageRequest.of(after == null ? from : 0, size);
+        List<UserDto> users = toUserDto(userRepository.findByIdInAndIdGreaterThanOrderById(ids,
+                Cursor.decode(after).id(), pageable));
+        return CursorPage.of(users, size, user -> Cursor.of(user.getId()));
     }
 
-    public List<UserDto> getUsers(int from, int size) {
-        log.info("Получение списка всех пользователей: from = " + from + ", size = " + size);
-        return toUserDto(userRepository.findAll(PageRequest.of(from / size, size)));
+    public CursorPage<UserDto> getUsers(int from, int size, String after) {
+        log.info("Получение списка всех пользователей: from = " + from + ", size = " + size + ", after = " + after);
+        Pageable pageable = OffsetPageRequest.of(after == null ? from : 0, size);
+        List<UserDto> users = toUserDto(userRepository.findByIdGreaterThanOrderById(Cursor.decode(after).id(),
+                pageable));
+        return CursorPage.of(users, size, user -> Cursor.of(user.getId()));
     }
 
     @Transactional
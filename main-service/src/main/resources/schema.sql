@@ -36,12 +36,18 @@ CREATE TABLE IF NOT EXISTS events (
     initiator_id BIGINT,
     state VARCHAR(10) DEFAULT 'PENDING',
     views BIGINT DEFAULT 0,
+    confirmed_requests BIGINT DEFAULT 0 NOT NULL,
     CONSTRAINT pk_event PRIMARY KEY (id),
     CONSTRAINT fk_category FOREIGN KEY (category_id) REFERENCES categories(id),
     CONSTRAINT fk_location FOREIGN KEY (location_id) REFERENCES locations(id),
     CONSTRAINT fk_initiator FOREIGN KEY (initiator_id) REFERENCES users(id)
 );
 
+ALTER TABLE events ADD COLUMN IF NOT EXISTS confirmed_requests BIGINT DEFAULT 0 NOT NULL;
+
+CREATE INDEX IF NOT EXISTS ix_events_state_event_date_id ON events (state, event_date, id);
+CREATE INDEX IF NOT EXISTS ix_events_initiator_id ON events (initiator_id, id);
+
 CREATE TABLE IF NOT EXISTS compilations (
     id INTEGER GENERATED BY DEFAULT AS IDENTITY NOT NULL,
     pinned BOOLEAN,
@@ -50,6 +56,8 @@ CREATE TABLE IF NOT EXISTS compilations (
     CONSTRAINT uq_compilation_title UNIQUE (title)
 );
 
+CREATE INDEX IF NOT EXISTS ix_compilations_pinned_id ON compilations (pinned, id);
+
 CREATE TABLE IF NOT EXISTS event_compilation (
     event_id BIGINT NOT NULL CONSTRAINT EVENT_COMPILATION_FK REFERENCES events,
     compilation_id BIGINT NOT NULL CONSTRAINT EVENT_COMPILATION_FK_1 REFERENCES compilations
@@ -66,6 +74,8 @@ CREATE TABLE IF NOT EXISTS requests (
     CONSTRAINT fk_requester FOREIGN KEY (requester_id) REFERENCES users(id)
 );
 
+CREATE INDEX IF NOT EXISTS ix_requests_event_status ON requests (event_id, status);
+
 CREATE TABLE IF NOT EXISTS comments (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
     created_on TIMESTAMP WITHOUT TIME ZONE,
@@ -75,4 +85,6 @@ CREATE TABLE IF NOT EXISTS comments (
     published_on TIMESTAMP WITHOUT TIME ZONE,
     author_id BIGINT CONSTRAINT fk_author REFERENCES users,
     event_id BIGINT CONSTRAINT fk_event_1 REFERENCES events
-);
\ No newline at end of file
+);
+
+CREATE INDEX IF NOT EXISTS ix_comments_event_id ON comments (event_id, id);
\ No newline at end of file
@@ -0,0 +1,146 @@
+package ru.practicum;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletRequest;
+import ru.practicum.category.Category;
+import ru.practicum.compilation.Compilation;
+import ru.practicum.compilation.CompilationServiceImpl;
+import ru.practicum.event.Event;
+import ru.practicum.event.EventSearch;
+import ru.practicum.event.EventServiceImpl;
+import ru.practicum.event.EventShortView;
+import ru.practicum.event.EventState;
+import ru.practicum.event.EventViewService;
+import ru.practicum.event.index.EventTextIndex;
+import ru.practicum.location.Location;
+import ru.practicum.pagination.CursorPage;
+import ru.practicum.user.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+/**
+ * Counts the statements prepared for a page of each event list, so a list that starts loading entities one by one
+ * fails here instead of in production.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({EventServiceImpl.class, EventSearch.class, CompilationServiceImpl.class})
+class ListQueryCountTest {
+    private static final int EVENTS = 12;
+    private static final int COMPILATIONS = 6;
+    private static final int PAGE_SIZE = 5;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EventServiceImpl eventService;
+
+    @Autowired
+    private CompilationServiceImpl compilationService;
+
+    @MockBean
+    private StatClient statClient;
+
+    @MockBean
+    private EventViewService eventViewService;
+
+    @MockBean
+    private EventTextIndex eventTextIndex;
+
+    private Statistics statistics;
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        User user = entityManager.persist(User.builder().name("Организатор").email("owner@example.com").build());
+        Category[] categories = {
+                entityManager.persist(Category.builder().name("Концерты").build()),
+                entityManager.persist(Category.builder().name("Выставки").build())
+        };
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < EVENTS; i++) {
+            events.add(entityManager.persist(Event.builder()
+                    .title("Событие " + i)
+                    .annotation("Аннотация события " + i)
+                    .description("Описание события " + i)
+                    .category(categories[i % categories.length])
+                    .location(entityManager.persist(Location.builder().lat(55.75f).lon(37.61f).build()))
+                    .eventDate(LocalDateTime.now().plusDays(EVENTS - i))
+                    .createdOn(LocalDateTime.now().minusDays(2))
+                    .publishedOn(LocalDateTime.now().minusDays(1))
+                    .initiator(user)
+                    .state(EventState.PUBLISHED)
+                    .views(0L)
+                    .build()));
+        }
+        for (int i = 0; i < COMPILATIONS; i++) {
+            entityManager.persist(Compilation.builder()
+                    .title("Подборка " + i)
+                    .pinned(i % 2 == 0)
+                    .events(new ArrayList<>(events.subList(i, i + PAGE_SIZE)))
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        userId = user.getId();
+        when(eventViewService.getViews(anyList())).thenAnswer(invocation -> invocation
+                .<List<EventShortView>>getArgument(0).stream()
+                .collect(Collectors.toMap(EventShortView::getId, event -> 0L)));
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void userEventsTakeTwoQueriesPerPage() {
+        assertPagesTakeQueries(2, after -> eventService.getEvents(userId, 0, PAGE_SIZE, after));
+    }
+
+    @Test
+    void publishedEventsTakeOneQueryPerPage() {
+        for (String sort : new String[]{null, "EVENT_DATE"}) {
+            assertPagesTakeQueries(1, after -> eventService.getPublishedEvents(null, null, null, null, null, false,
+                    sort, 0, PAGE_SIZE, after, new MockHttpServletRequest("GET", "/events")));
+        }
+    }
+
+    @Test
+    void compilationsTakeTwoQueriesPerPage() {
+        assertPagesTakeQueries(2, after -> compilationService.getCompilations(null, 0, PAGE_SIZE, after));
+    }
+
+    private <T> void assertPagesTakeQueries(long queries, Function<String, CursorPage<T>> page) {
+        String after = null;
+        int pages = 0;
+        do {
+            statistics.clear();
+            CursorPage<T> result = page.apply(after);
+            entityManager.clear();
+            assertThat(statistics.getPrepareStatementCount())
+                    .as("statements of page %d", pages)
+                    .isEqualTo(queries);
+            assertThat(result.content()).isNotEmpty();
+            after = result.nextCursor();
+            pages++;
+        } while (after != null);
+        assertThat(pages).isGreaterThan(1);
+    }
+}
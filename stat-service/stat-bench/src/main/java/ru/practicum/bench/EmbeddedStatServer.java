@@ -0,0 +1,69 @@
+package ru.practicum.bench;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.HitDto;
+import ru.practicum.StatServer;
+import ru.practicum.service.HitCounterEngine;
+import ru.practicum.service.HitSketchService;
+import ru.practicum.service.StatService;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stat server application context without the web layer, backed by its own in-memory H2 database. The stats cache
+ * is off so queries measure aggregation, and write-behind is off so every call reaches the database.
+ */
+public class EmbeddedStatServer implements AutoCloseable {
+    private static final int SEED_BATCH_SIZE = 10_000;
+
+    private final ConfigurableApplicationContext context;
+
+    public EmbeddedStatServer(Map<String, Object> properties) {
+        Map<String, Object> defaults = new HashMap<>();
+        defaults.put("spring.main.banner-mode", "off");
+        defaults.put("spring.datasource.generate-unique-name", true);
+        defaults.put("stat-server.cache.enabled", false);
+        defaults.put("stat-server.write-behind.enabled", false);
+        defaults.put("logging.level.root", "WARN");
+        defaults.put("logging.level.ru.practicum", "WARN");
+        defaults.put("logging.level.org.springframework.transaction.interceptor", "WARN");
+        defaults.put("logging.level.org.springframework.orm.jpa.JpaTransactionManager", "WARN");
+        defaults.putAll(properties);
+        this.context = new SpringApplicationBuilder(StatServer.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .properties(defaults)
+                .run();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public StatService getStatService() {
+        return context.getBean(StatService.class);
+    }
+
+    /**
+     * Stores the given number of generated hits spread over [from, to) and flushes buffered counters and sketches.
+     */
+    public void seed(HitGenerator generator, LocalDateTime from, LocalDateTime to, int count) {
+        StatService statService = getStatService();
+        List<HitDto> hits = generator.between(from, to, count);
+        for (int i = 0; i < hits.size(); i += SEED_BATCH_SIZE) {
+            statService.addHits(hits.subList(i, Math.min(hits.size(), i + SEED_BATCH_SIZE)));
+        }
+        context.getBeanProvider(HitCounterEngine.class).ifAvailable(HitCounterEngine::flush);
+        context.getBeanProvider(HitSketchService.class).ifAvailable(HitSketchService::flush);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,87 @@
+package ru.practicum.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.StatDto;
+import ru.practicum.model.Stat;
+import ru.practicum.repository.StatRepository;
+import ru.practicum.service.StatService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The original GROUP BY queries over raw hits, as the baseline for {@link StatsQueryBenchmark} on the same data.
+ * After the measurements the unique counts served from the sketches are compared with the exact ones and the
+ * relative error is printed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExactStatsBenchmark {
+    private static final int URIS = 1000;
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private EmbeddedStatServer server;
+    private StatRepository statRepository;
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+    @Setup(Level.Trial)
+    public void seed() {
+        server = new EmbeddedStatServer(Map.of("stat-server.storage", "jdbc"));
+        statRepository = server.getBean(StatRepository.class);
+        end = LocalDateTime.now().withNano(0).minusHours(1);
+        start = end.minusDays(7);
+        server.seed(new HitGenerator(1, URIS, rows / 10), start, end, rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void reportSketchError() {
+        StatService statService = server.getStatService();
+        Map<String, Long> exact = statRepository.findAllUrisWithUniqueIp(start, end).stream()
+                .collect(Collectors.toMap(Stat::getUri, Stat::getHits));
+        Map<String, Integer> estimated = statService.getStats(start, end, null, true).stream()
+                .collect(Collectors.toMap(StatDto::getUri, StatDto::getHits));
+        double maxError = 0;
+        double sumError = 0;
+        for (Map.Entry<String, Long> entry : exact.entrySet()) {
+            double error = Math.abs(estimated.getOrDefault(entry.getKey(), 0) - entry.getValue())
+                    / (double) entry.getValue();
+            maxError = Math.max(maxError, error);
+            sumError += error;
+        }
+        System.out.printf("rows=%d: unique counts of %d uris, relative error mean %.4f, max %.4f%n", rows,
+                exact.size(), exact.isEmpty() ? 0 : sumError / exact.size(), maxError);
+        server.close();
+    }
+
+    @Benchmark
+    public List<Stat> exactHits() {
+        return statRepository.findAllUris(start, end);
+    }
+
+    @Benchmark
+    public List<Stat> exactUniqueHits() {
+        return statRepository.findAllUrisWithUniqueIp(start, end);
+    }
+}
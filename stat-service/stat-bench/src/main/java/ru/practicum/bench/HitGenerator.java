@@ -0,0 +1,57 @@
+package ru.practicum.bench;
+
+import ru.practicum.HitDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Reproducible hits resembling event views: a few uris take most of the traffic and visitors come back.
+ */
+public class HitGenerator {
+    public static final String APP = "ewm-main-service";
+    public static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final Random random;
+    private final int uris;
+    private final int visitors;
+
+    public HitGenerator(long seed, int uris, int visitors) {
+        this.random = new Random(seed);
+        this.uris = uris;
+        this.visitors = visitors;
+    }
+
+    /**
+     * Uri index skewed towards zero: the first 10% of uris get a little under half of the hits.
+     */
+    public int nextUri() {
+        return (int) (uris * Math.pow(random.nextDouble(), 3));
+    }
+
+    public HitDto next(LocalDateTime timestamp) {
+        int visitor = random.nextInt(visitors);
+        return HitDto.builder()
+                .app(APP)
+                .uri("/events/" + nextUri())
+                .ip("10." + (visitor >>> 16 & 0xFF) + "." + (visitor >>> 8 & 0xFF) + "." + (visitor & 0xFF))
+                .timestamp(timestamp.format(TIMESTAMP_FORMATTER))
+                .build();
+    }
+
+    /**
+     * Hits spread evenly over [from, to).
+     */
+    public List<HitDto> between(LocalDateTime from, LocalDateTime to, int count) {
+        long seconds = Duration.between(from, to).toSeconds();
+        List<HitDto> hits = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            hits.add(next(from.plusSeconds(seconds * i / count)));
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,61 @@
+package ru.practicum.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.HitDto;
+import ru.practicum.StatBinaryCodec;
+import ru.practicum.StatDto;
+import ru.practicum.model.Hit;
+import ru.practicum.model.HitMapper;
+import ru.practicum.model.Stat;
+import ru.practicum.model.StatMapper;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning one incoming hit into an entity, from the JSON form with a text timestamp and from the binary
+ * form with epoch milliseconds, and of mapping one aggregate to its response DTO.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HitMappingBenchmark {
+    private HitDto hitDto;
+    private long timestamp;
+    private Stat stat;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        hitDto = new HitGenerator(1, 1000, 10_000).next(now);
+        timestamp = StatBinaryCodec.toEpochMillis(now);
+        stat = new Stat(hitDto.getApp(), hitDto.getUri(), 42L);
+    }
+
+    @Benchmark
+    public Hit toHitFromDto() {
+        return HitMapper.toHit(hitDto);
+    }
+
+    @Benchmark
+    public Hit toHitFromFields() {
+        return HitMapper.toHit(hitDto.getApp(), hitDto.getUri(), hitDto.getIp(), timestamp);
+    }
+
+    @Benchmark
+    public StatDto toStatDto() {
+        return StatMapper.toStatDto(stat);
+    }
+}
@@ -0,0 +1,84 @@
+package ru.practicum.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.HitBatchResultDto;
+import ru.practicum.HitDto;
+import ru.practicum.StatBinaryCodec;
+import ru.practicum.service.StatService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of storing hits through the stat service, into an embedded H2 database or into the columnar store: one
+ * call per hit against one call per batch, as JSON DTOs and as a binary frame. Scores are per hit. The stored data
+ * grows during the run, as it does in production.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(IngestionBenchmark.HITS)
+public class IngestionBenchmark {
+    static final int HITS = 100;
+
+    @Param({"jdbc", "columnar"})
+    public String storage;
+
+    private EmbeddedStatServer server;
+    private StatService statService;
+    private List<HitDto> hits;
+    private byte[] frame;
+
+    @Setup(Level.Trial)
+    public void startServer() throws IOException {
+        server = new EmbeddedStatServer(Map.of(
+                "stat-server.storage", storage,
+                "stat-server.columnar.directory", Files.createTempDirectory("stat-bench-").toString()));
+        statService = server.getStatService();
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        hits = new HitGenerator(1, 1000, 10_000).between(now.minusMinutes(1), now, HITS);
+        frame = StatBinaryCodec.encodeHits(hits);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        server.close();
+    }
+
+    @Benchmark
+    public void single() {
+        for (HitDto hit : hits) {
+            statService.addHit(hit);
+        }
+    }
+
+    @Benchmark
+    public HitBatchResultDto batch() {
+        return statService.addHits(hits);
+    }
+
+    @Benchmark
+    public HitBatchResultDto binaryBatch() {
+        return statService.addEncodedHits(frame);
+    }
+}
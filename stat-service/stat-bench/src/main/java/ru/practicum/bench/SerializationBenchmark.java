@@ -0,0 +1,113 @@
+package ru.practicum.bench;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.practicum.HitDto;
+import ru.practicum.StatBinaryCodec;
+import ru.practicum.StatDto;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON against the binary codec for hit batches and stats responses, both directions. The frame size of each
+ * format is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+    private static final TypeReference<List<HitDto>> HIT_LIST = new TypeReference<>() {
+    };
+    private static final TypeReference<List<StatDto>> STAT_LIST = new TypeReference<>() {
+    };
+
+    @Param({"1", "100", "1000"})
+    public int size;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<HitDto> hits;
+    private List<StatDto> stats;
+    private byte[] hitsJson;
+    private byte[] hitsBinary;
+    private byte[] statsJson;
+    private byte[] statsBinary;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        hits = new HitGenerator(1, 1000, 10_000).between(now.minusHours(1), now, size);
+        stats = hits.stream()
+                .map(hit -> StatDto.builder().app(hit.getApp()).uri(hit.getUri()).hits(hit.getIp().length()).build())
+                .toList();
+        hitsJson = objectMapper.writeValueAsBytes(hits);
+        hitsBinary = StatBinaryCodec.encodeHits(hits);
+        statsJson = objectMapper.writeValueAsBytes(stats);
+        statsBinary = StatBinaryCodec.encodeStats(stats);
+        System.out.printf("size=%d: hits json %d B, binary %d B; stats json %d B, binary %d B%n", size,
+                hitsJson.length, hitsBinary.length, statsJson.length, statsBinary.length);
+    }
+
+    @Benchmark
+    public byte[] writeHitsJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(hits);
+    }
+
+    @Benchmark
+    public byte[] writeHitsBinary() {
+        return StatBinaryCodec.encodeHits(hits);
+    }
+
+    @Benchmark
+    public List<HitDto> readHitsJson() throws IOException {
+        return objectMapper.readValue(hitsJson, HIT_LIST);
+    }
+
+    @Benchmark
+    public void readHitsBinary(Blackhole blackhole) {
+        StatBinaryCodec.decodeHits(hitsBinary, (app, uri, ip, timestamp) -> {
+            blackhole.consume(app);
+            blackhole.consume(uri);
+            blackhole.consume(ip);
+            blackhole.consume(timestamp);
+        });
+    }
+
+    @Benchmark
+    public byte[] writeStatsJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(stats);
+    }
+
+    @Benchmark
+    public byte[] writeStatsBinary() {
+        return StatBinaryCodec.encodeStats(stats);
+    }
+
+    @Benchmark
+    public List<StatDto> readStatsJson() throws IOException {
+        return objectMapper.readValue(statsJson, STAT_LIST);
+    }
+
+    @Benchmark
+    public List<StatDto> readStatsBinary() {
+        return StatBinaryCodec.decodeStats(statsBinary);
+    }
+}
@@ -0,0 +1,94 @@
+package ru.practicum.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.StatDto;
+import ru.practicum.StatSeriesDto;
+import ru.practicum.service.StatService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Latency of the stats queries over a week of seeded hits, for each data set size and storage backend. The stats
+ * cache is off, so every call aggregates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatsQueryBenchmark {
+    private static final int URIS = 1000;
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"jdbc", "columnar"})
+    public String storage;
+
+    private EmbeddedStatServer server;
+    private StatService statService;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private String[] popularUris;
+
+    @Setup(Level.Trial)
+    public void seed() throws IOException {
+        server = new EmbeddedStatServer(Map.of(
+                "stat-server.storage", storage,
+                "stat-server.columnar.directory", Files.createTempDirectory("stat-bench-").toString()));
+        statService = server.getStatService();
+        end = LocalDateTime.now().withNano(0).minusHours(1);
+        start = end.minusDays(7);
+        server.seed(new HitGenerator(1, URIS, rows / 10), start, end, rows);
+        popularUris = IntStream.range(0, 10).mapToObj(uri -> "/events/" + uri).toArray(String[]::new);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() {
+        server.close();
+    }
+
+    @Benchmark
+    public List<StatDto> hits() {
+        return statService.getStats(start, end, null, false);
+    }
+
+    @Benchmark
+    public List<StatDto> uniqueHits() {
+        return statService.getStats(start, end, null, true);
+    }
+
+    @Benchmark
+    public List<StatDto> popularUriHits() {
+        return statService.getStats(start, end, popularUris, false);
+    }
+
+    @Benchmark
+    public List<StatDto> lastDayUniqueHits() {
+        return statService.getStats(end.minusDays(1), end, popularUris, true);
+    }
+
+    @Benchmark
+    public List<StatSeriesDto> hourlySeries() {
+        return statService.getTimeSeries(start, end, popularUris, "hour");
+    }
+}
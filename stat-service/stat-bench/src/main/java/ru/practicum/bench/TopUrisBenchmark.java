@@ -0,0 +1,103 @@
+package ru.practicum.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.sketch.SpaceSaving;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Top uris of a stream of hits from a Space-Saving summary against exact per-uri counting, as done by the top
+ * endpoint and by a GROUP BY over the same hits. After the measurements the summary's top k is compared with the
+ * exact one and the recall and the largest overcount are printed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopUrisBenchmark {
+    private static final int HITS = 100_000;
+    private static final int URIS = 100_000;
+    private static final int K = 10;
+
+    @Param({"100", "1000"})
+    public int capacity;
+
+    private String[] uris;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        HitGenerator generator = new HitGenerator(1, URIS, 1);
+        uris = new String[HITS];
+        for (int i = 0; i < HITS; i++) {
+            uris[i] = "/events/" + generator.nextUri();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void reportAccuracy() {
+        List<SpaceSaving.Entry<String>> approximate = summary();
+        Map<String, Long> exact = exactCounts();
+        Set<String> exactTop = top(exact);
+        long recalled = approximate.stream().filter(entry -> exactTop.contains(entry.item())).count();
+        long maxOvercount = approximate.stream()
+                .mapToLong(entry -> entry.count() - exact.getOrDefault(entry.item(), 0L))
+                .max()
+                .orElse(0);
+        System.out.printf("capacity=%d: top %d recall %d/%d, max overcount %d of %d hits%n", capacity, K, recalled,
+                exactTop.size(), maxOvercount, HITS);
+    }
+
+    @Benchmark
+    public List<SpaceSaving.Entry<String>> spaceSaving() {
+        return summary();
+    }
+
+    @Benchmark
+    public Set<String> exact() {
+        return top(exactCounts());
+    }
+
+    private List<SpaceSaving.Entry<String>> summary() {
+        SpaceSaving<String> summary = new SpaceSaving<>(capacity);
+        for (String uri : uris) {
+            summary.offer(uri);
+        }
+        return summary.top(K);
+    }
+
+    private Map<String, Long> exactCounts() {
+        Map<String, Long> counts = new HashMap<>();
+        for (String uri : uris) {
+            counts.merge(uri, 1L, Long::sum);
+        }
+        return counts;
+    }
+
+    private static Set<String> top(Map<String, Long> counts) {
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(K)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,227 @@
+package ru.practicum;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+@Slf4j
+public class AsyncHitSender implements MeterBinder, AutoCloseable {
+    private final BlockingQueue<HitDto> queue;
+    private final Function<List<HitDto>, HitBatchResultDto> transport;
+    private final OverflowPolicy overflowPolicy;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Duration shutdownTimeout;
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicInteger offering = new AtomicInteger();
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    public AsyncHitSender(Function<List<HitDto>, HitBatchResultDto> transport, StatClientProperties.Async properties) {
+        if (properties.getQueueCapacity() <= 0 || properties.getBatchSize() <= 0) {
+            throw new IllegalArgumentException("Размер очереди и пакета должны быть положительными");
+        }
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.transport = transport;
+        this.overflowPolicy = properties.getOverflowPolicy();
+        this.batchSize = properties.getBatchSize();
+        this.flushIntervalNanos = properties.getFlushInterval().toNanos();
+        this.shutdownTimeout = properties.getShutdownTimeout();
+        this.worker = new Thread(this::run, "stat-client-hit-sender");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Queues the hit for sending. The caller is registered in {@code offering} before it checks {@code running},
+     * so the worker, which stops only when no caller is offering and the queue is empty, sends every hit that got
+     * past the check even if {@link #close()} runs at the same time.
+     */
+    public void enqueue(HitDto hitDto) {
+        offering.incrementAndGet();
+        try {
+            if (!running) {
+                dropped.incrementAndGet();
+                return;
+            }
+            boolean accepted = switch (overflowPolicy) {
+                case DROP_NEWEST -> queue.offer(hitDto);
+                case DROP_OLDEST -> offerDroppingOldest(hitDto);
+                case BLOCK -> offerBlocking(hitDto);
+            };
+            if (accepted) {
+                enqueued.incrementAndGet();
+            } else {
+                dropped.incrementAndGet();
+            }
+        } finally {
+            offering.decrementAndGet();
+        }
+    }
+
+    public long getEnqueued() {
+        return enqueued.get();
+    }
+
+    public long getSent() {
+        return sent.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public long getDuplicates() {
+        return duplicates.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("stat.client.hits.enqueued", this, AsyncHitSender::getEnqueued)
+                .description("Hits accepted into the send queue")
+                .register(registry);
+        FunctionCounter.builder("stat.client.hits.sent", this, AsyncHitSender::getSent)
+                .description("Hits accepted by stat-server")
+                .register(registry);
+        FunctionCounter.builder("stat.client.hits.rejected", this, AsyncHitSender::getRejected)
+                .description("Hits delivered to stat-server but rejected by its validation")
+                .register(registry);
+        FunctionCounter.builder("stat.client.hits.duplicate", this, AsyncHitSender::getDuplicates)
+                .description("Hits delivered to stat-server but not stored as repeats of recent hits")
+                .register(registry);
+        FunctionCounter.builder("stat.client.hits.dropped", this, AsyncHitSender::getDropped)
+                .description("Hits discarded because the queue was full or closed")
+                .register(registry);
+        FunctionCounter.builder("stat.client.hits.failed", this, AsyncHitSender::getFailed)
+                .description("Hits lost because delivery to stat-server failed")
+                .register(registry);
+        Gauge.builder("stat.client.queue.depth", this, AsyncHitSender::getQueueDepth)
+                .description("Hits waiting to be sent")
+                .register(registry);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            worker.join(shutdownTimeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (worker.isAlive()) {
+            log.warn("Отправка статистики не завершилась за {}, в очереди осталось {} hit", shutdownTimeout, queue.size());
+        }
+    }
+
+    private boolean offerDroppingOldest(HitDto hitDto) {
+        while (!queue.offer(hitDto)) {
+            if (queue.poll() != null) {
+                dropped.incrementAndGet();
+            }
+        }
+        return true;
+    }
+
+    private boolean offerBlocking(HitDto hitDto) {
+        try {
+            while (running) {
+                if (queue.offer(hitDto, flushIntervalNanos, TimeUnit.NANOSECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    private void run() {
+        List<HitDto> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                break;
+            }
+            send(batch);
+        }
+        send(batch);
+        while (offering.get() > 0 || !queue.isEmpty()) {
+            if (queue.drainTo(batch, batchSize) == 0) {
+                Thread.onSpinWait();
+            }
+            send(batch);
+        }
+    }
+
+    private void collect(List<HitDto> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        HitDto first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        while (batch.size() < batchSize && running) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                return;
+            }
+            HitDto next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void send(List<HitDto> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            HitBatchResultDto result = transport.apply(batch);
+            sent.addAndGet(result.getAccepted());
+            duplicates.addAndGet(result.getDuplicates());
+            if (result.getRejected() > 0) {
+                rejected.addAndGet(result.getRejected());
+                log.warn("Сервис статистики отклонил {} из {} hit: {}", result.getRejected(), batch.size(),
+                        result.getErrors());
+            }
+        } catch (RuntimeException e) {
+            failed.addAndGet(batch.size());
+            log.warn("Не удалось отправить {} hit в сервис статистики: {}", batch.size(), e.getMessage());
+        } finally {
+            batch.clear();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package ru.practicum;
+
+public enum OverflowPolicy {
+    DROP_OLDEST,
+    DROP_NEWEST,
+    BLOCK
+}
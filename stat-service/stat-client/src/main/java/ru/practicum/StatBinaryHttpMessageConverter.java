@@ -0,0 +1,49 @@
+package ru.practicum;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.util.List;
+
+public class StatBinaryHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(StatBinaryCodec.MEDIA_TYPE);
+
+    public StatBinaryHttpMessageConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == StatDto[].class || List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return clazz == StatDto[].class && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        // only on an explicit content type, so batches without one keep going out as JSON
+        return List.class.isAssignableFrom(clazz) && mediaType != null && MEDIA_TYPE.includes(mediaType);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        try {
+            return StatBinaryCodec.decodeStats(inputMessage.getBody().readAllBytes()).toArray(new StatDto[0]);
+        } catch (IllegalArgumentException e) {
+            throw new HttpMessageNotReadableException(e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object hits, HttpOutputMessage outputMessage) throws IOException {
+        outputMessage.getBody().write(StatBinaryCodec.encodeHits((List<HitDto>) hits));
+    }
+}
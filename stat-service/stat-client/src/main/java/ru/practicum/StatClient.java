@@ -1,49 +1,194 @@
 package ru.practicum;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Service
+@Slf4j
 public class StatClient {
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
     private final String serverUrl;
+    private final CloseableHttpClient httpClient;
     private final RestTemplate rest;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AsyncHitSender hitSender;
+    private final CircuitBreaker circuitBreaker;
+    private final MeterRegistry meterRegistry;
+    private volatile boolean batchSupported = true;
+    private volatile boolean binarySupported;
 
-    public StatClient(@Value("${stat-server.url}") String serverUrl) {
-        this.rest = new RestTemplate();
+    public StatClient(@Value("${stat-server.url}") String serverUrl,
+                      StatClientProperties properties,
+                      MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = createConnectionManager(properties.getHttp());
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "stat-server").bindTo(meterRegistry);
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(properties.getHttp().getConnectionRequestTimeout()))
+                        .setResponseTimeout(Timeout.of(properties.getHttp().getReadTimeout()))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(properties.getHttp().getIdleTimeout()))
+                .build();
+        this.rest = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+        this.rest.getMessageConverters().add(new StatBinaryHttpMessageConverter());
         this.serverUrl = serverUrl;
+        this.binarySupported = properties.isBinaryEnabled();
+        this.meterRegistry = meterRegistry;
+        this.circuitBreaker = new CircuitBreaker(properties.getBreaker());
+        this.circuitBreaker.bindTo(meterRegistry);
+        if (properties.getAsync().isEnabled()) {
+            this.hitSender = new AsyncHitSender(this::sendHits, properties.getAsync());
+            this.hitSender.bindTo(meterRegistry);
+        } else {
+            this.hitSender = null;
+        }
     }
 
     public void addHit(HitDto hitDto) {
-        HttpEntity<HitDto> requestEntity = new HttpEntity<>(hitDto);
-        rest.exchange(serverUrl + "/hit", HttpMethod.POST, requestEntity, Object.class);
+        if (hitSender != null) {
+            hitSender.enqueue(hitDto);
+            return;
+        }
+        sendHit(hitDto);
     }
 
+    /**
+     * Returns the stats, or an empty body with status 503 when stat-server is unreachable, failing or cut off by
+     * the circuit breaker.
+     */
     public ResponseEntity<StatDto[]> getStats(String start, String end, String[] uris, boolean unique) {
-        Map<String, Object> parameters;
-        String path;
-        if (uris != null) {
-            parameters = Map.of(
-                    "start", start,
-                    "end", end,
-                    "uris", uris,
-                    "unique", unique
-            );
-            path = serverUrl + "/stats/?start={start}&end={end}&uris={uris}&unique={unique}";
-        } else {
-            parameters = Map.of(
-                    "start", start,
-                    "end", end,
-                    "unique", unique
-            );
-            path = serverUrl + "/stats/?start={start}&end={end}&unique={unique}";
+        try {
+            return fetchStats(start, end, uris, unique);
+        } catch (StatServerUnavailableException | ResourceAccessException | HttpServerErrorException e) {
+            log.warn("Статистика недоступна, возвращаем пустой ответ: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(new StatDto[0]);
+        }
+    }
+
+    /**
+     * Fetches hit counts of many uris since {@code start} with a single stats request. Counts of all apps are summed
+     * up per uri and uris without hits are mapped to zero. Both ends of the range are rounded down to the minute, so
+     * repeated requests within a minute are the same query and can be answered from the stat-server cache.
+     */
+    public Map<String, Long> getHits(Collection<String> uris, LocalDateTime start, boolean unique) {
+        Map<String, Long> hits = new HashMap<>();
+        if (uris.isEmpty()) {
+            return hits;
+        }
+        for (String uri : uris) {
+            hits.put(uri, 0L);
+        }
+        ResponseEntity<StatDto[]> response = fetchStats(
+                start.truncatedTo(ChronoUnit.MINUTES).format(DATE_TIME_FORMATTER),
+                LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES).format(DATE_TIME_FORMATTER),
+                uris.toArray(String[]::new), unique);
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            throw new IllegalStateException("Сервис статистики ответил " + response.getStatusCode());
+        }
+        if (response.getBody() != null) {
+            for (StatDto stat : response.getBody()) {
+                hits.computeIfPresent(stat.getUri(), (uri, count) -> count + stat.getHits());
+            }
         }
-        ResponseEntity<StatDto[]> serverResponse = rest.getForEntity(path, StatDto[].class, parameters);
+        return hits;
+    }
+
+    /**
+     * Requests the stats as NDJSON and hands every entry to the consumer as soon as its line is read, so the
+     * result set is never held in memory. Entries arrive ordered by hits, descending.
+     */
+    public void streamStats(String start, String end, String[] uris, boolean unique, Consumer<StatDto> consumer) {
+        call("stream-stats", () -> rest.execute(statsPath(uris), HttpMethod.GET,
+                request -> request.getHeaders().setAccept(List.of(MediaType.APPLICATION_NDJSON)),
+                response -> {
+                    BufferedReader reader = new BufferedReader(new InputStreamReader(response.getBody(),
+                            StandardCharsets.UTF_8));
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (!line.isBlank()) {
+                            consumer.accept(objectMapper.readValue(line, StatDto.class));
+                        }
+                    }
+                    return null;
+                },
+                statsParameters(start, end, uris, unique)));
+    }
+
+    @PreDestroy
+    public void close() {
+        if (hitSender != null) {
+            hitSender.close();
+        }
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            log.warn("Не удалось закрыть HTTP-клиент статистики: {}", e.getMessage());
+        }
+    }
+
+    private static PoolingHttpClientConnectionManager createConnectionManager(StatClientProperties.Http http) {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(http.getMaxConnections())
+                .setMaxConnPerRoute(http.getMaxConnections())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(http.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.of(http.getReadTimeout()))
+                        .setTimeToLive(TimeValue.of(http.getConnectionTimeToLive()))
+                        .build())
+                .build();
+    }
+
+    private ResponseEntity<StatDto[]> fetchStats(String start, String end, String[] uris, boolean unique) {
+        String path = statsPath(uris);
+        Map<String, Object> parameters = statsParameters(start, end, uris, unique);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(binarySupported
+                ? List.of(StatBinaryHttpMessageConverter.MEDIA_TYPE, MediaType.APPLICATION_JSON)
+                : List.of(MediaType.APPLICATION_JSON));
+        ResponseEntity<StatDto[]> serverResponse = call("get-stats", () -> rest.exchange(path, HttpMethod.GET,
+                new HttpEntity<>(headers), StatDto[].class, parameters));
         if (serverResponse.getStatusCode().is2xxSuccessful()) {
             return serverResponse;
         }
@@ -53,4 +198,98 @@ public class StatClient {
         }
         return responseBuilder.build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Runs a request through the circuit breaker and records its latency. Only I/O errors and 5xx responses count
+     * as failures; 4xx responses mean the server is up and are rethrown as they are.
+     */
+    private <T> T call(String operation, Supplier<T> request) {
+        if (!circuitBreaker.tryAcquire()) {
+            throw new StatServerUnavailableException("Вызов сервиса статистики отклонён: автомат разомкнут");
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            T result = request.get();
+            circuitBreaker.onSuccess();
+            return result;
+        } catch (ResourceAccessException | HttpServerErrorException e) {
+            outcome = "server_error";
+            circuitBreaker.onFailure();
+            throw e;
+        } catch (RuntimeException e) {
+            outcome = "client_error";
+            circuitBreaker.onSuccess();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("stat.client.requests")
+                    .description("Latency of calls to stat-server")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    private String statsPath(String[] uris) {
+        return uris != null
+                ? serverUrl + "/stats/?start={start}&end={end}&uris={uris}&unique={unique}"
+                : serverUrl + "/stats/?start={start}&end={end}&unique={unique}";
+    }
+
+    private Map<String, Object> statsParameters(String start, String end, String[] uris, boolean unique) {
+        if (uris != null) {
+            return Map.of(
+                    "start", start,
+                    "end", end,
+                    "uris", uris,
+                    "unique", unique
+            );
+        }
+        return Map.of(
+                "start", start,
+                "end", end,
+                "unique", unique
+        );
+    }
+
+    private void sendHit(HitDto hitDto) {
+        HttpEntity<HitDto> requestEntity = new HttpEntity<>(hitDto);
+        call("hit", () -> rest.exchange(serverUrl + "/hit", HttpMethod.POST, requestEntity, Object.class));
+    }
+
+    private HitBatchResultDto sendHits(List<HitDto> hits) {
+        if (batchSupported) {
+            try {
+                if (binarySupported) {
+                    try {
+                        return postBatch(hits, StatBinaryHttpMessageConverter.MEDIA_TYPE);
+                    } catch (HttpClientErrorException.UnsupportedMediaType e) {
+                        binarySupported = false;
+                    }
+                }
+                return postBatch(hits, MediaType.APPLICATION_JSON);
+            } catch (HttpClientErrorException.NotFound | HttpClientErrorException.MethodNotAllowed e) {
+                batchSupported = false;
+            }
+        }
+        for (HitDto hitDto : hits) {
+            sendHit(hitDto);
+        }
+        return HitBatchResultDto.builder()
+                .accepted(hits.size())
+                .errors(List.of())
+                .build();
+    }
+
+    private HitBatchResultDto postBatch(List<HitDto> hits, MediaType contentType) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(contentType);
+        HttpEntity<List<HitDto>> requestEntity = new HttpEntity<>(hits, headers);
+        HitBatchResultDto result = call("hits-batch", () -> rest.exchange(serverUrl + "/hits/batch", HttpMethod.POST,
+                requestEntity, HitBatchResultDto.class)).getBody();
+        if (result == null) {
+            throw new IllegalStateException("Сервис статистики не вернул результат приёма пакета");
+        }
+        return result;
+    }
+}
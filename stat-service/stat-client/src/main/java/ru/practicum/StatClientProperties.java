@@ -0,0 +1,49 @@
+package ru.practicum;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "stat-client")
+public class StatClientProperties {
+    private boolean binaryEnabled = true;
+    private Async async = new Async();
+    private Http http = new Http();
+    private Breaker breaker = new Breaker();
+
+    @Getter
+    @Setter
+    public static class Async {
+        private boolean enabled = false;
+        private int queueCapacity = 10_000;
+        private int batchSize = 100;
+        private Duration flushInterval = Duration.ofSeconds(1);
+        private Duration shutdownTimeout = Duration.ofSeconds(5);
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+    }
+
+    @Getter
+    @Setter
+    public static class Http {
+        private int maxConnections = 50;
+        private Duration connectTimeout = Duration.ofSeconds(1);
+        private Duration readTimeout = Duration.ofSeconds(3);
+        private Duration connectionRequestTimeout = Duration.ofMillis(500);
+        private Duration connectionTimeToLive = Duration.ofMinutes(5);
+        private Duration idleTimeout = Duration.ofSeconds(30);
+    }
+
+    @Getter
+    @Setter
+    public static class Breaker {
+        private boolean enabled = true;
+        private int failureThreshold = 5;
+        private Duration openDuration = Duration.ofSeconds(10);
+    }
+}
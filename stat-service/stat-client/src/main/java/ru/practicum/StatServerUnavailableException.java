@@ -0,0 +1,7 @@
+package ru.practicum;
+
+public class StatServerUnavailableException extends RuntimeException {
+    public StatServerUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,23 @@
+package ru.practicum;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HitBatchErrorDto {
+    private int index;
+    private String message;
+
+    @Override
+    public String toString() {
+        return "HitBatchErrorDto{" +
+                "index=" + index +
+                ", message='" + message + '\'' +
+                '}';
+    }
+}
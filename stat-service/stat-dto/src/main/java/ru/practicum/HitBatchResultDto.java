@@ -0,0 +1,29 @@
+package ru.practicum;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HitBatchResultDto {
+    private int accepted;
+    private int rejected;
+    private int duplicates;
+    private List<HitBatchErrorDto> errors;
+
+    @Override
+    public String toString() {
+        return "HitBatchResultDto{" +
+                "accepted=" + accepted +
+                ", rejected=" + rejected +
+                ", duplicates=" + duplicates +
+                ", errors=" + errors +
+                '}';
+    }
+}
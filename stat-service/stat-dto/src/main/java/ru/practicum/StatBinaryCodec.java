@@ -0,0 +1,243 @@
+package ru.practicum;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of hit batches and stats responses.
+ * <p>
+ * A frame is a two-byte magic, a version, a kind and a varint record count. Strings are varint tags: 0 is null,
+ * 1 is followed by a varint length and UTF-8 bytes, and n &gt;= 2 repeats the (n - 2)-th string of the frame, so
+ * an app or uri repeated across records is decoded into a single String. Hit timestamps are wall-clock epoch
+ * milliseconds read at UTC offset, i.e. the same local date-time the JSON path carries as text.
+ */
+public final class StatBinaryCodec {
+    public static final String MEDIA_TYPE = "application/vnd.ewm.stats+binary";
+    public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private static final byte MAGIC_1 = 'E';
+    private static final byte MAGIC_2 = 'S';
+    private static final byte VERSION = 1;
+    private static final byte KIND_HITS = 1;
+    private static final byte KIND_STATS = 2;
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private StatBinaryCodec() {
+    }
+
+    @FunctionalInterface
+    public interface HitConsumer {
+        void accept(String app, String uri, String ip, long timestamp);
+    }
+
+    public static long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    public static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMillis, 1000),
+                (int) Math.floorMod(epochMillis, 1000) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    public static byte[] encodeHits(List<HitDto> hits) {
+        Writer writer = new Writer(KIND_HITS, hits.size(), hits.size() * 48);
+        for (HitDto hit : hits) {
+            writer.writeString(hit.getApp());
+            writer.writeString(hit.getUri());
+            writer.writeString(hit.getIp());
+            writer.writeLong(parseTimestamp(hit.getTimestamp()));
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * Decodes a hit frame record by record; returns the number of records.
+     */
+    public static int decodeHits(byte[] frame, HitConsumer consumer) {
+        Reader reader = new Reader(frame, KIND_HITS);
+        int count = reader.count;
+        for (int i = 0; i < count; i++) {
+            consumer.accept(reader.readString(), reader.readString(), reader.readString(), reader.readLong());
+        }
+        reader.ensureConsumed();
+        return count;
+    }
+
+    public static byte[] encodeStats(List<StatDto> stats) {
+        Writer writer = new Writer(KIND_STATS, stats.size(), stats.size() * 24);
+        for (StatDto stat : stats) {
+            writer.writeString(stat.getApp());
+            writer.writeString(stat.getUri());
+            writer.writeVarLong(stat.getHits());
+        }
+        return writer.toByteArray();
+    }
+
+    public static List<StatDto> decodeStats(byte[] frame) {
+        Reader reader = new Reader(frame, KIND_STATS);
+        List<StatDto> stats = new ArrayList<>(reader.count);
+        for (int i = 0; i < reader.count; i++) {
+            stats.add(new StatDto(reader.readString(), reader.readString(), (int) reader.readVarLong()));
+        }
+        reader.ensureConsumed();
+        return stats;
+    }
+
+    private static long parseTimestamp(String timestamp) {
+        if (timestamp == null) {
+            return NO_TIMESTAMP;
+        }
+        try {
+            return toEpochMillis(LocalDateTime.parse(timestamp, TIMESTAMP_FORMATTER));
+        } catch (DateTimeParseException e) {
+            return NO_TIMESTAMP;
+        }
+    }
+
+    private static final class Writer {
+        private final Map<String, Integer> strings = new HashMap<>();
+        private byte[] buffer;
+        private int position;
+
+        private Writer(byte kind, int count, int sizeHint) {
+            buffer = new byte[Math.max(16, sizeHint)];
+            buffer[position++] = MAGIC_1;
+            buffer[position++] = MAGIC_2;
+            buffer[position++] = VERSION;
+            buffer[position++] = kind;
+            writeVarLong(count);
+        }
+
+        private void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            Integer index = strings.get(value);
+            if (index != null) {
+                writeVarLong(index + 2L);
+                return;
+            }
+            strings.put(value, strings.size());
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(1);
+            writeVarLong(bytes.length);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private void writeLong(long value) {
+            ensureCapacity(Long.BYTES);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] frame;
+        private final List<String> strings = new ArrayList<>();
+        private final int count;
+        private int position;
+
+        private Reader(byte[] frame, byte kind) {
+            this.frame = frame;
+            if (frame.length < 5 || frame[0] != MAGIC_1 || frame[1] != MAGIC_2) {
+                throw new IllegalArgumentException("Некорректный бинарный кадр статистики");
+            }
+            if (frame[2] != VERSION || frame[3] != kind) {
+                throw new IllegalArgumentException("Неподдерживаемая версия или тип кадра: " + frame[2] + "/"
+                        + frame[3]);
+            }
+            position = 4;
+            long records = readVarLong();
+            if (records < 0 || records > frame.length) {
+                throw new IllegalArgumentException("Некорректное число записей в кадре: " + records);
+            }
+            count = (int) records;
+        }
+
+        private String readString() {
+            long tag = readVarLong();
+            if (tag == 0) {
+                return null;
+            }
+            if (tag >= 2) {
+                if (tag - 2 >= strings.size()) {
+                    throw new IllegalArgumentException("Ссылка на неизвестную строку: " + (tag - 2));
+                }
+                return strings.get((int) (tag - 2));
+            }
+            long length = readVarLong();
+            if (length < 0 || length > frame.length - position) {
+                throw new IllegalArgumentException("Некорректная длина строки: " + length);
+            }
+            String value = new String(frame, position, (int) length, StandardCharsets.UTF_8);
+            position += (int) length;
+            strings.add(value);
+            return value;
+        }
+
+        private long readLong() {
+            require(Long.BYTES);
+            long value = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                value = (value << 8) | (frame[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                require(1);
+                byte b = frame[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Слишком длинное число в кадре");
+        }
+
+        private void require(int bytes) {
+            if (position + bytes > frame.length) {
+                throw new IllegalArgumentException("Бинарный кадр статистики обрезан");
+            }
+        }
+
+        private void ensureConsumed() {
+            if (position != frame.length) {
+                throw new IllegalArgumentException("Лишние байты в конце кадра: " + (frame.length - position));
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package ru.practicum;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatPointDto {
+    private String timestamp;
+    private long hits;
+
+    @Override
+    public String toString() {
+        return "StatPointDto{" +
+                "timestamp='" + timestamp + '\'' +
+                ", hits=" + hits +
+                '}';
+    }
+}
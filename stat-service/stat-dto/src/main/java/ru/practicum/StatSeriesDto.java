@@ -0,0 +1,29 @@
+package ru.practicum;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatSeriesDto {
+    private String app;
+    private String uri;
+    private long hits;
+    private List<StatPointDto> points;
+
+    @Override
+    public String toString() {
+        return "StatSeriesDto{" +
+                "app='" + app + '\'' +
+                ", uri='" + uri + '\'' +
+                ", hits=" + hits +
+                ", points=" + points +
+                '}';
+    }
+}
@@ -0,0 +1,27 @@
+package ru.practicum;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopStatDto {
+    private String app;
+    private String uri;
+    private long hits;
+    private long maxError;
+
+    @Override
+    public String toString() {
+        return "TopStatDto{" +
+                "app='" + app + '\'' +
+                ", uri='" + uri + '\'' +
+                ", hits=" + hits +
+                ", maxError=" + maxError +
+                '}';
+    }
+}
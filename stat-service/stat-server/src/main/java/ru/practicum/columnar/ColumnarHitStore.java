@@ -0,0 +1,246 @@
+package ru.practicum.columnar;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.journal.HitJournal;
+import ru.practicum.journal.JournalBatch;
+import ru.practicum.journal.JournalPosition;
+import ru.practicum.model.Hit;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Hits kept as immutable columnar segment files named by a growing sequence number, plus an in-memory head of the
+ * hits appended since the last segment was sealed. The head is sealed into a segment once it reaches the configured
+ * number of rows or on request.
+ * <p>
+ * With a journal, hits are written to it before they enter the head, and the journal position reached by every
+ * sealed segment is saved in a checkpoint file. On start the journal is replayed from the checkpoint into the head,
+ * so hits acknowledged but not sealed survive a restart; without one they are lost if the process dies. If the
+ * process dies after a segment is written but before its checkpoint, the segment's rows are skipped in the replay.
+ * <p>
+ * Only segment headers are kept in memory permanently; decoded segments are held in a cache bounded by their total
+ * number of rows and read back from disk when evicted.
+ */
+@Slf4j
+public class ColumnarHitStore implements AutoCloseable {
+    private static final String SEGMENT_PREFIX = "hits-";
+    private static final String SEGMENT_SUFFIX = ".segment";
+    private static final String CHECKPOINT = "head.checkpoint";
+    private static final int REPLAY_BATCH = 10_000;
+
+    private final Path directory;
+    private final int segmentRows;
+    private final LoadingCache<Path, ColumnarSegment> cache;
+    private final HitJournal journal;
+    private final List<SegmentFile> segments = new ArrayList<>();
+    private SegmentBuilder head = new SegmentBuilder();
+    private long lastSegment;
+
+    public ColumnarHitStore(Path directory, int segmentRows, long cachedRows) throws IOException {
+        this(directory, segmentRows, cachedRows, null);
+    }
+
+    public ColumnarHitStore(Path directory, int segmentRows, long cachedRows, HitJournal journal) throws IOException {
+        if (segmentRows < 1) {
+            throw new IllegalArgumentException("Размер сегмента должен быть положительным: " + segmentRows);
+        }
+        this.directory = directory;
+        this.segmentRows = segmentRows;
+        this.journal = journal;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(cachedRows)
+                .<Path, ColumnarSegment>weigher((path, segment) -> segment.getRows())
+                .build(ColumnarHitStore::read);
+        Files.createDirectories(directory);
+        long rows = 0;
+        for (long sequence : listSegments()) {
+            Path path = segmentPath(sequence);
+            ColumnarSegment.Header header = ColumnarSegment.readHeader(path);
+            segments.add(new SegmentFile(path, header));
+            lastSegment = sequence;
+            rows += header.rows();
+        }
+        log.info("Колоночное хранилище просмотров открыто: сегментов {}, строк {}", segments.size(), rows);
+        if (journal != null) {
+            replayJournal();
+        }
+    }
+
+    private record SegmentFile(Path path, ColumnarSegment.Header header) {
+    }
+
+    public synchronized void append(List<Hit> hits) {
+        int from = 0;
+        while (from < hits.size()) {
+            int to = Math.min(hits.size(), from + segmentRows - head.getRows());
+            List<Hit> chunk = hits.subList(from, to);
+            if (journal != null) {
+                try {
+                    journal.append(chunk);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Не удалось записать просмотры в журнал", e);
+                }
+            }
+            chunk.forEach(head::append);
+            if (head.getRows() >= segmentRows) {
+                seal();
+            }
+            from = to;
+        }
+    }
+
+    /**
+     * Seals the head if it holds hits appended longer than the given time ago.
+     */
+    public synchronized void sealOlderThan(long maxAgeMillis) {
+        if (head.getRows() > 0 && System.currentTimeMillis() - head.getCreatedAt() >= maxAgeMillis) {
+            seal();
+        }
+    }
+
+    /**
+     * Passes every segment that may hold hits within [from, to) to the consumer, the head included. The set of
+     * segments is taken at once, so hits sealed meanwhile are seen exactly once.
+     */
+    public void scan(long from, long to, Consumer<ColumnarSegment> consumer) {
+        List<Path> paths = new ArrayList<>();
+        ColumnarSegment headView;
+        synchronized (this) {
+            for (SegmentFile segment : segments) {
+                if (segment.header().overlaps(from, to)) {
+                    paths.add(segment.path());
+                }
+            }
+            headView = head.view();
+        }
+        for (Path path : paths) {
+            consumer.accept(cache.get(path));
+        }
+        if (headView.getHeader().overlaps(from, to)) {
+            consumer.accept(headView);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (head.getRows() > 0) {
+            seal();
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    private void seal() {
+        ColumnarSegment segment = head.build();
+        Path path = segmentPath(lastSegment + 1);
+        try {
+            segment.write(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось записать сегмент просмотров " + path, e);
+        }
+        head = new SegmentBuilder();
+        lastSegment++;
+        segments.add(new SegmentFile(path, segment.getHeader()));
+        cache.put(path, segment);
+        log.debug("Сегмент просмотров {} записан: строк {}", path.getFileName(), segment.getRows());
+        if (journal != null) {
+            JournalPosition sealed = journal.head();
+            try {
+                writeCheckpoint(new Checkpoint(lastSegment, sealed));
+                journal.deleteBefore(sealed.segment());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось сохранить позицию журнала сегмента " + path, e);
+            }
+        }
+    }
+
+    /**
+     * Last sealed segment and the journal position right after its last hit.
+     */
+    private record Checkpoint(long segment, JournalPosition position) {
+    }
+
+    private void replayJournal() throws IOException {
+        Checkpoint checkpoint = readCheckpoint();
+        if (checkpoint == null) {
+            writeCheckpoint(new Checkpoint(lastSegment, journal.head()));
+            return;
+        }
+        int unchecked = (int) Math.min(segments.size(), Math.max(0, lastSegment - checkpoint.segment()));
+        long skip = 0;
+        for (SegmentFile segment : segments.subList(segments.size() - unchecked, segments.size())) {
+            skip += segment.header().rows();
+        }
+        JournalPosition position = checkpoint.position();
+        while (true) {
+            JournalBatch batch = journal.read(position, REPLAY_BATCH);
+            if (batch.next().equals(position)) {
+                break;
+            }
+            for (Hit hit : batch.hits()) {
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    head.append(hit);
+                }
+            }
+            position = batch.next();
+        }
+        if (lastSegment > checkpoint.segment()) {
+            writeCheckpoint(new Checkpoint(lastSegment, position));
+        }
+        log.info("Из журнала восстановлено {} просмотров, ещё не записанных в сегменты", head.getRows());
+    }
+
+    private Checkpoint readCheckpoint() throws IOException {
+        Path path = directory.resolve(CHECKPOINT);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        String[] fields = Files.readString(path).trim().split(" ");
+        return new Checkpoint(Long.parseLong(fields[0]),
+                new JournalPosition(Long.parseLong(fields[1]), Integer.parseInt(fields[2])));
+    }
+
+    private void writeCheckpoint(Checkpoint checkpoint) throws IOException {
+        Path temp = directory.resolve(CHECKPOINT + ".tmp");
+        Files.writeString(temp, checkpoint.segment() + " " + checkpoint.position().segment() + " "
+                + checkpoint.position().offset());
+        Files.move(temp, directory.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static ColumnarSegment read(Path path) {
+        try {
+            return ColumnarSegment.read(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать сегмент просмотров " + path, e);
+        }
+    }
+
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long sequence) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+    }
+}
@@ -0,0 +1,377 @@
+package ru.practicum.columnar;
+
+import ru.practicum.model.StatKey;
+import ru.practicum.sketch.HyperLogLog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Immutable set of hits stored column by column. Each row is a key id into a dictionary of (app, uri) pairs, a
+ * timestamp in epoch milliseconds and a visitor: an IPv4 address packed into the low 32 bits, or for any other
+ * address its 64-bit hash with the sign bit set. Two such addresses of one uri colliding would be counted as one
+ * visitor.
+ * <p>
+ * A segment file starts with an uncompressed header holding the row count and the timestamp range, so segments
+ * outside a query range are skipped without reading them. The deflated body holds the app, uri and non-IPv4 address
+ * dictionaries followed by the columns as varints; rows are sorted by timestamp and timestamps are written as
+ * deltas.
+ */
+public class ColumnarSegment {
+    private static final int MAGIC = 0x45574d43;
+    private static final int VERSION = 1;
+
+    private final StatKey[] keys;
+    private final String[] otherIps;
+    private final int[] keyIds;
+    private final long[] timestamps;
+    private final long[] visitors;
+    private final int rows;
+    private final boolean sorted;
+    private final long minTimestamp;
+    private final long maxTimestamp;
+
+    /**
+     * Columns are only read up to {@code rows}, so they may be longer and still be appended to past that row.
+     */
+    ColumnarSegment(StatKey[] keys, String[] otherIps, int[] keyIds, long[] timestamps, long[] visitors, int rows,
+                    boolean sorted) {
+        this.keys = keys;
+        this.otherIps = otherIps;
+        this.keyIds = keyIds;
+        this.timestamps = timestamps;
+        this.visitors = visitors;
+        this.rows = rows;
+        this.sorted = sorted;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        if (sorted && rows > 0) {
+            min = timestamps[0];
+            max = timestamps[rows - 1];
+        } else {
+            for (int row = 0; row < rows; row++) {
+                min = Math.min(min, timestamps[row]);
+                max = Math.max(max, timestamps[row]);
+            }
+        }
+        this.minTimestamp = min;
+        this.maxTimestamp = max;
+    }
+
+    public record Header(int rows, long minTimestamp, long maxTimestamp) {
+
+        public boolean overlaps(long from, long to) {
+            return rows > 0 && maxTimestamp >= from && minTimestamp < to;
+        }
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public Header getHeader() {
+        return new Header(rows, minTimestamp, maxTimestamp);
+    }
+
+    /**
+     * Adds the number of hits of every selected key within [from, to) to the totals.
+     */
+    public void countHits(long from, long to, Set<String> uris, Map<StatKey, Long> totals) {
+        boolean[] selected = select(uris);
+        long[] counts = new long[keys.length];
+        for (int row = firstRow(from), last = lastRow(to); row < last; row++) {
+            long timestamp = timestamps[row];
+            int key = keyIds[row];
+            if (timestamp >= from && timestamp < to && selected[key]) {
+                counts[key]++;
+            }
+        }
+        for (int key = 0; key < keys.length; key++) {
+            if (counts[key] > 0) {
+                totals.merge(keys[key], counts[key], Long::sum);
+            }
+        }
+    }
+
+    /**
+     * Adds the visitors of every selected key within [from, to) to the per-key sets.
+     */
+    public void collectVisitors(long from, long to, Set<String> uris, Map<StatKey, LongHashSet> visitorsByKey) {
+        boolean[] selected = select(uris);
+        LongHashSet[] sets = new LongHashSet[keys.length];
+        for (int row = firstRow(from), last = lastRow(to); row < last; row++) {
+            long timestamp = timestamps[row];
+            int key = keyIds[row];
+            if (timestamp >= from && timestamp < to && selected[key]) {
+                LongHashSet set = sets[key];
+                if (set == null) {
+                    set = visitorsByKey.computeIfAbsent(keys[key], k -> new LongHashSet());
+                    sets[key] = set;
+                }
+                set.add(visitors[row]);
+            }
+        }
+    }
+
+    /**
+     * Adds the hits of every selected key within [from, to) to buckets of {@code stepMillis} starting at
+     * {@code first}.
+     */
+    public void countSeries(long from, long to, Set<String> uris, long first, long stepMillis, int buckets,
+                            Map<StatKey, long[]> series) {
+        boolean[] selected = select(uris);
+        long[][] counts = new long[keys.length][];
+        for (int row = firstRow(from), last = lastRow(to); row < last; row++) {
+            long timestamp = timestamps[row];
+            int key = keyIds[row];
+            if (timestamp >= from && timestamp < to && selected[key]) {
+                long[] points = counts[key];
+                if (points == null) {
+                    points = series.computeIfAbsent(keys[key], k -> new long[buckets]);
+                    counts[key] = points;
+                }
+                points[(int) ((timestamp - first) / stepMillis)]++;
+            }
+        }
+    }
+
+    /**
+     * Writes the segment to a temporary file next to the target and moves it into place, so a crash never leaves a
+     * partial segment under the target name.
+     */
+    public void write(Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (OutputStream file = new BufferedOutputStream(Files.newOutputStream(temp))) {
+            DataOutputStream header = new DataOutputStream(file);
+            header.writeInt(MAGIC);
+            header.writeInt(VERSION);
+            header.writeInt(rows);
+            header.writeLong(minTimestamp);
+            header.writeLong(maxTimestamp);
+            header.flush();
+            try (DataOutputStream body = new DataOutputStream(new DeflaterOutputStream(file))) {
+                writeBody(body);
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static Header readHeader(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 64))) {
+            return readHeader(in, path);
+        }
+    }
+
+    public static ColumnarSegment read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            Header header = readHeader(in, path);
+            try (DataInputStream body = new DataInputStream(new InflaterInputStream(in))) {
+                return readBody(body, header);
+            }
+        }
+    }
+
+    private int firstRow(long from) {
+        if (!sorted) {
+            return 0;
+        }
+        int low = 0;
+        int high = rows;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timestamps[middle] < from) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int lastRow(long to) {
+        return sorted ? firstRow(to) : rows;
+    }
+
+    private boolean[] select(Set<String> uris) {
+        boolean[] selected = new boolean[keys.length];
+        for (int key = 0; key < keys.length; key++) {
+            selected[key] = uris == null || uris.contains(keys[key].uri());
+        }
+        return selected;
+    }
+
+    private void writeBody(DataOutputStream out) throws IOException {
+        Map<String, Integer> apps = new HashMap<>();
+        Map<String, Integer> uris = new HashMap<>();
+        for (StatKey key : keys) {
+            apps.putIfAbsent(key.app(), apps.size());
+            uris.putIfAbsent(key.uri(), uris.size());
+        }
+        writeDictionary(out, apps);
+        writeDictionary(out, uris);
+        writeVarLong(out, keys.length);
+        for (StatKey key : keys) {
+            writeVarLong(out, apps.get(key.app()));
+            writeVarLong(out, uris.get(key.uri()));
+        }
+        Map<Long, Integer> others = new HashMap<>();
+        writeVarLong(out, otherIps.length);
+        for (String ip : otherIps) {
+            writeString(out, ip);
+            others.put(visitorOf(ip), others.size());
+        }
+        for (int row = 0; row < rows; row++) {
+            writeVarLong(out, keyIds[row]);
+        }
+        long previous = minTimestamp;
+        for (int row = 0; row < rows; row++) {
+            writeVarLong(out, zigZag(timestamps[row] - previous));
+            previous = timestamps[row];
+        }
+        for (int row = 0; row < rows; row++) {
+            long visitor = visitors[row];
+            writeVarLong(out, visitor >= 0 ? visitor << 1 : (long) others.get(visitor) << 1 | 1);
+        }
+    }
+
+    private static ColumnarSegment readBody(DataInputStream in, Header header) throws IOException {
+        int rows = header.rows();
+        String[] apps = readDictionary(in);
+        String[] uris = readDictionary(in);
+        StatKey[] keys = new StatKey[(int) readVarLong(in)];
+        for (int key = 0; key < keys.length; key++) {
+            keys[key] = new StatKey(apps[(int) readVarLong(in)], uris[(int) readVarLong(in)]);
+        }
+        String[] otherIps = readDictionary(in);
+        long[] otherVisitors = new long[otherIps.length];
+        for (int i = 0; i < otherIps.length; i++) {
+            otherVisitors[i] = visitorOf(otherIps[i]);
+        }
+        int[] keyIds = new int[rows];
+        for (int row = 0; row < rows; row++) {
+            keyIds[row] = (int) readVarLong(in);
+        }
+        long[] timestamps = new long[rows];
+        long previous = header.minTimestamp();
+        for (int row = 0; row < rows; row++) {
+            previous += unZigZag(readVarLong(in));
+            timestamps[row] = previous;
+        }
+        long[] visitors = new long[rows];
+        for (int row = 0; row < rows; row++) {
+            long value = readVarLong(in);
+            visitors[row] = (value & 1) == 0 ? value >>> 1 : otherVisitors[(int) (value >>> 1)];
+        }
+        return new ColumnarSegment(keys, otherIps, keyIds, timestamps, visitors, rows, true);
+    }
+
+    private static Header readHeader(DataInputStream in, Path path) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Файл не является сегментом просмотров: " + path);
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Неподдерживаемая версия сегмента " + version + ": " + path);
+        }
+        return new Header(in.readInt(), in.readLong(), in.readLong());
+    }
+
+    /**
+     * Visitor id of an address: the packed IPv4 address, or the hash of any other address with the sign bit set.
+     */
+    static long visitorOf(String ip) {
+        long packed = parseIpv4(ip);
+        return packed >= 0 ? packed : HyperLogLog.hash(ip) | Long.MIN_VALUE;
+    }
+
+    private static long parseIpv4(String ip) {
+        long packed = 0;
+        int octets = 0;
+        int value = -1;
+        for (int i = 0; i <= ip.length(); i++) {
+            char c = i < ip.length() ? ip.charAt(i) : '.';
+            if (c >= '0' && c <= '9') {
+                value = value < 0 ? c - '0' : value * 10 + (c - '0');
+                if (value > 255) {
+                    return -1;
+                }
+            } else if (c == '.' && value >= 0 && octets < 4) {
+                packed = packed << 8 | value;
+                octets++;
+                value = -1;
+            } else {
+                return -1;
+            }
+        }
+        return octets == 4 ? packed : -1;
+    }
+
+    private static void writeDictionary(DataOutput out, Map<String, Integer> dictionary) throws IOException {
+        String[] values = new String[dictionary.size()];
+        dictionary.forEach((value, index) -> values[index] = value);
+        writeVarLong(out, values.length);
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private static String[] readDictionary(DataInput in) throws IOException {
+        String[] values = new String[(int) readVarLong(in)];
+        for (int i = 0; i < values.length; i++) {
+            byte[] bytes = new byte[(int) readVarLong(in)];
+            in.readFully(bytes);
+            values[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Слишком длинное число в сегменте просмотров");
+    }
+
+    private static long zigZag(long value) {
+        return value << 1 ^ value >> 63;
+    }
+
+    private static long unZigZag(long value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+
+}
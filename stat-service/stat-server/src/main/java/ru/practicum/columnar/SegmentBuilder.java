@@ -0,0 +1,95 @@
+package ru.practicum.columnar;
+
+import ru.practicum.StatBinaryCodec;
+import ru.practicum.model.Hit;
+import ru.practicum.model.StatKey;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Growing columns of the hits not yet sealed into a segment. Rows are only ever appended, so a view taken under the
+ * caller's lock stays valid after the lock is released. Not thread-safe.
+ */
+public class SegmentBuilder {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Map<StatKey, Integer> keys = new LinkedHashMap<>();
+    private final Set<String> otherIps = new LinkedHashSet<>();
+    private final Map<String, Long> visitors = new HashMap<>();
+    private int[] keyIds = new int[INITIAL_CAPACITY];
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+    private long[] visitorIds = new long[INITIAL_CAPACITY];
+    private int rows;
+    private final long createdAt = System.currentTimeMillis();
+
+    public void append(Hit hit) {
+        if (rows == keyIds.length) {
+            keyIds = Arrays.copyOf(keyIds, rows * 2);
+            timestamps = Arrays.copyOf(timestamps, rows * 2);
+            visitorIds = Arrays.copyOf(visitorIds, rows * 2);
+        }
+        keyIds[rows] = keys.computeIfAbsent(new StatKey(hit.getApp(), hit.getUri()), key -> keys.size());
+        timestamps[rows] = StatBinaryCodec.toEpochMillis(hit.getTimestamp());
+        visitorIds[rows] = visitors.computeIfAbsent(hit.getIp(), this::toVisitor);
+        rows++;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Segment reading the rows appended so far without copying the columns.
+     */
+    public ColumnarSegment view() {
+        return new ColumnarSegment(keyArray(), otherIpArray(), keyIds, timestamps, visitorIds, rows, false);
+    }
+
+    /**
+     * Segment of the rows appended so far sorted by timestamp.
+     */
+    public ColumnarSegment build() {
+        int[] order = IntStream.range(0, rows)
+                .boxed()
+                .sorted(Comparator.comparingLong(row -> timestamps[row]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        int[] sortedKeyIds = new int[rows];
+        long[] sortedTimestamps = new long[rows];
+        long[] sortedVisitors = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            sortedKeyIds[i] = keyIds[order[i]];
+            sortedTimestamps[i] = timestamps[order[i]];
+            sortedVisitors[i] = visitorIds[order[i]];
+        }
+        return new ColumnarSegment(keyArray(), otherIpArray(), sortedKeyIds, sortedTimestamps, sortedVisitors, rows,
+                true);
+    }
+
+    private long toVisitor(String ip) {
+        long visitor = ColumnarSegment.visitorOf(ip);
+        if (visitor < 0) {
+            otherIps.add(ip);
+        }
+        return visitor;
+    }
+
+    private StatKey[] keyArray() {
+        return keys.keySet().toArray(new StatKey[0]);
+    }
+
+    private String[] otherIpArray() {
+        return otherIps.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,17 @@
+package ru.practicum.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import ru.practicum.repository.SqlDialect;
+
+@Configuration
+@EnableScheduling
+public class StatServerConfig {
+
+    @Bean
+    public SqlDialect sqlDialect(JdbcTemplate jdbcTemplate) {
+        return SqlDialect.detect(jdbcTemplate);
+    }
+}
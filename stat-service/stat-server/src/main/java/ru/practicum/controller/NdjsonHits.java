@@ -0,0 +1,43 @@
+package ru.practicum.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ru.practicum.HitDto;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lines of an NDJSON hit batch. A line that is not a valid hit keeps its position as {@code null} and its parse
+ * error is reported for that position, so one bad line does not hide why it was refused.
+ */
+class NdjsonHits {
+    private final ObjectMapper objectMapper;
+    private final List<HitDto> hits = new ArrayList<>();
+    private final Map<Integer, String> parseErrors = new HashMap<>();
+
+    NdjsonHits(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    void add(String line) {
+        if (line.isBlank()) {
+            return;
+        }
+        try {
+            hits.add(objectMapper.readValue(line, HitDto.class));
+        } catch (JsonProcessingException e) {
+            parseErrors.put(hits.size(), "Некорректная запись hit: " + e.getOriginalMessage());
+            hits.add(null);
+        }
+    }
+
+    List<HitDto> getHits() {
+        return hits;
+    }
+
+    Map<Integer, String> getParseErrors() {
+        return parseErrors;
+    }
+}
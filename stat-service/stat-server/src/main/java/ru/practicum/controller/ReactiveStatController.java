@@ -0,0 +1,169 @@
+package ru.practicum.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import ru.practicum.HitBatchResultDto;
+import ru.practicum.HitDto;
+import ru.practicum.StatBinaryCodec;
+import ru.practicum.StatDto;
+import ru.practicum.StatSeriesDto;
+import ru.practicum.TopStatDto;
+import ru.practicum.exceptions.ValidationRequestException;
+import ru.practicum.service.HeavyHitterService;
+import ru.practicum.service.ReactiveHitIngestion;
+import ru.practicum.service.StatService;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Endpoints of the {@code reactive} profile. Hits are handed to {@link ReactiveHitIngestion} on the event loop;
+ * statistics are still computed by the blocking {@link StatService}, so those calls run on the bounded elastic
+ * scheduler.
+ */
+@RestController
+@Profile("reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveStatController {
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final long DEMAND_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final ReactiveHitIngestion reactiveHitIngestion;
+    private final StatService statService;
+    private final HeavyHitterService heavyHitterService;
+    private final ObjectMapper objectMapper;
+
+    @PostMapping("/hit")
+    @ResponseStatus(HttpStatus.CREATED)
+    public void addHit(@RequestBody HitDto hitDto) {
+        log.debug("Stat server: POST hit={}", hitDto);
+        reactiveHitIngestion.addHit(hitDto);
+    }
+
+    @PostMapping(value = "/hits/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public HitBatchResultDto addHits(@RequestBody List<HitDto> hitDtos) {
+        log.debug("Stat server: POST hits batch size={}", hitDtos.size());
+        return reactiveHitIngestion.addHits(hitDtos);
+    }
+
+    @PostMapping(value = "/hits/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<HitBatchResultDto> addHitsNdjson(@RequestBody Flux<String> lines) {
+        return lines.collect(() -> new NdjsonHits(objectMapper), NdjsonHits::add)
+                .map(hits -> reactiveHitIngestion.addHits(hits.getHits(), hits.getParseErrors()));
+    }
+
+    @PostMapping(value = "/hits/batch", consumes = StatBinaryCodec.MEDIA_TYPE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public HitBatchResultDto addHitsBinary(@RequestBody byte[] frame) {
+        log.debug("Stat server: POST hits batch (binary) bytes={}", frame.length);
+        return reactiveHitIngestion.addEncodedHits(frame);
+    }
+
+    @GetMapping("/stats")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<List<StatDto>> getStats(@RequestParam String start,
+                                        @RequestParam String end,
+                                        @RequestParam(required = false) String[] uris,
+                                        @RequestParam(defaultValue = "false") boolean unique) {
+        log.info("Stat server: GET stats start={}, end={}, uris={}, unique={}", start, end, uris, unique);
+        return offload(() -> statService.getStats(LocalDateTime.parse(start, DATE_TIME_FORMATTER),
+                LocalDateTime.parse(end, DATE_TIME_FORMATTER), uris, unique));
+    }
+
+    @GetMapping(value = "/stats", produces = StatBinaryCodec.MEDIA_TYPE)
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<byte[]> getStatsBinary(@RequestParam String start,
+                                       @RequestParam String end,
+                                       @RequestParam(required = false) String[] uris,
+                                       @RequestParam(defaultValue = "false") boolean unique) {
+        return getStats(start, end, uris, unique).map(StatBinaryCodec::encodeStats);
+    }
+
+    /**
+     * Streams the stats as NDJSON. The blocking stream runs on the bounded elastic scheduler and waits for demand
+     * before every entry, so a slow client holds back the database cursor instead of filling memory.
+     */
+    @GetMapping(value = "/stats", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public Flux<StatDto> streamStats(@RequestParam String start,
+                                     @RequestParam String end,
+                                     @RequestParam(required = false) String[] uris,
+                                     @RequestParam(defaultValue = "false") boolean unique) {
+        log.info("Stat server: GET stats (ndjson) start={}, end={}, uris={}, unique={}", start, end, uris, unique);
+        LocalDateTime startTime = LocalDateTime.parse(start, DATE_TIME_FORMATTER);
+        LocalDateTime endTime = LocalDateTime.parse(end, DATE_TIME_FORMATTER);
+        if (startTime.isAfter(endTime)) {
+            throw new ValidationRequestException("Дата старта должна быть раньше даты конца");
+        }
+        return Flux.<StatDto>create(sink -> {
+            try {
+                statService.streamStats(startTime, endTime, uris, unique, stat -> {
+                    while (sink.requestedFromDownstream() == 0 && !sink.isCancelled()) {
+                        LockSupport.parkNanos(DEMAND_POLL_NANOS);
+                    }
+                    if (sink.isCancelled()) {
+                        throw new CancellationException("Клиент прервал получение статистики");
+                    }
+                    sink.next(stat);
+                });
+                sink.complete();
+            } catch (RuntimeException e) {
+                if (!sink.isCancelled()) {
+                    sink.error(e);
+                }
+            }
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @GetMapping("/stats/timeseries")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<List<StatSeriesDto>> getTimeSeries(@RequestParam String start,
+                                                   @RequestParam String end,
+                                                   @RequestParam(required = false) String[] uris,
+                                                   @RequestParam(defaultValue = "hour") String step) {
+        log.info("Stat server: GET timeseries start={}, end={}, uris={}, step={}", start, end, uris, step);
+        return offload(() -> statService.getTimeSeries(LocalDateTime.parse(start, DATE_TIME_FORMATTER),
+                LocalDateTime.parse(end, DATE_TIME_FORMATTER), uris, step));
+    }
+
+    @GetMapping("/stats/top")
+    @ResponseStatus(HttpStatus.OK)
+    public List<TopStatDto> getTopStats(@RequestParam(defaultValue = "10") int k,
+                                        @RequestParam(defaultValue = "1h") String window) {
+        log.info("Stat server: GET top stats k={}, window={}", k, window);
+        Duration windowDuration;
+        try {
+            windowDuration = DurationStyle.detectAndParse(window);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationRequestException("Некорректное окно: " + window);
+        }
+        return heavyHitterService.top(k, windowDuration);
+    }
+
+    private <T> Mono<T> offload(Callable<T> call) {
+        return Mono.fromCallable(call)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -1,26 +1,52 @@
 package ru.practicum.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.HitBatchResultDto;
 import ru.practicum.HitDto;
+import ru.practicum.StatBinaryCodec;
 import ru.practicum.StatDto;
+import ru.practicum.StatSeriesDto;
+import ru.practicum.TopStatDto;
+import ru.practicum.exceptions.ValidationRequestException;
+import ru.practicum.service.HeavyHitterService;
 import ru.practicum.service.StatService;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 @RestController
+@Profile("!reactive")
 @RequiredArgsConstructor
 @Slf4j
 public class StatController {
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
     private final StatService statService;
+    private final HeavyHitterService heavyHitterService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/hit")
     @ResponseStatus(HttpStatus.CREATED)
@@ -29,6 +55,28 @@ public class StatController {
         statService.addHit(hitDto);
     }
 
+    @PostMapping(value = "/hits/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public HitBatchResultDto addHits(@RequestBody List<HitDto> hitDtos) {
+        log.info("Stat server: POST hits batch size={}", hitDtos.size());
+        return statService.addHits(hitDtos);
+    }
+
+    @PostMapping(value = "/hits/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public HitBatchResultDto addHitsNdjson(InputStream body) throws IOException {
+        NdjsonHits hits = readNdjson(body);
+        log.info("Stat server: POST hits batch (ndjson) size={}", hits.getHits().size());
+        return statService.addHits(hits.getHits(), hits.getParseErrors());
+    }
+
+    @PostMapping(value = "/hits/batch", consumes = StatBinaryCodec.MEDIA_TYPE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public HitBatchResultDto addHitsBinary(@RequestBody byte[] frame) {
+        log.info("Stat server: POST hits batch (binary) bytes={}", frame.length);
+        return statService.addEncodedHits(frame);
+    }
+
     @GetMapping("/stats")
     @ResponseStatus(HttpStatus.OK)
     public List<StatDto> getStats(@RequestParam String start,
@@ -36,7 +84,85 @@ public class StatController {
                                   @RequestParam(required = false) String[] uris,
                                   @RequestParam(defaultValue = "false") boolean unique) {
         log.info("Stat server: GET stats start={}, end={}, uris={}, unique={}", start, end, uris, unique);
-        return statService.getStats(LocalDateTime.parse(start, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")),
-                LocalDateTime.parse(end, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")), uris, unique);
+        return statService.getStats(LocalDateTime.parse(start, DATE_TIME_FORMATTER),
+                LocalDateTime.parse(end, DATE_TIME_FORMATTER), uris, unique);
+    }
+
+    @GetMapping(value = "/stats", produces = StatBinaryCodec.MEDIA_TYPE)
+    @ResponseStatus(HttpStatus.OK)
+    public byte[] getStatsBinary(@RequestParam String start,
+                                 @RequestParam String end,
+                                 @RequestParam(required = false) String[] uris,
+                                 @RequestParam(defaultValue = "false") boolean unique) {
+        return StatBinaryCodec.encodeStats(getStats(start, end, uris, unique));
+    }
+
+    @GetMapping(value = "/stats", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamStats(@RequestParam String start,
+                                                             @RequestParam String end,
+                                                             @RequestParam(required = false) String[] uris,
+                                                             @RequestParam(defaultValue = "false") boolean unique) {
+        log.info("Stat server: GET stats (ndjson) start={}, end={}, uris={}, unique={}", start, end, uris, unique);
+        LocalDateTime startTime = LocalDateTime.parse(start, DATE_TIME_FORMATTER);
+        LocalDateTime endTime = LocalDateTime.parse(end, DATE_TIME_FORMATTER);
+        if (startTime.isAfter(endTime)) {
+            throw new ValidationRequestException("Дата старта должна быть раньше даты конца");
+        }
+        StreamingResponseBody body = outputStream -> {
+            OutputStream out = new BufferedOutputStream(outputStream);
+            try {
+                statService.streamStats(startTime, endTime, uris, unique, stat -> writeLine(out, stat));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @GetMapping("/stats/timeseries")
+    @ResponseStatus(HttpStatus.OK)
+    public List<StatSeriesDto> getTimeSeries(@RequestParam String start,
+                                             @RequestParam String end,
+                                             @RequestParam(required = false) String[] uris,
+                                             @RequestParam(defaultValue = "hour") String step) {
+        log.info("Stat server: GET timeseries start={}, end={}, uris={}, step={}", start, end, uris, step);
+        return statService.getTimeSeries(LocalDateTime.parse(start, DATE_TIME_FORMATTER),
+                LocalDateTime.parse(end, DATE_TIME_FORMATTER), uris, step);
+    }
+
+    @GetMapping("/stats/top")
+    @ResponseStatus(HttpStatus.OK)
+    public List<TopStatDto> getTopStats(@RequestParam(defaultValue = "10") int k,
+                                        @RequestParam(defaultValue = "1h") String window) {
+        log.info("Stat server: GET top stats k={}, window={}", k, window);
+        Duration windowDuration;
+        try {
+            windowDuration = DurationStyle.detectAndParse(window);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationRequestException("Некорректное окно: " + window);
+        }
+        return heavyHitterService.top(k, windowDuration);
+    }
+
+    private void writeLine(OutputStream out, StatDto stat) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(stat));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private NdjsonHits readNdjson(InputStream body) throws IOException {
+        NdjsonHits hits = new NdjsonHits(objectMapper);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            hits.add(line);
+        }
+        return hits;
     }
-}
\ No newline at end of file
+}
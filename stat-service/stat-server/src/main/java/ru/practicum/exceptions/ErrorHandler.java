@@ -4,12 +4,13 @@ import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import ru.practicum.controller.ReactiveStatController;
 import ru.practicum.controller.StatController;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
-@RestControllerAdvice(assignableTypes = {StatController.class})
+@RestControllerAdvice(assignableTypes = {StatController.class, ReactiveStatController.class})
 public class ErrorHandler {
 
     @ExceptionHandler
@@ -18,4 +19,11 @@ public class ErrorHandler {
         return new ApiError("BAD_REQUEST", "Incorrectly made request.",
                 e.getMessage(), LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
     }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ApiError handleIngestionOverloadException(IngestionOverloadException e) {
+        return new ApiError("SERVICE_UNAVAILABLE", "Server is overloaded.",
+                e.getMessage(), LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,8 @@
+package ru.practicum.exceptions;
+
+public class IngestionOverloadException extends RuntimeException {
+
+    public IngestionOverloadException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,228 @@
+package ru.practicum.journal;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.StatBinaryCodec;
+import ru.practicum.model.Hit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only hit log made of fixed-size memory-mapped segment files named by a growing sequence number.
+ * <p>
+ * A record is its payload length, the payload's CRC32 and the payload itself; every append also writes a zero
+ * length after the last record. Reading stops at a zero length, at a record whose checksum does not match (a write
+ * torn by a crash) or at the end of the file, so a segment needs no separate trailer.
+ */
+@Slf4j
+public class HitJournal implements AutoCloseable {
+    private static final String SEGMENT_PREFIX = "hits-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final int RECORD_HEADER = 2 * Integer.BYTES;
+    private static final int MIN_SEGMENT_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean fsync;
+    private long activeSegment;
+    private MappedByteBuffer active;
+    private volatile JournalPosition head;
+
+    public HitJournal(Path directory, int segmentSize, boolean fsync) throws IOException {
+        if (segmentSize < MIN_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Размер сегмента журнала должен быть не меньше " + MIN_SEGMENT_SIZE);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+        Files.createDirectories(directory);
+        List<Long> segments = listSegments();
+        if (segments.isEmpty()) {
+            openSegment(1);
+        } else {
+            openSegment(segments.get(segments.size() - 1));
+            while (readRecord(active) != null) {
+                // skip to the end of what was written before the restart
+            }
+            terminate();
+            log.info("Журнал просмотров открыт: сегментов {}, запись продолжается с {}:{}", segments.size(),
+                    activeSegment, active.position());
+        }
+        head = new JournalPosition(activeSegment, active.position());
+    }
+
+    public synchronized void append(List<Hit> hits) throws IOException {
+        for (Hit hit : hits) {
+            byte[] payload = encode(hit);
+            if (RECORD_HEADER + payload.length + Integer.BYTES > segmentSize) {
+                throw new IllegalArgumentException("Запись не помещается в сегмент журнала: " + payload.length);
+            }
+            if (active.remaining() < RECORD_HEADER + payload.length) {
+                rotate();
+            }
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            active.putInt(payload.length);
+            active.putInt((int) crc.getValue());
+            active.put(payload);
+            terminate();
+        }
+        if (fsync) {
+            active.force();
+        }
+        head = new JournalPosition(activeSegment, active.position());
+    }
+
+    public JournalPosition head() {
+        return head;
+    }
+
+    public JournalPosition first() throws IOException {
+        List<Long> segments = listSegments();
+        return new JournalPosition(segments.isEmpty() ? head.segment() : segments.get(0), 0);
+    }
+
+    /**
+     * Reads up to maxRecords records of one segment starting at the given position. When a sealed segment is
+     * exhausted, the returned position points at the start of the next one.
+     */
+    public JournalBatch read(JournalPosition from, int maxRecords) throws IOException {
+        JournalPosition end = head;
+        if (from.compareTo(end) >= 0) {
+            return new JournalBatch(List.of(), from);
+        }
+        boolean sealed = from.segment() < end.segment();
+        Path path = segmentPath(from.segment());
+        if (!Files.exists(path)) {
+            return new JournalBatch(List.of(), sealed ? new JournalPosition(from.segment() + 1, 0) : from);
+        }
+        List<Hit> hits = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            int limit = sealed ? (int) Math.min(channel.size(), segmentSize) : end.offset();
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, limit);
+            buffer.position(from.offset());
+            while (hits.size() < maxRecords) {
+                Hit hit = readRecord(buffer);
+                if (hit == null) {
+                    return new JournalBatch(hits, sealed
+                            ? new JournalPosition(from.segment() + 1, 0)
+                            : new JournalPosition(from.segment(), buffer.position()));
+                }
+                hits.add(hit);
+            }
+            return new JournalBatch(hits, new JournalPosition(from.segment(), buffer.position()));
+        }
+    }
+
+    /**
+     * Deletes sealed segments that precede the given one.
+     */
+    public void deleteBefore(long segment) throws IOException {
+        for (long existing : listSegments()) {
+            if (existing < segment && existing < head.segment()) {
+                Files.deleteIfExists(segmentPath(existing));
+                log.debug("Сегмент журнала {} загружен и удалён", existing);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        active.force();
+    }
+
+    private void rotate() throws IOException {
+        active.force();
+        openSegment(activeSegment + 1);
+    }
+
+    private void openSegment(long segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            active = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+        activeSegment = segment;
+    }
+
+    private void terminate() {
+        if (active.remaining() >= Integer.BYTES) {
+            active.putInt(active.position(), 0);
+        }
+    }
+
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    private static Hit readRecord(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.remaining() < RECORD_HEADER) {
+            return null;
+        }
+        int length = buffer.getInt();
+        int checksum = buffer.getInt();
+        if (length <= 0 || length > buffer.remaining()) {
+            buffer.position(start);
+            return null;
+        }
+        byte[] payload = new byte[length];
+        buffer.get(payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        if ((int) crc.getValue() != checksum) {
+            buffer.position(start);
+            return null;
+        }
+        return decode(ByteBuffer.wrap(payload));
+    }
+
+    private static byte[] encode(Hit hit) {
+        byte[] app = hit.getApp().getBytes(StandardCharsets.UTF_8);
+        byte[] uri = hit.getUri().getBytes(StandardCharsets.UTF_8);
+        byte[] ip = hit.getIp().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(3 * Integer.BYTES + app.length + uri.length + ip.length
+                + Long.BYTES);
+        payload.putInt(app.length).put(app);
+        payload.putInt(uri.length).put(uri);
+        payload.putInt(ip.length).put(ip);
+        payload.putLong(StatBinaryCodec.toEpochMillis(hit.getTimestamp()));
+        return payload.array();
+    }
+
+    private static Hit decode(ByteBuffer payload) {
+        return Hit.builder()
+                .app(readString(payload))
+                .uri(readString(payload))
+                .ip(readString(payload))
+                .timestamp(StatBinaryCodec.toLocalDateTime(payload.getLong()))
+                .build();
+    }
+
+    private static String readString(ByteBuffer payload) {
+        int length = payload.getInt();
+        String value = new String(payload.array(), payload.position(), length, StandardCharsets.UTF_8);
+        payload.position(payload.position() + length);
+        return value;
+    }
+}
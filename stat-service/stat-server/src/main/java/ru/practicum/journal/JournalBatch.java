@@ -0,0 +1,8 @@
+package ru.practicum.journal;
+
+import ru.practicum.model.Hit;
+
+import java.util.List;
+
+public record JournalBatch(List<Hit> hits, JournalPosition next) {
+}
@@ -0,0 +1,14 @@
+package ru.practicum.journal;
+
+import java.util.Comparator;
+
+public record JournalPosition(long segment, int offset) implements Comparable<JournalPosition> {
+    private static final Comparator<JournalPosition> ORDER = Comparator
+            .comparingLong(JournalPosition::segment)
+            .thenComparingInt(JournalPosition::offset);
+
+    @Override
+    public int compareTo(JournalPosition other) {
+        return ORDER.compare(this, other);
+    }
+}
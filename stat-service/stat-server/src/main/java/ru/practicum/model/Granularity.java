@@ -0,0 +1,41 @@
+package ru.practicum.model;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+public enum Granularity {
+    RAW(null),
+    MINUTE(ChronoUnit.MINUTES),
+    HOUR(ChronoUnit.HOURS),
+    DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    Granularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    public LocalDateTime floor(LocalDateTime time) {
+        return unit == null ? time : time.truncatedTo(unit);
+    }
+
+    public LocalDateTime ceil(LocalDateTime time) {
+        LocalDateTime floor = floor(time);
+        return floor.equals(time) ? floor : floor.plus(1, unit);
+    }
+
+    public LocalDateTime plus(LocalDateTime bucket, long buckets) {
+        return bucket.plus(buckets, unit);
+    }
+
+    /**
+     * Number of bucket boundaries crossed going from one time to another.
+     */
+    public long bucketsBetween(LocalDateTime from, LocalDateTime to) {
+        return unit.between(floor(from), floor(to));
+    }
+
+    public Granularity finer() {
+        return this == RAW ? RAW : values()[ordinal() - 1];
+    }
+}
@@ -0,0 +1,89 @@
+package ru.practicum.model;
+
+import ru.practicum.HitBatchErrorDto;
+import ru.practicum.HitBatchResultDto;
+import ru.practicum.HitDto;
+import ru.practicum.StatBinaryCodec;
+import ru.practicum.exceptions.ValidationRequestException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hits of one batch request that passed validation, with the position and reason of every entry that did not.
+ */
+public record HitBatch(List<Hit> hits, List<HitBatchErrorDto> errors) {
+
+    public static HitBatch of(List<HitDto> hitDtos, int maxBatchSize) {
+        return of(hitDtos, Map.of(), maxBatchSize);
+    }
+
+    /**
+     * Validates a batch in which the entries at the positions of {@code parseErrors} could not be read at all; they
+     * are refused with their parse error.
+     */
+    public static HitBatch of(List<HitDto> hitDtos, Map<Integer, String> parseErrors, int maxBatchSize) {
+        if (hitDtos.size() > maxBatchSize) {
+            throw new ValidationRequestException("Размер пакета не должен превышать " + maxBatchSize);
+        }
+        List<Hit> hits = new ArrayList<>(hitDtos.size());
+        List<HitBatchErrorDto> errors = new ArrayList<>();
+        for (int i = 0; i < hitDtos.size(); i++) {
+            String parseError = parseErrors.get(i);
+            if (parseError != null) {
+                errors.add(HitBatchErrorDto.builder()
+                        .index(i)
+                        .message(parseError)
+                        .build());
+                continue;
+            }
+            try {
+                hits.add(HitMapper.toHit(hitDtos.get(i)));
+            } catch (ValidationRequestException e) {
+                errors.add(toError(i, e));
+            }
+        }
+        return new HitBatch(hits, errors);
+    }
+
+    public static HitBatch decode(byte[] frame, int maxBatchSize) {
+        List<Hit> hits = new ArrayList<>();
+        List<HitBatchErrorDto> errors = new ArrayList<>();
+        try {
+            StatBinaryCodec.decodeHits(frame, (app, uri, ip, timestamp) -> {
+                int index = hits.size() + errors.size();
+                if (index >= maxBatchSize) {
+                    throw new ValidationRequestException("Размер пакета не должен превышать " + maxBatchSize);
+                }
+                try {
+                    hits.add(HitMapper.toHit(app, uri, ip, timestamp));
+                } catch (ValidationRequestException e) {
+                    errors.add(toError(index, e));
+                }
+            });
+        } catch (IllegalArgumentException e) {
+            throw new ValidationRequestException(e.getMessage());
+        }
+        return new HitBatch(hits, errors);
+    }
+
+    /**
+     * Reports the batch after its valid hits were recorded, of which {@code kept} were stored and the rest were
+     * recognised as duplicates of hits already seen.
+     */
+    public HitBatchResultDto toResult(int kept) {
+        return HitBatchResultDto.builder()
+                .accepted(kept)
+                .rejected(errors.size())
+                .duplicates(hits.size() - kept)
+                .errors(errors)
+                .build();
+    }
+
+    private static HitBatchErrorDto toError(int index, ValidationRequestException e) {
+        return HitBatchErrorDto.builder()
+                .index(index)
+                .message(e.getMessage())
+                .build();
+    }
+}
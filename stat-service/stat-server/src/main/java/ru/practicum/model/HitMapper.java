@@ -1,20 +1,68 @@
 package ru.practicum.model;
 
 import ru.practicum.HitDto;
+import ru.practicum.StatBinaryCodec;
+import ru.practicum.exceptions.ValidationRequestException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 
 public class HitMapper {
+    private static final int MAX_IP_LENGTH = 40;
+    private static final int MAX_LENGTH = 255;
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     private HitMapper() {
     }
 
     public static Hit toHit(HitDto hitDto) {
+        validate(hitDto);
         return Hit.builder()
                 .app(hitDto.getApp())
                 .uri(hitDto.getUri())
                 .ip(hitDto.getIp())
-                .timestamp(LocalDateTime.parse(hitDto.getTimestamp(), DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")))
+                .timestamp(parseTimestamp(hitDto.getTimestamp()))
                 .build();
     }
-}
\ No newline at end of file
+
+    public static Hit toHit(String app, String uri, String ip, long timestamp) {
+        if (app == null || uri == null || ip == null || timestamp == StatBinaryCodec.NO_TIMESTAMP) {
+            throw new ValidationRequestException("Поля app, uri, ip и timestamp обязательны");
+        }
+        validateLengths(app, uri, ip);
+        return Hit.builder()
+                .app(app)
+                .uri(uri)
+                .ip(ip)
+                .timestamp(StatBinaryCodec.toLocalDateTime(timestamp))
+                .build();
+    }
+
+    private static void validate(HitDto hitDto) {
+        if (hitDto == null) {
+            throw new ValidationRequestException("Запись hit не может быть пустой");
+        }
+        if (hitDto.getApp() == null || hitDto.getUri() == null || hitDto.getIp() == null
+                || hitDto.getTimestamp() == null) {
+            throw new ValidationRequestException("Поля app, uri, ip и timestamp обязательны: " + hitDto);
+        }
+        validateLengths(hitDto.getApp(), hitDto.getUri(), hitDto.getIp());
+    }
+
+    private static void validateLengths(String app, String uri, String ip) {
+        if (ip.length() > MAX_IP_LENGTH) {
+            throw new ValidationRequestException("Некорректный ip: " + ip);
+        }
+        if (app.length() > MAX_LENGTH || uri.length() > MAX_LENGTH) {
+            throw new ValidationRequestException("Поля app и uri не должны быть длиннее " + MAX_LENGTH + " символов");
+        }
+    }
+
+    private static LocalDateTime parseTimestamp(String timestamp) {
+        try {
+            return LocalDateTime.parse(timestamp, TIMESTAMP_FORMATTER);
+        } catch (DateTimeParseException e) {
+            throw new ValidationRequestException("Некорректный timestamp: " + timestamp);
+        }
+    }
+}
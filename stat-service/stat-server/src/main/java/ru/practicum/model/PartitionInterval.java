@@ -0,0 +1,41 @@
+package ru.practicum.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+
+public enum PartitionInterval {
+    DAY(DateTimeFormatter.ofPattern("yyyyMMdd")),
+    MONTH(DateTimeFormatter.ofPattern("yyyyMM"));
+
+    private final DateTimeFormatter suffixFormatter;
+
+    PartitionInterval(DateTimeFormatter suffixFormatter) {
+        this.suffixFormatter = suffixFormatter;
+    }
+
+    public static PartitionInterval ofSuffix(String suffix) {
+        return suffix.length() == 8 ? DAY : MONTH;
+    }
+
+    public LocalDateTime floor(LocalDateTime time) {
+        LocalDateTime day = time.truncatedTo(ChronoUnit.DAYS);
+        return this == DAY ? day : day.withDayOfMonth(1);
+    }
+
+    public LocalDateTime next(LocalDateTime start) {
+        return this == DAY ? start.plusDays(1) : start.plusMonths(1);
+    }
+
+    public String suffix(LocalDateTime start) {
+        return suffixFormatter.format(start);
+    }
+
+    public LocalDateTime parseSuffix(String suffix) {
+        return this == DAY
+                ? LocalDate.parse(suffix, suffixFormatter).atStartOfDay()
+                : YearMonth.parse(suffix, suffixFormatter).atDay(1).atStartOfDay();
+    }
+}
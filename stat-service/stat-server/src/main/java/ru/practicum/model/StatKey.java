@@ -0,0 +1,4 @@
+package ru.practicum.model;
+
+public record StatKey(String app, String uri) {
+}
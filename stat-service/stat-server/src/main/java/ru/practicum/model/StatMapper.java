@@ -1,8 +1,16 @@
 package ru.practicum.model;
 
 import ru.practicum.StatDto;
+import ru.practicum.StatPointDto;
+import ru.practicum.StatSeriesDto;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 
 public class StatMapper {
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     private StatMapper() {
     }
@@ -14,4 +22,22 @@ public class StatMapper {
                 .hits(stat.getHits().intValue())
                 .build();
     }
-}
\ No newline at end of file
+
+    public static StatSeriesDto toStatSeriesDto(StatKey key, long[] hits, LocalDateTime first, Granularity step) {
+        List<StatPointDto> points = new ArrayList<>(hits.length);
+        long total = 0;
+        for (int i = 0; i < hits.length; i++) {
+            points.add(StatPointDto.builder()
+                    .timestamp(step.plus(first, i).format(TIMESTAMP_FORMATTER))
+                    .hits(hits[i])
+                    .build());
+            total += hits[i];
+        }
+        return StatSeriesDto.builder()
+                .app(key.app())
+                .uri(key.uri())
+                .hits(total)
+                .points(points)
+                .build();
+    }
+}
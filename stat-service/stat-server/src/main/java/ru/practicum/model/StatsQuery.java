@@ -0,0 +1,23 @@
+package ru.practicum.model;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A /stats request normalized for caching: half-open [from, to) range and sorted distinct uris, null for all uris.
+ */
+public record StatsQuery(LocalDateTime from, LocalDateTime to, List<String> uris, boolean unique) {
+
+    public static StatsQuery of(LocalDateTime from, LocalDateTime to, String[] uris, boolean unique) {
+        return new StatsQuery(from, to, uris == null ? null : Arrays.stream(uris).distinct().sorted().toList(), unique);
+    }
+
+    public String[] urisArray() {
+        return uris == null ? null : uris.toArray(new String[0]);
+    }
+
+    public boolean covers(LocalDateTime timestamp) {
+        return !timestamp.isBefore(from) && timestamp.isBefore(to);
+    }
+}
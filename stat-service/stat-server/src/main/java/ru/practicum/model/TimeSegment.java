@@ -0,0 +1,39 @@
+package ru.practicum.model;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public record TimeSegment(Granularity granularity, LocalDateTime from, LocalDateTime to) {
+
+    public static List<TimeSegment> cover(LocalDateTime from, LocalDateTime to, Granularity coarsest) {
+        return cover(from, to, coarsest, Granularity.MINUTE);
+    }
+
+    public static List<TimeSegment> cover(LocalDateTime from, LocalDateTime to, Granularity coarsest,
+                                          Granularity finest) {
+        List<TimeSegment> segments = new ArrayList<>();
+        cover(from, to, coarsest, finest, segments);
+        return segments;
+    }
+
+    private static void cover(LocalDateTime from, LocalDateTime to, Granularity granularity, Granularity finest,
+                              List<TimeSegment> segments) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        if (granularity == Granularity.RAW || granularity.compareTo(finest) < 0) {
+            segments.add(new TimeSegment(Granularity.RAW, from, to));
+            return;
+        }
+        LocalDateTime first = granularity.ceil(from);
+        LocalDateTime last = granularity.floor(to);
+        if (!first.isBefore(last)) {
+            cover(from, to, granularity.finer(), finest, segments);
+            return;
+        }
+        cover(from, first, granularity.finer(), finest, segments);
+        segments.add(new TimeSegment(granularity, first, last));
+        cover(last, to, granularity.finer(), finest, segments);
+    }
+}
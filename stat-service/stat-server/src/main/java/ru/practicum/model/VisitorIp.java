@@ -0,0 +1,4 @@
+package ru.practicum.model;
+
+public record VisitorIp(String app, String uri, String ip) {
+}
@@ -0,0 +1,96 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.model.RollupKey;
+import ru.practicum.model.Stat;
+import ru.practicum.model.TimeSegment;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+public class HitRollupRepository {
+    private static final String UPSERT_POSTGRESQL = "INSERT INTO stat_rollups (granularity, bucket, app, uri, hits) "
+            + "VALUES (?, ?, ?, ?, ?) "
+            + "ON CONFLICT (granularity, bucket, app, uri) DO UPDATE SET hits = stat_rollups.hits + EXCLUDED.hits";
+    private static final String UPSERT_H2 = "MERGE INTO stat_rollups t USING (VALUES (CAST(? AS VARCHAR(10)), "
+            + "CAST(? AS TIMESTAMP), CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)), CAST(? AS BIGINT))) "
+            + "s (granularity, bucket, app, uri, hits) "
+            + "ON t.granularity = s.granularity AND t.bucket = s.bucket AND t.app = s.app AND t.uri = s.uri "
+            + "WHEN MATCHED THEN UPDATE SET hits = t.hits + s.hits "
+            + "WHEN NOT MATCHED THEN INSERT (granularity, bucket, app, uri, hits) "
+            + "VALUES (s.granularity, s.bucket, s.app, s.uri, s.hits)";
+    private static final String SUM_HITS = "SELECT app, uri, SUM(hits) AS hits FROM stat_rollups "
+            + "WHERE granularity = :granularity AND bucket >= :from AND bucket < :to ";
+    private static final String FIND_HITS = "SELECT bucket, app, uri, hits FROM stat_rollups "
+            + "WHERE granularity = :granularity AND bucket >= :from AND bucket < :to ";
+    private static final Comparator<RollupKey> KEY_ORDER = Comparator
+            .comparing(RollupKey::granularity)
+            .thenComparing(RollupKey::bucket)
+            .thenComparing(RollupKey::app)
+            .thenComparing(RollupKey::uri);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final SqlDialect sqlDialect;
+
+    public void increment(Map<RollupKey, Long> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<RollupKey, Long>> entries = new ArrayList<>(deltas.entrySet());
+        entries.sort(Map.Entry.comparingByKey(KEY_ORDER));
+        String sql = sqlDialect == SqlDialect.H2 ? UPSERT_H2 : UPSERT_POSTGRESQL;
+        jdbcTemplate.batchUpdate(sql, entries, entries.size(), (ps, entry) -> {
+            RollupKey key = entry.getKey();
+            ps.setString(1, key.granularity().name());
+            ps.setTimestamp(2, Timestamp.valueOf(key.bucket()));
+            ps.setString(3, key.app());
+            ps.setString(4, key.uri());
+            ps.setLong(5, entry.getValue());
+        });
+    }
+
+    public List<Stat> sumHits(TimeSegment segment, String[] uris) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("granularity", segment.granularity().name())
+                .addValue("from", Timestamp.valueOf(segment.from()))
+                .addValue("to", Timestamp.valueOf(segment.to()));
+        String sql = SUM_HITS;
+        if (uris != null) {
+            sql += "AND uri IN (:uris) ";
+            parameters.addValue("uris", Arrays.asList(uris));
+        }
+        sql += "GROUP BY app, uri";
+        return namedJdbcTemplate.query(sql, parameters, (rs, rowNum) ->
+                new Stat(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+    }
+
+    public Map<RollupKey, Long> findHits(TimeSegment segment, String[] uris) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("granularity", segment.granularity().name())
+                .addValue("from", Timestamp.valueOf(segment.from()))
+                .addValue("to", Timestamp.valueOf(segment.to()));
+        String sql = FIND_HITS;
+        if (uris != null) {
+            sql += "AND uri IN (:uris)";
+            parameters.addValue("uris", Arrays.asList(uris));
+        }
+        Map<RollupKey, Long> hits = new HashMap<>();
+        namedJdbcTemplate.query(sql, parameters, rs -> {
+            hits.put(new RollupKey(segment.granularity(), rs.getTimestamp("bucket").toLocalDateTime(),
+                    rs.getString("app"), rs.getString("uri")), rs.getLong("hits"));
+        });
+        return hits;
+    }
+}
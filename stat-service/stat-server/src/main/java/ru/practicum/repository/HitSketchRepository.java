@@ -0,0 +1,116 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.model.Granularity;
+import ru.practicum.model.RollupKey;
+import ru.practicum.model.StatKey;
+import ru.practicum.model.TimeSegment;
+import ru.practicum.sketch.HyperLogLog;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+@Repository
+@RequiredArgsConstructor
+public class HitSketchRepository {
+    private static final String INSERT_IF_ABSENT_POSTGRESQL = "INSERT INTO stat_sketches "
+            + "(granularity, bucket, app, uri, sketch) VALUES (?, ?, ?, ?, ?) "
+            + "ON CONFLICT (granularity, bucket, app, uri) DO NOTHING";
+    private static final String INSERT_IF_ABSENT_H2 = "MERGE INTO stat_sketches t USING (VALUES "
+            + "(CAST(? AS VARCHAR(10)), CAST(? AS TIMESTAMP), CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)), "
+            + "CAST(? AS VARBINARY))) s (granularity, bucket, app, uri, sketch) "
+            + "ON t.granularity = s.granularity AND t.bucket = s.bucket AND t.app = s.app AND t.uri = s.uri "
+            + "WHEN NOT MATCHED THEN INSERT (granularity, bucket, app, uri, sketch) "
+            + "VALUES (s.granularity, s.bucket, s.app, s.uri, s.sketch)";
+    private static final String SELECT_FOR_UPDATE = "SELECT sketch FROM stat_sketches "
+            + "WHERE granularity = ? AND bucket = ? AND app = ? AND uri = ? FOR UPDATE";
+    private static final String UPDATE_SKETCH = "UPDATE stat_sketches SET sketch = ? "
+            + "WHERE granularity = ? AND bucket = ? AND app = ? AND uri = ?";
+    private static final String SELECT_SKETCHES = "SELECT app, uri, sketch FROM stat_sketches "
+            + "WHERE granularity = :granularity AND bucket >= :from AND bucket < :to ";
+    private static final String SELECT_BUCKETS = "SELECT DISTINCT bucket FROM stat_sketches "
+            + "WHERE granularity = ? AND bucket >= ? AND bucket < ?";
+    private static final String SELECT_UNSKETCHED_HOURS = "SELECT h.bucket FROM (SELECT DATE_TRUNC('hour', timestamp) "
+            + "AS bucket FROM statistics WHERE timestamp >= ? AND timestamp < ? "
+            + "GROUP BY DATE_TRUNC('hour', timestamp)) h WHERE NOT EXISTS (SELECT 1 FROM stat_sketches k "
+            + "WHERE k.granularity = 'HOUR' AND k.bucket = h.bucket) ORDER BY h.bucket";
+    private static final Comparator<RollupKey> KEY_ORDER = Comparator
+            .comparing(RollupKey::granularity)
+            .thenComparing(RollupKey::bucket)
+            .thenComparing(RollupKey::app)
+            .thenComparing(RollupKey::uri);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final SqlDialect sqlDialect;
+
+    @Transactional
+    public void mergeAll(Map<RollupKey, HyperLogLog> sketches) {
+        List<RollupKey> keys = new ArrayList<>(sketches.keySet());
+        keys.sort(KEY_ORDER);
+        String insertIfAbsent = sqlDialect == SqlDialect.H2 ? INSERT_IF_ABSENT_H2 : INSERT_IF_ABSENT_POSTGRESQL;
+        for (RollupKey key : keys) {
+            HyperLogLog sketch = sketches.get(key);
+            Timestamp bucket = Timestamp.valueOf(key.bucket());
+            int inserted = jdbcTemplate.update(insertIfAbsent, key.granularity().name(), bucket, key.app(),
+                    key.uri(), sketch.toBytes());
+            if (inserted > 0) {
+                continue;
+            }
+            byte[] stored = jdbcTemplate.queryForObject(SELECT_FOR_UPDATE, byte[].class, key.granularity().name(),
+                    bucket, key.app(), key.uri());
+            HyperLogLog merged = HyperLogLog.fromBytes(stored);
+            if (merged.getPrecision() > sketch.getPrecision()) {
+                merged = merged.foldTo(sketch.getPrecision());
+            }
+            merged.merge(sketch);
+            jdbcTemplate.update(UPDATE_SKETCH, merged.toBytes(), key.granularity().name(), bucket, key.app(),
+                    key.uri());
+        }
+    }
+
+    public void forEachSketch(TimeSegment segment, String[] uris, BiConsumer<StatKey, HyperLogLog> consumer) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("granularity", segment.granularity().name())
+                .addValue("from", Timestamp.valueOf(segment.from()))
+                .addValue("to", Timestamp.valueOf(segment.to()));
+        String sql = SELECT_SKETCHES;
+        if (uris != null) {
+            sql += "AND uri IN (:uris)";
+            parameters.addValue("uris", Arrays.asList(uris));
+        }
+        namedJdbcTemplate.query(sql, parameters, rs -> {
+            consumer.accept(new StatKey(rs.getString("app"), rs.getString("uri")),
+                    HyperLogLog.fromBytes(rs.getBytes("sketch")));
+        });
+    }
+
+    /**
+     * Buckets in [from, to) that have a sketch of the given granularity.
+     */
+    public Set<LocalDateTime> findBuckets(Granularity granularity, LocalDateTime from, LocalDateTime to) {
+        return new HashSet<>(jdbcTemplate.query(SELECT_BUCKETS, (rs, rowNum) -> rs.getTimestamp(1).toLocalDateTime(),
+                granularity.name(), Timestamp.valueOf(from), Timestamp.valueOf(to)));
+    }
+
+    /**
+     * Hours in [from, to) that have raw hits but no hour sketch, found with one grouped query.
+     */
+    public List<LocalDateTime> findUnsketchedHours(LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query(SELECT_UNSKETCHED_HOURS, (rs, rowNum) -> rs.getTimestamp(1).toLocalDateTime(),
+                Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+}
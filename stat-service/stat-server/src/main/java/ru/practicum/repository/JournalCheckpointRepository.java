@@ -0,0 +1,34 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.journal.JournalPosition;
+
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+public class JournalCheckpointRepository {
+    private static final String UPSERT_POSTGRESQL = "INSERT INTO stat_journal_checkpoints "
+            + "(node, segment_no, segment_offset) VALUES (?, ?, ?) "
+            + "ON CONFLICT (node) DO UPDATE SET segment_no = EXCLUDED.segment_no, "
+            + "segment_offset = EXCLUDED.segment_offset";
+    private static final String UPSERT_H2 = "MERGE INTO stat_journal_checkpoints "
+            + "(node, segment_no, segment_offset) KEY (node) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SqlDialect sqlDialect;
+
+    public Optional<JournalPosition> find(String node) {
+        return jdbcTemplate.query("SELECT segment_no, segment_offset FROM stat_journal_checkpoints WHERE node = ?",
+                (rs, rowNum) -> new JournalPosition(rs.getLong("segment_no"), rs.getInt("segment_offset")), node)
+                .stream()
+                .findFirst();
+    }
+
+    public void save(String node, JournalPosition position) {
+        jdbcTemplate.update(sqlDialect == SqlDialect.H2 ? UPSERT_H2 : UPSERT_POSTGRESQL, node, position.segment(),
+                position.offset());
+    }
+}
@@ -0,0 +1,83 @@
+package ru.practicum.repository;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.practicum.model.Hit;
+
+import java.util.List;
+
+/**
+ * Writes raw hits through a non-blocking R2DBC driver. The connection pool is kept inside the repository rather than
+ * exposed as a bean, so the JDBC data source the rest of the server runs on is still auto-configured.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveHitRepository {
+    private static final String INSERT_HIT = "INSERT INTO statistics (app, uri, ip, timestamp) VALUES ($1, $2, $3, $4)";
+
+    private final ConnectionPool connectionPool;
+
+    public ReactiveHitRepository(@Value("${stat-server.reactive.r2dbc.url}") String url,
+                                 @Value("${stat-server.reactive.r2dbc.username:}") String username,
+                                 @Value("${stat-server.reactive.r2dbc.password:}") String password,
+                                 @Value("${stat-server.reactive.r2dbc.pool-size:8}") int poolSize) {
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(url).mutate();
+        if (!username.isEmpty()) {
+            options.option(ConnectionFactoryOptions.USER, username);
+        }
+        if (!password.isEmpty()) {
+            options.option(ConnectionFactoryOptions.PASSWORD, password);
+        }
+        this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration
+                .builder(ConnectionFactories.get(options.build()))
+                .initialSize(1)
+                .maxSize(poolSize)
+                .build());
+    }
+
+    /**
+     * Inserts the hits as one multi-binding statement in a single transaction and emits the number of rows written.
+     */
+    public Mono<Long> saveAll(List<Hit> hits) {
+        if (hits.isEmpty()) {
+            return Mono.just(0L);
+        }
+        return Mono.usingWhen(connectionPool.create(), connection -> insert(connection, hits), Connection::close);
+    }
+
+    @PreDestroy
+    public void close() {
+        connectionPool.dispose();
+    }
+
+    private Mono<Long> insert(Connection connection, List<Hit> hits) {
+        Statement statement = connection.createStatement(INSERT_HIT);
+        for (int i = 0; i < hits.size(); i++) {
+            if (i > 0) {
+                statement.add();
+            }
+            Hit hit = hits.get(i);
+            statement.bind(0, hit.getApp())
+                    .bind(1, hit.getUri())
+                    .bind(2, hit.getIp())
+                    .bind(3, hit.getTimestamp());
+        }
+        return Mono.from(connection.beginTransaction())
+                .thenMany(Flux.from(statement.execute()))
+                .flatMap(Result::getRowsUpdated)
+                .reduce(0L, Long::sum)
+                .flatMap(rows -> Mono.from(connection.commitTransaction()).thenReturn(rows))
+                .onErrorResume(e -> Mono.from(connection.rollbackTransaction()).then(Mono.error(e)));
+    }
+}
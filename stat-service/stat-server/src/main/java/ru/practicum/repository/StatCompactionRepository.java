@@ -0,0 +1,52 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+@Repository
+@RequiredArgsConstructor
+public class StatCompactionRepository {
+    private static final String TABLE = "statistics";
+    private static final String UPSERT_POSTGRESQL = "INSERT INTO stat_compaction (name, watermark) VALUES (?, ?) "
+            + "ON CONFLICT (name) DO UPDATE SET watermark = EXCLUDED.watermark";
+    private static final String UPSERT_H2 = "MERGE INTO stat_compaction (name, watermark) KEY (name) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SqlDialect sqlDialect;
+
+    public LocalDateTime findWatermark() {
+        return findWatermark(TABLE);
+    }
+
+    public void saveWatermark(LocalDateTime watermark) {
+        saveWatermark(TABLE, watermark);
+    }
+
+    /**
+     * Watermark of another background job over the raw hits, kept under its own name.
+     */
+    public LocalDateTime findWatermark(String name) {
+        return jdbcTemplate.query("SELECT watermark FROM stat_compaction WHERE name = ?",
+                        (rs, rowNum) -> rs.getTimestamp("watermark").toLocalDateTime(), name)
+                .stream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    public void saveWatermark(String name, LocalDateTime watermark) {
+        jdbcTemplate.update(sqlDialect == SqlDialect.H2 ? UPSERT_H2 : UPSERT_POSTGRESQL, name,
+                Timestamp.valueOf(watermark));
+    }
+
+    /**
+     * Deletes at most limit raw hits older than the given time; returns the number of deleted rows.
+     */
+    public int deleteBatchBefore(LocalDateTime before, int limit) {
+        return jdbcTemplate.update("DELETE FROM statistics WHERE id IN "
+                + "(SELECT id FROM statistics WHERE timestamp < ? LIMIT ?)", Timestamp.valueOf(before), limit);
+    }
+}
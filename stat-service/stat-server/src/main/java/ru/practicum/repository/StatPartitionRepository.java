@@ -0,0 +1,118 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.model.PartitionInterval;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class StatPartitionRepository {
+    public static final String PARTITION_PREFIX = "statistics_p";
+
+    private static final DateTimeFormatter BOUND_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String CREATE_PARTITIONED_TABLE = "CREATE TABLE statistics ("
+            + "id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL, "
+            + "app VARCHAR(255) NOT NULL, "
+            + "uri VARCHAR(255) NOT NULL, "
+            + "ip VARCHAR(40) NOT NULL, "
+            + "timestamp TIMESTAMP WITHOUT TIME ZONE NOT NULL, "
+            + "CONSTRAINT pk_stat PRIMARY KEY (id, timestamp)"
+            + ") PARTITION BY RANGE (timestamp)";
+    private static final String FIND_PARTITIONS = "SELECT c.relname FROM pg_inherits i "
+            + "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent "
+            + "WHERE p.relname = 'statistics' AND c.relname LIKE '" + PARTITION_PREFIX + "%' ORDER BY c.relname";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public boolean isLegacyTable() {
+        List<String> kinds = jdbcTemplate.queryForList("SELECT relkind::text FROM pg_class "
+                + "WHERE relname = 'statistics' AND pg_table_is_visible(oid)", String.class);
+        return kinds.contains("r");
+    }
+
+    /**
+     * Replaces an unpartitioned statistics table left by an older release with a partitioned one, moving its rows.
+     */
+    @Transactional
+    public void migrateLegacyTable(PartitionInterval interval) {
+        Timestamp first = jdbcTemplate.queryForObject("SELECT MIN(timestamp) FROM statistics", Timestamp.class);
+        Timestamp last = jdbcTemplate.queryForObject("SELECT MAX(timestamp) FROM statistics", Timestamp.class);
+        jdbcTemplate.execute("ALTER TABLE statistics RENAME TO statistics_legacy");
+        jdbcTemplate.execute("ALTER TABLE statistics_legacy RENAME CONSTRAINT pk_stat TO pk_stat_legacy");
+        jdbcTemplate.execute("ALTER INDEX IF EXISTS ix_statistics_timestamp "
+                + "RENAME TO ix_statistics_legacy_timestamp");
+        jdbcTemplate.execute("ALTER INDEX IF EXISTS ix_statistics_uri_timestamp "
+                + "RENAME TO ix_statistics_legacy_uri_timestamp");
+        jdbcTemplate.execute(CREATE_PARTITIONED_TABLE);
+        jdbcTemplate.execute("CREATE INDEX ix_statistics_timestamp ON statistics (timestamp)");
+        jdbcTemplate.execute("CREATE INDEX ix_statistics_uri_timestamp ON statistics (uri, timestamp)");
+        createDefaultPartition();
+        if (first != null) {
+            LocalDateTime end = last.toLocalDateTime();
+            for (LocalDateTime start = interval.floor(first.toLocalDateTime()); !start.isAfter(end);
+                 start = interval.next(start)) {
+                createPartition(interval, start);
+            }
+        }
+        jdbcTemplate.update("INSERT INTO statistics (id, app, uri, ip, timestamp) "
+                + "SELECT id, app, uri, ip, timestamp FROM statistics_legacy WHERE timestamp IS NOT NULL");
+        jdbcTemplate.queryForList("SELECT setval(pg_get_serial_sequence('statistics', 'id'), "
+                + "COALESCE(MAX(id), 0) + 1, false) FROM statistics");
+        jdbcTemplate.execute("DROP TABLE statistics_legacy");
+    }
+
+    public void createDefaultPartition() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS statistics_default PARTITION OF statistics DEFAULT");
+    }
+
+    public List<String> findPartitionNames() {
+        return jdbcTemplate.queryForList(FIND_PARTITIONS, String.class);
+    }
+
+    /**
+     * Creates the partition detached, moves matching rows out of the default partition and attaches it, so a
+     * partition can be added for a range that already received hits.
+     */
+    @Transactional
+    public void createPartition(PartitionInterval interval, LocalDateTime from) {
+        String name = PARTITION_PREFIX + interval.suffix(from);
+        LocalDateTime to = interval.next(from);
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE statistics INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        jdbcTemplate.update("WITH moved AS (DELETE FROM statistics_default WHERE timestamp >= ? AND timestamp < ? "
+                + "RETURNING id, app, uri, ip, timestamp) INSERT INTO " + name
+                + " (id, app, uri, ip, timestamp) SELECT id, app, uri, ip, timestamp FROM moved",
+                Timestamp.valueOf(from), Timestamp.valueOf(to));
+        jdbcTemplate.execute("ALTER TABLE statistics ATTACH PARTITION " + name + " FOR VALUES FROM ('"
+                + BOUND_FORMATTER.format(from) + "') TO ('" + BOUND_FORMATTER.format(to) + "')");
+    }
+
+    public void dropPartition(String name) {
+        jdbcTemplate.execute("DROP TABLE " + name);
+    }
+
+    public void detachPartition(String name) {
+        jdbcTemplate.execute("ALTER TABLE statistics DETACH PARTITION " + name);
+    }
+
+    public int deleteFromDefaultPartition(LocalDateTime before) {
+        return jdbcTemplate.update("DELETE FROM statistics_default WHERE timestamp < ?", Timestamp.valueOf(before));
+    }
+
+    public int deleteBefore(LocalDateTime before) {
+        return jdbcTemplate.update("DELETE FROM statistics WHERE timestamp < ?", Timestamp.valueOf(before));
+    }
+
+    @Transactional
+    public int archiveBefore(LocalDateTime before) {
+        jdbcTemplate.update("INSERT INTO statistics_archive (id, app, uri, ip, timestamp) "
+                + "SELECT id, app, uri, ip, timestamp FROM statistics WHERE timestamp < ?", Timestamp.valueOf(before));
+        return deleteBefore(before);
+    }
+}
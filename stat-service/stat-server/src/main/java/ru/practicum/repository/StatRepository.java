@@ -4,24 +4,47 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import ru.practicum.model.Hit;
 import ru.practicum.model.Stat;
+import ru.practicum.model.VisitorIp;
 import java.time.LocalDateTime;
 import java.util.List;
 
 public interface StatRepository extends JpaRepository<Hit, Long> {
 
     @Query(value = "SELECT new ru.practicum.model.Stat(s.app, s.uri, COUNT(s.uri)) FROM Hit s "
-            + "WHERE s.uri IN (?1) AND s.timestamp BETWEEN ?2 AND ?3 GROUP BY s.app, s.uri ORDER BY COUNT(s.uri) DESC")
-    List<Stat> findUris(String[] uri, LocalDateTime start, LocalDateTime end);
+            + "WHERE s.timestamp BETWEEN ?1 AND ?2 GROUP BY s.app, s.uri ORDER BY COUNT(s.uri) DESC")
+    List<Stat> findAllUris(LocalDateTime start, LocalDateTime end);
 
     @Query(value = "SELECT new ru.practicum.model.Stat(s.app, s.uri, COUNT(DISTINCT s.ip)) FROM Hit s "
-            + "WHERE s.uri IN (?1) AND s.timestamp BETWEEN ?2 AND ?3 GROUP BY s.app, s.uri, s.ip ORDER BY COUNT(DISTINCT s.ip) DESC")
-    List<Stat> findUrisWithUniqueIp(String[] uri, LocalDateTime start, LocalDateTime end);
+            + "WHERE s.timestamp BETWEEN ?1 AND ?2 GROUP BY s.app, s.uri ORDER BY COUNT(DISTINCT s.ip) DESC")
+    List<Stat> findAllUrisWithUniqueIp(LocalDateTime start, LocalDateTime end);
 
     @Query(value = "SELECT new ru.practicum.model.Stat(s.app, s.uri, COUNT(s.uri)) FROM Hit s "
-            + "WHERE s.timestamp BETWEEN ?1 AND ?2 GROUP BY s.app, s.uri ORDER BY COUNT(s.uri) DESC")
-    List<Stat> findAllUris(LocalDateTime start, LocalDateTime end);
+            + "WHERE s.uri IN (?1) AND s.timestamp >= ?2 AND s.timestamp < ?3 GROUP BY s.app, s.uri")
+    List<Stat> countUrisInRange(String[] uri, LocalDateTime from, LocalDateTime to);
+
+    @Query(value = "SELECT new ru.practicum.model.Stat(s.app, s.uri, COUNT(s.uri)) FROM Hit s "
+            + "WHERE s.timestamp >= ?1 AND s.timestamp < ?2 GROUP BY s.app, s.uri")
+    List<Stat> countAllUrisInRange(LocalDateTime from, LocalDateTime to);
 
     @Query(value = "SELECT new ru.practicum.model.Stat(s.app, s.uri, COUNT(DISTINCT s.ip)) FROM Hit s "
-            + "WHERE s.timestamp BETWEEN ?1 AND ?2 GROUP BY s.app, s.uri, s.ip ORDER BY COUNT(DISTINCT s.ip) DESC")
-    List<Stat> findAllUrisWithUniqueIp(LocalDateTime start, LocalDateTime end);
+            + "WHERE s.uri IN (?1) AND s.timestamp >= ?2 AND s.timestamp < ?3 GROUP BY s.app, s.uri")
+    List<Stat> countUniqueIpsInRange(String[] uri, LocalDateTime from, LocalDateTime to);
+
+    @Query(value = "SELECT new ru.practicum.model.Stat(s.app, s.uri, COUNT(DISTINCT s.ip)) FROM Hit s "
+            + "WHERE s.timestamp >= ?1 AND s.timestamp < ?2 GROUP BY s.app, s.uri")
+    List<Stat> countAllUniqueIpsInRange(LocalDateTime from, LocalDateTime to);
+
+    @Query(value = "SELECT DISTINCT new ru.practicum.model.VisitorIp(s.app, s.uri, s.ip) FROM Hit s "
+            + "WHERE s.uri IN (?1) AND s.timestamp >= ?2 AND s.timestamp < ?3")
+    List<VisitorIp> findVisitorIpsInRange(String[] uri, LocalDateTime from, LocalDateTime to);
+
+    @Query(value = "SELECT DISTINCT new ru.practicum.model.VisitorIp(s.app, s.uri, s.ip) FROM Hit s "
+            + "WHERE s.timestamp >= ?1 AND s.timestamp < ?2")
+    List<VisitorIp> findAllVisitorIpsInRange(LocalDateTime from, LocalDateTime to);
+
+    @Query(value = "SELECT MIN(s.timestamp) FROM Hit s")
+    LocalDateTime findFirstTimestamp();
+
+    @Query(value = "SELECT MAX(s.timestamp) FROM Hit s")
+    LocalDateTime findLastTimestamp();
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package ru.practicum.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.model.Granularity;
+import ru.practicum.model.Stat;
+import ru.practicum.model.TimeSegment;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Aggregating queries whose rows are handed to the caller one by one through a cursor. Rows are only fetched
+ * incrementally inside a transaction, so callers must hold one open while consuming.
+ */
+@Repository
+public class StatStreamRepository {
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public StatStreamRepository(DataSource dataSource,
+                                @Value("${stat-server.stream.fetch-size:1000}") int fetchSize) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    /**
+     * Runs a statement so that a repeatable-read transaction takes its snapshot now rather than at the first fetch.
+     */
+    public void pinSnapshot() {
+        namedJdbcTemplate.getJdbcTemplate().queryForObject("SELECT 1", Integer.class);
+    }
+
+    public void streamHits(List<TimeSegment> segments, String[] uris, Consumer<Stat> consumer) {
+        if (segments.isEmpty()) {
+            return;
+        }
+        MapSqlParameterSource parameters = new MapSqlParameterSource();
+        StringBuilder sql = new StringBuilder("SELECT app, uri, SUM(hits) AS hits FROM (");
+        for (int i = 0; i < segments.size(); i++) {
+            TimeSegment segment = segments.get(i);
+            if (i > 0) {
+                sql.append(" UNION ALL ");
+            }
+            if (segment.granularity() == Granularity.RAW) {
+                sql.append("SELECT app, uri, COUNT(*) AS hits FROM statistics WHERE timestamp >= :from").append(i)
+                        .append(" AND timestamp < :to").append(i).append(uriFilter(uris)).append(" GROUP BY app, uri");
+            } else {
+                sql.append("SELECT app, uri, hits FROM stat_rollups WHERE granularity = :granularity").append(i)
+                        .append(" AND bucket >= :from").append(i).append(" AND bucket < :to").append(i)
+                        .append(uriFilter(uris));
+                parameters.addValue("granularity" + i, segment.granularity().name());
+            }
+            parameters.addValue("from" + i, Timestamp.valueOf(segment.from()));
+            parameters.addValue("to" + i, Timestamp.valueOf(segment.to()));
+        }
+        sql.append(") s GROUP BY app, uri ORDER BY hits DESC");
+        query(sql.toString(), parameters, uris, consumer);
+    }
+
+    private void query(String sql, MapSqlParameterSource parameters, String[] uris, Consumer<Stat> consumer) {
+        if (uris != null) {
+            parameters.addValue("uris", Arrays.asList(uris));
+        }
+        namedJdbcTemplate.query(sql, parameters, rs -> {
+            consumer.accept(new Stat(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+        });
+    }
+
+    private static String uriFilter(String[] uris) {
+        return uris == null ? "" : " AND uri IN (:uris)";
+    }
+}
@@ -0,0 +1,88 @@
+package ru.practicum.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import ru.practicum.HitBatchResultDto;
+import ru.practicum.HitDto;
+import ru.practicum.exceptions.ValidationRequestException;
+import ru.practicum.model.Granularity;
+import ru.practicum.model.Hit;
+import ru.practicum.model.HitBatch;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static ru.practicum.model.HitMapper.toHit;
+
+/**
+ * Hit ingestion and request validation shared by the storage backends; a backend only decides how validated hits
+ * are recorded and how statistics are computed.
+ */
+public abstract class AbstractStatService implements StatService {
+    @Value("${stat-server.batch.max-size:10000}")
+    private int maxBatchSize;
+
+    @Value("${stat-server.timeseries.max-buckets:1440}")
+    private int maxSeriesBuckets;
+
+    @Override
+    public void addHit(HitDto hitDto) {
+        record(List.of(toHit(hitDto)));
+    }
+
+    @Override
+    public HitBatchResultDto addHits(List<HitDto> hitDtos) {
+        return saveBatch(HitBatch.of(hitDtos, maxBatchSize));
+    }
+
+    @Override
+    public HitBatchResultDto addHits(List<HitDto> hitDtos, Map<Integer, String> parseErrors) {
+        return saveBatch(HitBatch.of(hitDtos, parseErrors, maxBatchSize));
+    }
+
+    @Override
+    public HitBatchResultDto addEncodedHits(byte[] frame) {
+        return saveBatch(HitBatch.decode(frame, maxBatchSize));
+    }
+
+    /**
+     * Records validated hits.
+     *
+     * @return the number of hits stored, that is without the duplicates that were filtered out
+     */
+    protected abstract int record(List<Hit> hits);
+
+    protected void validateRange(LocalDateTime start, LocalDateTime end) {
+        if (start.isAfter(end)) {
+            throw new ValidationRequestException("Дата старта должна быть раньше даты конца");
+        }
+    }
+
+    /**
+     * Parses the series step and checks that the range does not exceed the bucket limit.
+     */
+    protected Granularity toSeriesStep(LocalDateTime from, LocalDateTime to, String step) {
+        Granularity granularity = toStep(step);
+        if (granularity.bucketsBetween(from, granularity.ceil(to)) > maxSeriesBuckets) {
+            throw new ValidationRequestException("Число интервалов не должно превышать " + maxSeriesBuckets);
+        }
+        return granularity;
+    }
+
+    private Granularity toStep(String step) {
+        Granularity granularity;
+        try {
+            granularity = Granularity.valueOf(step.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            granularity = Granularity.RAW;
+        }
+        if (granularity == Granularity.RAW) {
+            throw new ValidationRequestException("Шаг должен быть одним из: minute, hour, day");
+        }
+        return granularity;
+    }
+
+    private HitBatchResultDto saveBatch(HitBatch batch) {
+        return batch.toResult(record(batch.hits()));
+    }
+}
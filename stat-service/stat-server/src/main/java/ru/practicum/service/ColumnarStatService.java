@@ -0,0 +1,145 @@
+package ru.practicum.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import ru.practicum.StatBinaryCodec;
+import ru.practicum.StatDto;
+import ru.practicum.StatSeriesDto;
+import ru.practicum.columnar.ColumnarHitStore;
+import ru.practicum.columnar.LongHashSet;
+import ru.practicum.journal.HitJournal;
+import ru.practicum.model.Granularity;
+import ru.practicum.model.Hit;
+import ru.practicum.model.Stat;
+import ru.practicum.model.StatKey;
+import ru.practicum.model.StatMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Statistics kept in the columnar segment store instead of the database. Every query scans the hit columns of the
+ * segments overlapping its range, so results are exact and need neither rollups nor sketches. Unless
+ * {@code stat-server.columnar.journal-enabled} is off, hits are journaled before they enter the in-memory head, so
+ * acknowledged hits that are not sealed yet survive a restart.
+ */
+@Service
+@ConditionalOnProperty(name = "stat-server.storage", havingValue = "columnar")
+public class ColumnarStatService extends AbstractStatService {
+    private final HitDeduplicator hitDeduplicator;
+    private final HeavyHitterService heavyHitterService;
+    private final ColumnarHitStore store;
+    private final long sealAfterMillis;
+
+    public ColumnarStatService(HitDeduplicator hitDeduplicator,
+                               HeavyHitterService heavyHitterService,
+                               @Value("${stat-server.columnar.directory:data/columnar}") Path directory,
+                               @Value("${stat-server.columnar.segment-rows:1000000}") int segmentRows,
+                               @Value("${stat-server.columnar.cache-rows:5000000}") long cacheRows,
+                               @Value("${stat-server.columnar.seal-after:PT5M}") Duration sealAfter,
+                               @Value("${stat-server.columnar.journal-enabled:true}") boolean journalEnabled,
+                               @Value("${stat-server.journal.segment-size:64MB}") DataSize journalSegmentSize,
+                               @Value("${stat-server.journal.fsync:false}") boolean fsync)
+            throws IOException {
+        this.hitDeduplicator = hitDeduplicator;
+        this.heavyHitterService = heavyHitterService;
+        this.store = new ColumnarHitStore(directory, segmentRows, cacheRows, journalEnabled
+                ? new HitJournal(directory.resolve("journal"), (int) journalSegmentSize.toBytes(), fsync)
+                : null);
+        this.sealAfterMillis = sealAfter.toMillis();
+    }
+
+    @Override
+    public List<StatDto> getStats(LocalDateTime start, LocalDateTime end, String[] uris, boolean unique) {
+        validateRange(start, end);
+        if (uris != null && uris.length == 0) {
+            return Collections.emptyList();
+        }
+        long from = StatBinaryCodec.toEpochMillis(start);
+        long to = StatBinaryCodec.toEpochMillis(end.plusSeconds(1));
+        Set<String> uriFilter = uris == null ? null : new HashSet<>(Arrays.asList(uris));
+        Map<StatKey, Long> totals = new HashMap<>();
+        if (unique) {
+            Map<StatKey, LongHashSet> visitors = new HashMap<>();
+            store.scan(from, to, segment -> segment.collectVisitors(from, to, uriFilter, visitors));
+            visitors.forEach((key, set) -> totals.put(key, (long) set.size()));
+        } else {
+            store.scan(from, to, segment -> segment.countHits(from, to, uriFilter, totals));
+        }
+        return totals.entrySet().stream()
+                .sorted(Map.Entry.<StatKey, Long>comparingByValue().reversed())
+                .map(entry -> StatMapper.toStatDto(new Stat(entry.getKey().app(), entry.getKey().uri(),
+                        entry.getValue())))
+                .toList();
+    }
+
+    @Override
+    public List<StatSeriesDto> getTimeSeries(LocalDateTime start, LocalDateTime end, String[] uris, String step) {
+        validateRange(start, end);
+        LocalDateTime to = end.plusSeconds(1);
+        Granularity granularity = toSeriesStep(start, to, step);
+        if (uris != null && uris.length == 0) {
+            return Collections.emptyList();
+        }
+        LocalDateTime first = granularity.floor(start);
+        int buckets = (int) granularity.bucketsBetween(first, granularity.ceil(to));
+        long firstMillis = StatBinaryCodec.toEpochMillis(first);
+        long stepMillis = StatBinaryCodec.toEpochMillis(granularity.plus(first, 1)) - firstMillis;
+        long fromMillis = StatBinaryCodec.toEpochMillis(start);
+        long toMillis = StatBinaryCodec.toEpochMillis(to);
+        Set<String> uriFilter = uris == null ? null : new HashSet<>(Arrays.asList(uris));
+        Map<StatKey, long[]> series = new HashMap<>();
+        store.scan(fromMillis, toMillis, segment -> segment.countSeries(fromMillis, toMillis, uriFilter, firstMillis,
+                stepMillis, buckets, series));
+        return series.entrySet().stream()
+                .map(entry -> StatMapper.toStatSeriesDto(entry.getKey(), entry.getValue(), first, granularity))
+                .sorted(Comparator.comparingLong(StatSeriesDto::getHits).reversed())
+                .toList();
+    }
+
+    /**
+     * Results are aggregated in memory before the first one is known, so they are computed as for
+     * {@link #getStats} and then passed on.
+     */
+    @Override
+    public void streamStats(LocalDateTime start, LocalDateTime end, String[] uris, boolean unique,
+                            Consumer<StatDto> consumer) {
+        getStats(start, end, uris, unique).forEach(consumer);
+    }
+
+    @Scheduled(fixedDelayString = "${stat-server.columnar.seal-check-interval:PT10S}")
+    public void sealAged() {
+        store.sealOlderThan(sealAfterMillis);
+    }
+
+    @PreDestroy
+    public void close() {
+        store.close();
+    }
+
+    @Override
+    protected int record(List<Hit> hits) {
+        List<Hit> unique = hitDeduplicator.filter(hits);
+        if (unique.isEmpty()) {
+            return 0;
+        }
+        store.append(unique);
+        heavyHitterService.record(unique);
+        return unique.size();
+    }
+}
@@ -0,0 +1,191 @@
+package ru.practicum.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.TopStatDto;
+import ru.practicum.exceptions.ValidationRequestException;
+import ru.practicum.model.Granularity;
+import ru.practicum.model.Hit;
+import ru.practicum.model.Stat;
+import ru.practicum.model.StatKey;
+import ru.practicum.model.TimeSegment;
+import ru.practicum.repository.HitRollupRepository;
+import ru.practicum.sketch.SpaceSaving;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Approximate most-viewed uris over sliding windows ending now. Hits are counted into one Space-Saving summary per
+ * time bucket; a window is the current bucket plus as many preceding buckets as needed to cover it, so it is rounded
+ * up to whole buckets. The merge of the sealed buckets of a window is kept until the current bucket changes, and
+ * its merge with the current bucket until new hits are applied, so repeated queries merge nothing.
+ * <p>
+ * Committed hits are only queued, so ingestion never waits on the summaries; the queue is applied on a schedule and
+ * before every query.
+ * <p>
+ * Every reported count exceeds the true one by at most the reported error, so the true count lies in
+ * [hits - maxError, hits]. Within one bucket of n hits the error is at most n / capacity, and merging the buckets
+ * of a window adds up their errors, so for a window with N hits it stays around N / capacity while the window's
+ * traffic is spread over its buckets.
+ */
+@Service
+@Slf4j
+public class HeavyHitterService {
+    private final HitRollupRepository hitRollupRepository;
+    private final int capacity;
+    private final long bucketMinutes;
+    private final int maxBuckets;
+    private final TreeMap<LocalDateTime, SpaceSaving<StatKey>> buckets = new TreeMap<>();
+    private final Map<Integer, SpaceSaving<StatKey>> sealedMerges = new HashMap<>();
+    private final Map<Integer, SpaceSaving<StatKey>> windowMerges = new HashMap<>();
+    private final Queue<Hit> pendingHits = new ConcurrentLinkedQueue<>();
+    private LocalDateTime sealedMergesBucket;
+
+    public HeavyHitterService(HitRollupRepository hitRollupRepository,
+                              @Value("${stat-server.top.capacity:1000}") int capacity,
+                              @Value("${stat-server.top.bucket:10m}") Duration bucket,
+                              @Value("${stat-server.top.max-window:24h}") Duration maxWindow) {
+        if (bucket.toMinutes() < 1 || bucket.toSeconds() % 60 != 0) {
+            throw new IllegalArgumentException("Интервал корзины должен быть целым числом минут: " + bucket);
+        }
+        this.hitRollupRepository = hitRollupRepository;
+        this.capacity = capacity;
+        this.bucketMinutes = bucket.toMinutes();
+        this.maxBuckets = bucketsFor(maxWindow);
+    }
+
+    public void record(List<Hit> hits) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pendingHits.addAll(hits);
+                }
+            });
+        } else {
+            pendingHits.addAll(hits);
+        }
+    }
+
+    public synchronized List<TopStatDto> top(int k, Duration window) {
+        if (k < 1 || k > capacity) {
+            throw new ValidationRequestException("Параметр k должен быть от 1 до " + capacity);
+        }
+        if (window.isNegative() || window.isZero()) {
+            throw new ValidationRequestException("Окно должно быть положительным");
+        }
+        int windowBuckets = bucketsFor(window);
+        if (windowBuckets > maxBuckets) {
+            throw new ValidationRequestException("Окно не должно превышать " + maxBuckets * bucketMinutes + " минут");
+        }
+        drain();
+        LocalDateTime current = floor(LocalDateTime.now());
+        if (!current.equals(sealedMergesBucket)) {
+            expire(current);
+            sealedMerges.clear();
+            windowMerges.clear();
+            sealedMergesBucket = current;
+        }
+        SpaceSaving<StatKey> merged = windowMerges.computeIfAbsent(windowBuckets, count -> {
+            SpaceSaving<StatKey> sealed = sealedMerges.computeIfAbsent(count, ignored -> mergeSealed(current, count));
+            SpaceSaving<StatKey> live = buckets.get(current);
+            return live == null ? sealed : sealed.merge(live);
+        });
+        return merged.top(k).stream()
+                .map(entry -> TopStatDto.builder()
+                        .app(entry.item().app())
+                        .uri(entry.item().uri())
+                        .hits(entry.count())
+                        .maxError(entry.error())
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Fills the sealed buckets of the longest window from minute rollups. The current bucket is left to live hits,
+     * since its rollups may still be missing unflushed ones.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        LocalDateTime current = floor(LocalDateTime.now());
+        LocalDateTime bucket = current.minusMinutes((maxBuckets - 1) * bucketMinutes);
+        for (; bucket.isBefore(current); bucket = bucket.plusMinutes(bucketMinutes)) {
+            List<Stat> stats = hitRollupRepository.sumHits(new TimeSegment(Granularity.MINUTE, bucket,
+                    bucket.plusMinutes(bucketMinutes)), null);
+            if (stats.isEmpty()) {
+                continue;
+            }
+            synchronized (this) {
+                SpaceSaving<StatKey> summary = buckets.computeIfAbsent(bucket, key -> new SpaceSaving<>(capacity));
+                for (Stat stat : stats) {
+                    summary.offer(new StatKey(stat.getApp(), stat.getUri()), stat.getHits());
+                }
+                sealedMerges.clear();
+                windowMerges.clear();
+            }
+        }
+        log.info("Счётчики популярных uri восстановлены по агрегатам с {}", current.minusMinutes(
+                (maxBuckets - 1) * bucketMinutes));
+    }
+
+    @Scheduled(fixedDelayString = "${stat-server.top.drain-interval:PT1S}")
+    public synchronized void drain() {
+        if (pendingHits.isEmpty()) {
+            return;
+        }
+        LocalDateTime current = floor(LocalDateTime.now());
+        LocalDateTime oldest = expire(current);
+        windowMerges.clear();
+        for (Hit hit = pendingHits.poll(); hit != null; hit = pendingHits.poll()) {
+            LocalDateTime bucket = floor(hit.getTimestamp());
+            if (bucket.isBefore(oldest)) {
+                continue;
+            }
+            if (bucket.isAfter(current)) {
+                bucket = current;
+            } else if (bucket.isBefore(current)) {
+                sealedMerges.clear();
+            }
+            buckets.computeIfAbsent(bucket, key -> new SpaceSaving<>(capacity))
+                    .offer(new StatKey(hit.getApp(), hit.getUri()));
+        }
+    }
+
+    private LocalDateTime expire(LocalDateTime current) {
+        LocalDateTime oldest = current.minusMinutes((maxBuckets - 1) * bucketMinutes);
+        buckets.headMap(oldest).clear();
+        return oldest;
+    }
+
+    private SpaceSaving<StatKey> mergeSealed(LocalDateTime current, int windowBuckets) {
+        LocalDateTime from = current.minusMinutes((windowBuckets - 1) * bucketMinutes);
+        SpaceSaving<StatKey> merged = new SpaceSaving<>(capacity);
+        for (SpaceSaving<StatKey> summary : buckets.subMap(from, current).values()) {
+            merged = merged.merge(summary);
+        }
+        return merged;
+    }
+
+    private int bucketsFor(Duration window) {
+        return (int) Math.max(1, Math.ceilDiv(window.toSeconds(), bucketMinutes * 60));
+    }
+
+    private LocalDateTime floor(LocalDateTime timestamp) {
+        long minute = Math.floorDiv(timestamp.toEpochSecond(ZoneOffset.UTC), 60);
+        return LocalDateTime.ofEpochSecond((minute - Math.floorMod(minute, bucketMinutes)) * 60, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,114 @@
+package ru.practicum.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.practicum.model.Granularity;
+import ru.practicum.repository.StatCompactionRepository;
+import ru.practicum.repository.StatRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Removes raw hits older than the configured age once their hours are kept as aggregates only: hit counts are
+ * already stored in the minute, hour and day rollups, and the visitors of every compacted hour are folded into its
+ * hour and day HyperLogLog sketches right before the hour passes the watermark. Raw rows below the watermark are
+ * then deleted in bounded batches, each in its own statement, so the job never holds long locks.
+ * <p>
+ * A range bound is compacted once raw hits at that time are deleted or due for deletion, i.e. below the watermark or
+ * the current cutoff. Such bounds are rounded down to the retained granularity, whole minutes for hit counts and
+ * whole hours for unique counts, and unique counts for ranges starting there are served from the sketches, so a
+ * range is answered the same way before and after the job reaches it.
+ */
+@Service
+@Slf4j
+public class HitCompactionService {
+    private final StatCompactionRepository statCompactionRepository;
+    private final StatRepository statRepository;
+    private final HitSketchService hitSketchService;
+    private final boolean enabled;
+    private final Duration age;
+    private final int batchSize;
+    private volatile LocalDateTime watermark;
+
+    public HitCompactionService(StatCompactionRepository statCompactionRepository,
+                                StatRepository statRepository,
+                                HitSketchService hitSketchService,
+                                @Value("${stat-server.compaction.enabled:false}") boolean enabled,
+                                @Value("${stat-server.compaction.age:3d}") Duration age,
+                                @Value("${stat-server.compaction.batch-size:5000}") int batchSize) {
+        this.statCompactionRepository = statCompactionRepository;
+        this.statRepository = statRepository;
+        this.hitSketchService = hitSketchService;
+        this.enabled = enabled;
+        this.age = age;
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    public void init() {
+        watermark = statCompactionRepository.findWatermark();
+    }
+
+    /**
+     * Tells whether raw hits at the given time may already be deleted or are due for deletion.
+     */
+    public boolean isCompacted(LocalDateTime time) {
+        LocalDateTime horizon = watermark;
+        if (enabled) {
+            LocalDateTime cutoff = cutoff();
+            if (horizon == null || cutoff.isAfter(horizon)) {
+                horizon = cutoff;
+            }
+        }
+        return horizon != null && time.isBefore(horizon);
+    }
+
+    /**
+     * Rounds a compacted range bound down to the given granularity and leaves any other bound as it is.
+     */
+    public LocalDateTime retainedBound(LocalDateTime bound, Granularity granularity) {
+        return isCompacted(bound) ? granularity.floor(bound) : bound;
+    }
+
+    @Scheduled(cron = "${stat-server.compaction.cron:0 15 * * * *}")
+    public void compact() {
+        watermark = statCompactionRepository.findWatermark();
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime cutoff = cutoff();
+        LocalDateTime hour = watermark;
+        if (hour == null) {
+            LocalDateTime first = statRepository.findFirstTimestamp();
+            if (first == null) {
+                return;
+            }
+            hour = Granularity.HOUR.floor(first);
+        }
+        for (; hour.isBefore(cutoff); hour = hour.plusHours(1)) {
+            hitSketchService.mergeRawHour(hour);
+            statCompactionRepository.saveWatermark(hour.plusHours(1));
+            watermark = hour.plusHours(1);
+        }
+        if (watermark == null) {
+            return;
+        }
+        long deleted = 0;
+        int batch;
+        do {
+            batch = statCompactionRepository.deleteBatchBefore(watermark, batchSize);
+            deleted += batch;
+        } while (batch == batchSize);
+        if (deleted > 0) {
+            log.info("Сжатие статистики: удалено {} просмотров ранее {}", deleted, watermark);
+        }
+    }
+
+    private LocalDateTime cutoff() {
+        return Granularity.HOUR.floor(LocalDateTime.now().minus(age));
+    }
+}
@@ -0,0 +1,224 @@
+package ru.practicum.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.model.Granularity;
+import ru.practicum.model.Hit;
+import ru.practicum.model.RollupKey;
+import ru.practicum.model.StatKey;
+import ru.practicum.model.TimeSegment;
+import ru.practicum.repository.HitBatchRepository;
+import ru.practicum.repository.HitRollupRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Write-behind buffer for plain hit counters: hits are counted per (app, uri, minute) in striped adders and the
+ * deltas are flushed to stat_rollups on a schedule. Readers merge the unflushed deltas under the read lock, so a
+ * flush is never observed half-applied.
+ */
+@Component
+@Slf4j
+public class HitCounterEngine {
+    private static final Granularity[] ROLLUP_GRANULARITIES = {Granularity.MINUTE, Granularity.HOUR, Granularity.DAY};
+
+    private final HitRollupRepository hitRollupRepository;
+    private final HitBatchRepository hitBatchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final boolean asyncRawHits;
+    private final Map<RollupKey, LongAdder> pending = new ConcurrentHashMap<>();
+    private final Queue<Hit> pendingRawHits = new ConcurrentLinkedQueue<>();
+    private final Map<RollupKey, Long> flushing = new HashMap<>();
+    private final List<Hit> flushingRawHits = new ArrayList<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public HitCounterEngine(HitRollupRepository hitRollupRepository,
+                            HitBatchRepository hitBatchRepository,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${stat-server.write-behind.enabled:false}") boolean enabled,
+                            @Value("${stat-server.write-behind.async-raw-hits:false}") boolean asyncRawHits) {
+        this.hitRollupRepository = hitRollupRepository;
+        this.hitBatchRepository = hitBatchRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.asyncRawHits = enabled && asyncRawHits;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isAsyncRawHits() {
+        return asyncRawHits;
+    }
+
+    public void add(List<Hit> hits) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    count(hits);
+                }
+            });
+        } else {
+            count(hits);
+        }
+    }
+
+    public <T> T read(Supplier<T> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the hits that are not yet in the database to the totals. Must be called inside {@link #read}.
+     */
+    public void mergePending(TimeSegment segment, String[] uris, Map<StatKey, Long> totals) {
+        Set<String> uriFilter = uris == null ? null : new HashSet<>(Arrays.asList(uris));
+        if (segment.granularity() == Granularity.RAW) {
+            for (Hit hit : pendingRawHits) {
+                mergeRawHit(hit, segment, uriFilter, totals);
+            }
+            for (Hit hit : flushingRawHits) {
+                mergeRawHit(hit, segment, uriFilter, totals);
+            }
+            return;
+        }
+        pending.forEach((key, adder) -> mergeDelta(key, adder.sum(), segment, uriFilter, totals));
+        flushing.forEach((key, hits) -> mergeDelta(key, hits, segment, uriFilter, totals));
+    }
+
+    /**
+     * Adds the unflushed hits of a bucket-aligned segment to the totals of their buckets of the segment's
+     * granularity. Must be called inside {@link #read}.
+     */
+    public void mergePendingBuckets(TimeSegment segment, String[] uris, Map<RollupKey, Long> totals) {
+        Set<String> uriFilter = uris == null ? null : new HashSet<>(Arrays.asList(uris));
+        pending.forEach((key, adder) -> mergeBucketDelta(key, adder.sum(), segment, uriFilter, totals));
+        flushing.forEach((key, hits) -> mergeBucketDelta(key, hits, segment, uriFilter, totals));
+    }
+
+    @Scheduled(fixedDelayString = "${stat-server.write-behind.flush-interval:PT1S}")
+    public void flush() {
+        lock.writeLock().lock();
+        try {
+            for (RollupKey key : pending.keySet()) {
+                LongAdder adder = pending.remove(key);
+                long hits = adder == null ? 0 : adder.sumThenReset();
+                if (hits > 0) {
+                    flushing.merge(key, hits, Long::sum);
+                }
+            }
+            for (Hit hit = pendingRawHits.poll(); hit != null; hit = pendingRawHits.poll()) {
+                flushingRawHits.add(hit);
+            }
+            if (flushing.isEmpty() && flushingRawHits.isEmpty()) {
+                return;
+            }
+            Map<RollupKey, Long> deltas = rollUp(flushing);
+            transactionTemplate.executeWithoutResult(status -> {
+                hitBatchRepository.saveAll(flushingRawHits);
+                hitRollupRepository.increment(deltas);
+            });
+            flushing.clear();
+            flushingRawHits.clear();
+        } catch (RuntimeException e) {
+            log.warn("Не удалось сохранить {} счётчиков и {} просмотров, повторим позже: {}", flushing.size(),
+                    flushingRawHits.size(), e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+        if (!flushing.isEmpty() || !flushingRawHits.isEmpty()) {
+            log.error("При остановке не сохранено {} счётчиков и {} просмотров", flushing.size(),
+                    flushingRawHits.size());
+        }
+    }
+
+    private void count(List<Hit> hits) {
+        for (Hit hit : hits) {
+            increment(new RollupKey(Granularity.MINUTE, Granularity.MINUTE.floor(hit.getTimestamp()), hit.getApp(),
+                    hit.getUri()));
+            if (asyncRawHits) {
+                pendingRawHits.add(hit);
+            }
+        }
+    }
+
+    private void increment(RollupKey key) {
+        long delta = 1;
+        while (delta > 0) {
+            LongAdder adder = pending.computeIfAbsent(key, k -> new LongAdder());
+            adder.add(delta);
+            if (pending.get(key) == adder) {
+                return;
+            }
+            // flush() detached this adder concurrently; whatever it did not collect is carried over to a fresh one
+            delta = adder.sumThenReset();
+        }
+    }
+
+    private Map<RollupKey, Long> rollUp(Map<RollupKey, Long> minuteDeltas) {
+        Map<RollupKey, Long> deltas = new HashMap<>();
+        minuteDeltas.forEach((key, hits) -> {
+            for (Granularity granularity : ROLLUP_GRANULARITIES) {
+                LocalDateTime bucket = granularity.floor(key.bucket());
+                deltas.merge(new RollupKey(granularity, bucket, key.app(), key.uri()), hits, Long::sum);
+            }
+        });
+        return deltas;
+    }
+
+    private void mergeDelta(RollupKey key, long hits, TimeSegment segment, Set<String> uriFilter,
+                            Map<StatKey, Long> totals) {
+        if (hits > 0 && !key.bucket().isBefore(segment.from()) && key.bucket().isBefore(segment.to())
+                && (uriFilter == null || uriFilter.contains(key.uri()))) {
+            totals.merge(new StatKey(key.app(), key.uri()), hits, Long::sum);
+        }
+    }
+
+    private void mergeBucketDelta(RollupKey key, long hits, TimeSegment segment, Set<String> uriFilter,
+                                  Map<RollupKey, Long> totals) {
+        if (hits > 0 && !key.bucket().isBefore(segment.from()) && key.bucket().isBefore(segment.to())
+                && (uriFilter == null || uriFilter.contains(key.uri()))) {
+            totals.merge(new RollupKey(segment.granularity(), segment.granularity().floor(key.bucket()), key.app(),
+                    key.uri()), hits, Long::sum);
+        }
+    }
+
+    private void mergeRawHit(Hit hit, TimeSegment segment, Set<String> uriFilter, Map<StatKey, Long> totals) {
+        if (!hit.getTimestamp().isBefore(segment.from()) && hit.getTimestamp().isBefore(segment.to())
+                && (uriFilter == null || uriFilter.contains(hit.getUri()))) {
+            totals.merge(new StatKey(hit.getApp(), hit.getUri()), 1L, Long::sum);
+        }
+    }
+}
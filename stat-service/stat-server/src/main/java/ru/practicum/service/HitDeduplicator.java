@@ -0,0 +1,75 @@
+package ru.practicum.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.model.Hit;
+import ru.practicum.sketch.HyperLogLog;
+import ru.practicum.sketch.RotatingBloomFilter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drops hits repeating an (app, uri, ip) that reached the server within the configured window. Repeats are found
+ * with rotating Bloom filters keyed by arrival time, so memory does not depend on traffic and nothing is read from
+ * the database; a false positive drops a first hit with the configured probability.
+ */
+@Component
+@Slf4j
+public class HitDeduplicator {
+    private final RotatingBloomFilter filter;
+    private final LongAdder checked = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+
+    public HitDeduplicator(@Value("${stat-server.dedup.enabled:false}") boolean enabled,
+                           @Value("${stat-server.dedup.window:10s}") Duration window,
+                           @Value("${stat-server.dedup.generations:4}") int generations,
+                           @Value("${stat-server.dedup.expected-keys:100000}") long expectedKeys,
+                           @Value("${stat-server.dedup.false-positive-rate:0.001}") double falsePositiveRate,
+                           MeterRegistry meterRegistry) {
+        if (!enabled) {
+            this.filter = null;
+            return;
+        }
+        if (generations < 2) {
+            throw new IllegalArgumentException("Некорректные параметры фильтра Блума: generations=" + generations
+                    + ", window=" + window.toMillis() + "ms");
+        }
+        long sliceMillis = Math.max(1, window.toMillis() / (generations - 1));
+        this.filter = new RotatingBloomFilter(generations, sliceMillis, expectedKeys, falsePositiveRate);
+        log.info("Подавление повторных просмотров включено: окно {}, память {} байт", window,
+                filter.getSizeInBytes());
+        FunctionCounter.builder("stat.hits.dedup.checked", checked, LongAdder::sum)
+                .description("Hits checked for repeats")
+                .register(meterRegistry);
+        FunctionCounter.builder("stat.hits.dedup.suppressed", suppressed, LongAdder::sum)
+                .description("Hits dropped as repeats within the window")
+                .register(meterRegistry);
+        Gauge.builder("stat.hits.dedup.memory", filter, RotatingBloomFilter::getSizeInBytes)
+                .description("Bytes held by the duplicate filters")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public List<Hit> filter(List<Hit> hits) {
+        if (filter == null || hits.isEmpty()) {
+            return hits;
+        }
+        long now = System.currentTimeMillis();
+        List<Hit> unique = new ArrayList<>(hits.size());
+        for (Hit hit : hits) {
+            if (!filter.checkAndPut(HyperLogLog.hash(hit.getApp() + '\0' + hit.getUri() + '\0' + hit.getIp()), now)) {
+                unique.add(hit);
+            }
+        }
+        checked.add(hits.size());
+        suppressed.add(hits.size() - unique.size());
+        return unique;
+    }
+}
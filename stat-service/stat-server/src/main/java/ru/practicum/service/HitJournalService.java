@@ -0,0 +1,105 @@
+package ru.practicum.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import ru.practicum.journal.HitJournal;
+import ru.practicum.journal.JournalBatch;
+import ru.practicum.journal.JournalPosition;
+import ru.practicum.model.Hit;
+import ru.practicum.repository.JournalCheckpointRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Acknowledges hits once they are in the local journal and loads the journal into the database in the background.
+ * The loaded position is committed together with the loaded hits, so a restart resumes exactly where loading stopped.
+ */
+@Service
+@Slf4j
+public class HitJournalService {
+    private final HitRecorder hitRecorder;
+    private final JournalCheckpointRepository journalCheckpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final HitJournal journal;
+    private final String nodeId;
+    private final int loadBatchSize;
+    private JournalPosition loaded;
+
+    public HitJournalService(HitRecorder hitRecorder,
+                             JournalCheckpointRepository journalCheckpointRepository,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${stat-server.journal.enabled:false}") boolean enabled,
+                             @Value("${stat-server.journal.directory:data/journal}") Path directory,
+                             @Value("${stat-server.journal.segment-size:64MB}") DataSize segmentSize,
+                             @Value("${stat-server.journal.fsync:false}") boolean fsync,
+                             @Value("${stat-server.journal.node-id:stat-server}") String nodeId,
+                             @Value("${stat-server.journal.load-batch-size:5000}") int loadBatchSize)
+            throws IOException {
+        this.hitRecorder = hitRecorder;
+        this.journalCheckpointRepository = journalCheckpointRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.journal = enabled ? new HitJournal(directory, (int) segmentSize.toBytes(), fsync) : null;
+        this.nodeId = nodeId;
+        this.loadBatchSize = loadBatchSize;
+    }
+
+    public boolean isEnabled() {
+        return journal != null;
+    }
+
+    public void append(List<Hit> hits) {
+        try {
+            journal.append(hits);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось записать просмотры в журнал", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${stat-server.journal.load-interval:PT0.2S}")
+    public synchronized void load() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            if (loaded == null) {
+                JournalPosition first = journal.first();
+                loaded = journalCheckpointRepository.find(nodeId)
+                        .filter(checkpoint -> checkpoint.compareTo(first) > 0)
+                        .orElse(first);
+                log.info("Загрузка журнала просмотров начинается с {}:{}", loaded.segment(), loaded.offset());
+            }
+            while (true) {
+                JournalBatch batch = journal.read(loaded, loadBatchSize);
+                if (batch.next().equals(loaded)) {
+                    return;
+                }
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (!batch.hits().isEmpty()) {
+                        hitRecorder.record(batch.hits());
+                    }
+                    journalCheckpointRepository.save(nodeId, batch.next());
+                });
+                loaded = batch.next();
+                journal.deleteBefore(loaded.segment());
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Не удалось загрузить журнал просмотров, повторим позже: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (journal != null) {
+            load();
+            journal.close();
+        }
+    }
+}
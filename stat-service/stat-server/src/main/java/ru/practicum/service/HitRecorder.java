@@ -0,0 +1,31 @@
+package ru.practicum.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.model.Hit;
+import ru.practicum.repository.HitBatchRepository;
+
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+public class HitRecorder {
+    private final HitBatchRepository hitBatchRepository;
+    private final HitRollupService hitRollupService;
+    private final HitSketchService hitSketchService;
+    private final HeavyHitterService heavyHitterService;
+    private final HitCounterEngine hitCounterEngine;
+    private final StatsCache statsCache;
+
+    @Transactional
+    public void record(List<Hit> hits) {
+        if (!hitCounterEngine.isAsyncRawHits()) {
+            hitBatchRepository.saveAll(hits);
+        }
+        hitRollupService.record(hits);
+        hitSketchService.record(hits);
+        heavyHitterService.record(hits);
+        statsCache.evict(hits);
+    }
+}
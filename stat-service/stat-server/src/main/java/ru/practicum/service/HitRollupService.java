@@ -0,0 +1,140 @@
+package ru.practicum.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import ru.practicum.model.Granularity;
+import ru.practicum.model.Hit;
+import ru.practicum.model.RollupKey;
+import ru.practicum.model.Stat;
+import ru.practicum.model.StatKey;
+import ru.practicum.model.TimeSegment;
+import ru.practicum.repository.HitRollupRepository;
+import ru.practicum.repository.StatRepository;
+import ru.practicum.repository.StatStreamRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+@Service
+@RequiredArgsConstructor
+public class HitRollupService {
+    private static final Set<Granularity> ROLLUP_GRANULARITIES = EnumSet.of(Granularity.MINUTE, Granularity.HOUR,
+            Granularity.DAY);
+
+    private final HitRollupRepository hitRollupRepository;
+    private final StatRepository statRepository;
+    private final HitCounterEngine hitCounterEngine;
+    private final StatStreamRepository statStreamRepository;
+
+    public void record(List<Hit> hits) {
+        if (hitCounterEngine.isEnabled()) {
+            hitCounterEngine.add(hits);
+            return;
+        }
+        Map<RollupKey, Long> deltas = new HashMap<>();
+        for (Hit hit : hits) {
+            for (Granularity granularity : ROLLUP_GRANULARITIES) {
+                deltas.merge(new RollupKey(granularity, granularity.floor(hit.getTimestamp()), hit.getApp(),
+                        hit.getUri()), 1L, Long::sum);
+            }
+        }
+        hitRollupRepository.increment(deltas);
+    }
+
+    public List<Stat> countHits(LocalDateTime from, LocalDateTime to, String[] uris) {
+        Map<StatKey, Long> totals = hitCounterEngine.read(() -> countRange(from, to, uris));
+        List<Stat> stats = new ArrayList<>(totals.size());
+        totals.forEach((key, hits) -> stats.add(new Stat(key.app(), key.uri(), hits)));
+        stats.sort(Comparator.comparing(Stat::getHits).reversed());
+        return stats;
+    }
+
+    /**
+     * Counts hits per step bucket of every uri. Whole buckets are read from the rollups of the step granularity in
+     * one query; a partial bucket at either end of the range is counted like a /stats range. The arrays start at
+     * the bucket containing from.
+     */
+    public Map<StatKey, long[]> countSeries(LocalDateTime from, LocalDateTime to, Granularity step, String[] uris) {
+        LocalDateTime first = step.floor(from);
+        int buckets = (int) step.bucketsBetween(first, step.ceil(to));
+        LocalDateTime interiorFrom = step.ceil(from);
+        LocalDateTime interiorTo = step.floor(to);
+        return hitCounterEngine.read(() -> {
+            Map<StatKey, long[]> series = new HashMap<>();
+            if (interiorFrom.isBefore(interiorTo)) {
+                TimeSegment interior = new TimeSegment(step, interiorFrom, interiorTo);
+                Map<RollupKey, Long> counted = hitRollupRepository.findHits(interior, uris);
+                hitCounterEngine.mergePendingBuckets(interior, uris, counted);
+                counted.forEach((key, hits) -> series.computeIfAbsent(new StatKey(key.app(), key.uri()),
+                        k -> new long[buckets])[(int) step.bucketsBetween(first, key.bucket())] += hits);
+            }
+            LocalDateTime headTo = interiorFrom.isBefore(to) ? interiorFrom : to;
+            LocalDateTime tailFrom = interiorTo.isAfter(interiorFrom) ? interiorTo : interiorFrom;
+            addEdge(series, countRange(from, headTo, uris), (int) step.bucketsBetween(first, from), buckets);
+            if (tailFrom.isBefore(to)) {
+                addEdge(series, countRange(tailFrom, to, uris), (int) step.bucketsBetween(first, tailFrom), buckets);
+            }
+            return series;
+        });
+    }
+
+    /**
+     * Streams per-uri totals without collecting them; must run inside a repeatable-read transaction. The snapshot
+     * is pinned together with the unflushed deltas, so hits flushed while rows are consumed are counted once.
+     * Rows come ordered by their stored totals, and unflushed deltas are added to a row as it passes, so the order
+     * only reflects hits that have already been flushed.
+     */
+    public void streamHits(LocalDateTime from, LocalDateTime to, String[] uris, Consumer<Stat> consumer) {
+        List<TimeSegment> segments = TimeSegment.cover(from, to, Granularity.DAY);
+        Map<StatKey, Long> pending = hitCounterEngine.read(() -> {
+            statStreamRepository.pinSnapshot();
+            Map<StatKey, Long> collected = new HashMap<>();
+            for (TimeSegment segment : segments) {
+                hitCounterEngine.mergePending(segment, uris, collected);
+            }
+            return collected;
+        });
+        statStreamRepository.streamHits(segments, uris, stat -> {
+            Long delta = pending.remove(new StatKey(stat.getApp(), stat.getUri()));
+            if (delta != null) {
+                stat.setHits(stat.getHits() + delta);
+            }
+            consumer.accept(stat);
+        });
+        pending.entrySet().stream()
+                .sorted(Map.Entry.<StatKey, Long>comparingByValue().reversed())
+                .forEach(entry -> consumer.accept(new Stat(entry.getKey().app(), entry.getKey().uri(),
+                        entry.getValue())));
+    }
+
+    private Map<StatKey, Long> countRange(LocalDateTime from, LocalDateTime to, String[] uris) {
+        Map<StatKey, Long> counted = new HashMap<>();
+        for (TimeSegment segment : TimeSegment.cover(from, to, Granularity.DAY)) {
+            for (Stat stat : countSegment(segment, uris)) {
+                counted.merge(new StatKey(stat.getApp(), stat.getUri()), stat.getHits(), Long::sum);
+            }
+            hitCounterEngine.mergePending(segment, uris, counted);
+        }
+        return counted;
+    }
+
+    private void addEdge(Map<StatKey, long[]> series, Map<StatKey, Long> counted, int bucket, int buckets) {
+        counted.forEach((key, hits) -> series.computeIfAbsent(key, k -> new long[buckets])[bucket] += hits);
+    }
+
+    private List<Stat> countSegment(TimeSegment segment, String[] uris) {
+        if (segment.granularity() != Granularity.RAW) {
+            return hitRollupRepository.sumHits(segment, uris);
+        }
+        return uris == null
+                ? statRepository.countAllUrisInRange(segment.from(), segment.to())
+                : statRepository.countUrisInRange(uris, segment.from(), segment.to());
+    }
+}
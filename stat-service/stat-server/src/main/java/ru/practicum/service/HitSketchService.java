@@ -0,0 +1,237 @@
+package ru.practicum.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.model.Granularity;
+import ru.practicum.model.Hit;
+import ru.practicum.model.RollupKey;
+import ru.practicum.model.Stat;
+import ru.practicum.model.StatKey;
+import ru.practicum.model.TimeSegment;
+import ru.practicum.model.VisitorIp;
+import ru.practicum.repository.HitSketchRepository;
+import ru.practicum.repository.StatCompactionRepository;
+import ru.practicum.repository.StatRepository;
+import ru.practicum.sketch.HyperLogLog;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@Slf4j
+public class HitSketchService {
+    private static final Set<Granularity> SKETCH_GRANULARITIES = EnumSet.of(Granularity.HOUR, Granularity.DAY);
+    private static final String BACKFILL_WATERMARK = "stat_sketches";
+
+    private final HitSketchRepository hitSketchRepository;
+    private final StatRepository statRepository;
+    private final StatCompactionRepository statCompactionRepository;
+    private final int precision;
+    private final Duration exactMaxRange;
+    private final Map<RollupKey, HyperLogLog> pending = new ConcurrentHashMap<>();
+    private final Map<RollupKey, HyperLogLog> flushing = new ConcurrentHashMap<>();
+
+    public HitSketchService(HitSketchRepository hitSketchRepository,
+                            StatRepository statRepository,
+                            StatCompactionRepository statCompactionRepository,
+                            @Value("${stat-server.unique.relative-error:0.02}") double relativeError,
+                            @Value("${stat-server.unique.exact-max-range:24h}") Duration exactMaxRange) {
+        this.hitSketchRepository = hitSketchRepository;
+        this.statRepository = statRepository;
+        this.statCompactionRepository = statCompactionRepository;
+        this.precision = HyperLogLog.precisionFor(relativeError);
+        this.exactMaxRange = exactMaxRange;
+    }
+
+    public void record(List<Hit> hits) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    offer(hits);
+                }
+            });
+        } else {
+            offer(hits);
+        }
+    }
+
+    public List<Stat> countUnique(LocalDateTime from, LocalDateTime to, String[] uris) {
+        return countUnique(from, to, uris, true);
+    }
+
+    /**
+     * Counts unique visitors; rawComplete tells whether every raw hit of the range is still stored, otherwise the
+     * count is taken from the sketches even for short ranges.
+     */
+    public List<Stat> countUnique(LocalDateTime from, LocalDateTime to, String[] uris, boolean rawComplete) {
+        if (rawComplete && Duration.between(from, to).compareTo(exactMaxRange) <= 0) {
+            return uris == null
+                    ? statRepository.countAllUniqueIpsInRange(from, to)
+                    : statRepository.countUniqueIpsInRange(uris, from, to);
+        }
+        List<TimeSegment> segments = TimeSegment.cover(from, to, Granularity.DAY, Granularity.HOUR);
+        Map<StatKey, HyperLogLog> merged = new HashMap<>();
+        for (TimeSegment segment : segments) {
+            if (segment.granularity() != Granularity.RAW) {
+                mergeInMemory(pending, segment, uris, merged);
+                mergeInMemory(flushing, segment, uris, merged);
+            }
+        }
+        for (TimeSegment segment : segments) {
+            if (segment.granularity() == Granularity.RAW) {
+                List<VisitorIp> visitors = uris == null
+                        ? statRepository.findAllVisitorIpsInRange(segment.from(), segment.to())
+                        : statRepository.findVisitorIpsInRange(uris, segment.from(), segment.to());
+                for (VisitorIp visitor : visitors) {
+                    merged.computeIfAbsent(new StatKey(visitor.app(), visitor.uri()), k -> new HyperLogLog(precision))
+                            .offer(visitor.ip());
+                }
+            } else {
+                hitSketchRepository.forEachSketch(segment, uris, (key, sketch) -> merge(merged, key, sketch));
+            }
+        }
+        List<Stat> stats = new ArrayList<>(merged.size());
+        merged.forEach((key, sketch) -> stats.add(new Stat(key.app(), key.uri(), sketch.estimate())));
+        stats.sort(Comparator.comparing(Stat::getHits).reversed());
+        return stats;
+    }
+
+    @Scheduled(fixedDelayString = "${stat-server.unique.flush-interval:PT10S}")
+    public void flush() {
+        for (RollupKey key : pending.keySet()) {
+            pending.computeIfPresent(key, (k, sketch) -> {
+                flushing.merge(k, sketch, (flushed, fresh) -> {
+                    flushed.merge(fresh);
+                    return flushed;
+                });
+                return null;
+            });
+        }
+        if (flushing.isEmpty()) {
+            return;
+        }
+        try {
+            hitSketchRepository.mergeAll(flushing);
+            flushing.clear();
+        } catch (RuntimeException e) {
+            log.warn("Не удалось сохранить {} HyperLogLog, повторим позже: {}", flushing.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Sketches every hour of stored raw hits that has no hour sketch yet, e.g. history recorded before sketches
+     * existed. Only hours from the watermark of the previous backfill on are looked at, and the hours to sketch are
+     * found with one grouped query, so hours without hits cost nothing. The last stored hour is merged again even if
+     * it has a sketch, since a flush after the restart may have written one with only the new hits; merging is
+     * idempotent. It stays at the watermark, so the next backfill looks at it again.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        LocalDateTime last = statRepository.findLastTimestamp();
+        if (last == null) {
+            return;
+        }
+        LocalDateTime lastHour = Granularity.HOUR.floor(last);
+        LocalDateTime from = statCompactionRepository.findWatermark(BACKFILL_WATERMARK);
+        if (from == null) {
+            from = Granularity.HOUR.floor(statRepository.findFirstTimestamp());
+        }
+        if (from.isAfter(lastHour)) {
+            return;
+        }
+        List<LocalDateTime> hours = new ArrayList<>(hitSketchRepository.findUnsketchedHours(from,
+                lastHour.plusHours(1)));
+        if (!hours.contains(lastHour)) {
+            hours.add(lastHour);
+        }
+        for (LocalDateTime hour : hours) {
+            mergeRawHour(hour);
+        }
+        statCompactionRepository.saveWatermark(BACKFILL_WATERMARK, lastHour);
+        log.info("Построение HyperLogLog по сохранённой статистике с {} по {}: дополнено часов {}", from, last,
+                hours.size());
+    }
+
+    /**
+     * Folds the visitors of one hour of raw hits into its hour and day sketches. Merging is idempotent, so this may
+     * be repeated for an hour that is already sketched.
+     */
+    public void mergeRawHour(LocalDateTime hour) {
+        Map<RollupKey, HyperLogLog> sketches = new HashMap<>();
+        LocalDateTime day = Granularity.DAY.floor(hour);
+        for (VisitorIp visitor : statRepository.findAllVisitorIpsInRange(hour, hour.plusHours(1))) {
+            long hash = HyperLogLog.hash(visitor.ip());
+            offer(sketches, new RollupKey(Granularity.HOUR, hour, visitor.app(), visitor.uri()), hash);
+            offer(sketches, new RollupKey(Granularity.DAY, day, visitor.app(), visitor.uri()), hash);
+        }
+        if (!sketches.isEmpty()) {
+            hitSketchRepository.mergeAll(sketches);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    private void offer(List<Hit> hits) {
+        for (Hit hit : hits) {
+            long hash = HyperLogLog.hash(hit.getIp());
+            for (Granularity granularity : SKETCH_GRANULARITIES) {
+                offer(pending, new RollupKey(granularity, granularity.floor(hit.getTimestamp()), hit.getApp(),
+                        hit.getUri()), hash);
+            }
+        }
+    }
+
+    private void offer(Map<RollupKey, HyperLogLog> sketches, RollupKey key, long hash) {
+        sketches.compute(key, (k, sketch) -> {
+            HyperLogLog target = sketch == null ? new HyperLogLog(precision) : sketch;
+            target.offerHash(hash);
+            return target;
+        });
+    }
+
+    private void mergeInMemory(Map<RollupKey, HyperLogLog> sketches, TimeSegment segment, String[] uris,
+                               Map<StatKey, HyperLogLog> merged) {
+        Set<String> uriFilter = uris == null ? null : new HashSet<>(Arrays.asList(uris));
+        sketches.forEach((key, sketch) -> {
+            if (key.granularity() == segment.granularity()
+                    && !key.bucket().isBefore(segment.from()) && key.bucket().isBefore(segment.to())
+                    && (uriFilter == null || uriFilter.contains(key.uri()))) {
+                merge(merged, new StatKey(key.app(), key.uri()), sketch);
+            }
+        });
+    }
+
+    private void merge(Map<StatKey, HyperLogLog> merged, StatKey key, HyperLogLog sketch) {
+        HyperLogLog target = merged.get(key);
+        if (target == null) {
+            merged.put(key, sketch.copy());
+        } else if (sketch.getPrecision() < target.getPrecision()) {
+            HyperLogLog folded = target.foldTo(sketch.getPrecision());
+            folded.merge(sketch);
+            merged.put(key, folded);
+        } else {
+            target.merge(sketch);
+        }
+    }
+}
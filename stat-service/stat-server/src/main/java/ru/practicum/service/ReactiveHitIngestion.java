@@ -0,0 +1,187 @@
+package ru.practicum.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+import ru.practicum.HitBatchResultDto;
+import ru.practicum.HitDto;
+import ru.practicum.exceptions.IngestionOverloadException;
+import ru.practicum.model.Hit;
+import ru.practicum.model.HitBatch;
+import ru.practicum.model.HitMapper;
+import ru.practicum.repository.ReactiveHitRepository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Hit ingestion of the {@code reactive} profile. Accepted hits are queued in a bounded in-memory buffer and answered
+ * at once; a single pipeline drains the buffer in batches of up to {@code batch-size} hits or whatever arrived within
+ * {@code flush-interval}, writes each batch through R2DBC with at most {@code write-concurrency} writes in flight and
+ * then counts it in the in-memory rollups, sketches and top list. The pipeline only asks for a batch when a write slot
+ * is free, so a slow database fills the buffer instead of piling up writes, and a request that would overflow the
+ * buffer is refused whole with 503 so the client backs off.
+ * <p>
+ * A hit is acknowledged before it is written: hits still in the buffer are lost if the process dies, and a batch the
+ * database keeps refusing after the retries is dropped and counted in {@code stat.hits.reactive.lost}.
+ */
+@Service
+@Profile("reactive")
+@Slf4j
+public class ReactiveHitIngestion {
+    private static final Duration EMIT_TIMEOUT = Duration.ofSeconds(1);
+
+    private final ReactiveHitRepository reactiveHitRepository;
+    private final HitRollupService hitRollupService;
+    private final HitSketchService hitSketchService;
+    private final HeavyHitterService heavyHitterService;
+    private final StatsCache statsCache;
+    private final HitDeduplicator hitDeduplicator;
+    private final int maxBatchSize;
+    private final int bufferCapacity;
+    private final int maxRetries;
+    private final Duration retryBackoff;
+    private final Sinks.Many<List<Hit>> sink = Sinks.many().unicast().onBackpressureBuffer();
+    private final AtomicInteger buffered = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder lost = new LongAdder();
+    private final CompletableFuture<Void> drained;
+
+    public ReactiveHitIngestion(ReactiveHitRepository reactiveHitRepository,
+                                HitRollupService hitRollupService,
+                                HitSketchService hitSketchService,
+                                HeavyHitterService heavyHitterService,
+                                StatsCache statsCache,
+                                HitDeduplicator hitDeduplicator,
+                                HitCounterEngine hitCounterEngine,
+                                HitJournalService hitJournalService,
+                                MeterRegistry meterRegistry,
+                                @Value("${stat-server.storage:jdbc}") String storage,
+                                @Value("${stat-server.batch.max-size:10000}") int maxBatchSize,
+                                @Value("${stat-server.reactive.buffer-capacity:100000}") int bufferCapacity,
+                                @Value("${stat-server.reactive.batch-size:1000}") int batchSize,
+                                @Value("${stat-server.reactive.flush-interval:PT0.05S}") Duration flushInterval,
+                                @Value("${stat-server.reactive.write-concurrency:4}") int writeConcurrency,
+                                @Value("${stat-server.reactive.max-retries:3}") int maxRetries,
+                                @Value("${stat-server.reactive.retry-backoff:PT0.1S}") Duration retryBackoff) {
+        if (!hitCounterEngine.isEnabled() || hitCounterEngine.isAsyncRawHits()) {
+            throw new IllegalStateException("Реактивный приём просмотров требует stat-server.write-behind.enabled=true "
+                    + "и stat-server.write-behind.async-raw-hits=false");
+        }
+        if ("columnar".equals(storage)) {
+            throw new IllegalStateException("Реактивный приём просмотров несовместим с stat-server.storage=columnar");
+        }
+        if (hitJournalService.isEnabled()) {
+            throw new IllegalStateException("Реактивный приём просмотров несовместим с stat-server.journal.enabled");
+        }
+        this.reactiveHitRepository = reactiveHitRepository;
+        this.hitRollupService = hitRollupService;
+        this.hitSketchService = hitSketchService;
+        this.heavyHitterService = heavyHitterService;
+        this.statsCache = statsCache;
+        this.hitDeduplicator = hitDeduplicator;
+        this.maxBatchSize = maxBatchSize;
+        this.bufferCapacity = bufferCapacity;
+        this.maxRetries = maxRetries;
+        this.retryBackoff = retryBackoff;
+        this.drained = sink.asFlux()
+                .flatMapIterable(Function.identity())
+                .bufferTimeout(batchSize, flushInterval, true)
+                .flatMap(this::write, writeConcurrency)
+                .then()
+                .toFuture();
+        Gauge.builder("stat.hits.reactive.buffered", buffered, AtomicInteger::get)
+                .description("Hits accepted but not yet written")
+                .register(meterRegistry);
+        FunctionCounter.builder("stat.hits.reactive.rejected", rejected, LongAdder::sum)
+                .description("Hits refused because the buffer was full")
+                .register(meterRegistry);
+        FunctionCounter.builder("stat.hits.reactive.lost", lost, LongAdder::sum)
+                .description("Hits dropped after the database refused them")
+                .register(meterRegistry);
+    }
+
+    public void addHit(HitDto hitDto) {
+        offer(List.of(HitMapper.toHit(hitDto)));
+    }
+
+    public HitBatchResultDto addHits(List<HitDto> hitDtos) {
+        return addHits(hitDtos, Map.of());
+    }
+
+    public HitBatchResultDto addHits(List<HitDto> hitDtos, Map<Integer, String> parseErrors) {
+        HitBatch batch = HitBatch.of(hitDtos, parseErrors, maxBatchSize);
+        return batch.toResult(offer(batch.hits()));
+    }
+
+    public HitBatchResultDto addEncodedHits(byte[] frame) {
+        HitBatch batch = HitBatch.decode(frame, maxBatchSize);
+        return batch.toResult(offer(batch.hits()));
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        sink.emitComplete(Sinks.EmitFailureHandler.busyLooping(EMIT_TIMEOUT));
+        try {
+            drained.get(30, TimeUnit.SECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            log.error("При остановке не сохранено {} просмотров", buffered.get());
+        }
+    }
+
+    private int offer(List<Hit> hits) {
+        if (hits.isEmpty()) {
+            return 0;
+        }
+        if (buffered.addAndGet(hits.size()) > bufferCapacity) {
+            buffered.addAndGet(-hits.size());
+            rejected.add(hits.size());
+            throw new IngestionOverloadException("Буфер просмотров переполнен, повторите запрос позже");
+        }
+        List<Hit> unique = hitDeduplicator.filter(hits);
+        buffered.addAndGet(unique.size() - hits.size());
+        if (!unique.isEmpty()) {
+            try {
+                sink.emitNext(unique, Sinks.EmitFailureHandler.busyLooping(EMIT_TIMEOUT));
+            } catch (RuntimeException e) {
+                buffered.addAndGet(-unique.size());
+                throw e;
+            }
+        }
+        return unique.size();
+    }
+
+    private Mono<Void> write(List<Hit> hits) {
+        return reactiveHitRepository.saveAll(hits)
+                .retryWhen(Retry.backoff(maxRetries, retryBackoff))
+                .doOnNext(rows -> {
+                    hitRollupService.record(hits);
+                    hitSketchService.record(hits);
+                    heavyHitterService.record(hits);
+                    statsCache.evict(hits);
+                })
+                .onErrorResume(e -> {
+                    log.error("Не удалось сохранить {} просмотров: {}", hits.size(), e.getMessage());
+                    lost.add(hits.size());
+                    return Mono.empty();
+                })
+                .doFinally(signal -> buffered.addAndGet(-hits.size()))
+                .then();
+    }
+}
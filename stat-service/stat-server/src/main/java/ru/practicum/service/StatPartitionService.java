@@ -0,0 +1,110 @@
+package ru.practicum.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.practicum.model.PartitionInterval;
+import ru.practicum.repository.SqlDialect;
+import ru.practicum.repository.StatPartitionRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Keeps the statistics table split into day or month range partitions on PostgreSQL: partitions are created ahead
+ * of time and expired ones are dropped or detached. H2 has no declarative partitioning, so there the same retention
+ * boundary is applied with range deletes over the timestamp index.
+ */
+@Service
+@Slf4j
+public class StatPartitionService {
+    private final StatPartitionRepository statPartitionRepository;
+    private final SqlDialect sqlDialect;
+    private final PartitionInterval interval;
+    private final int premake;
+    private final Duration retention;
+    private final boolean archive;
+
+    public StatPartitionService(StatPartitionRepository statPartitionRepository,
+                                SqlDialect sqlDialect,
+                                @Value("${stat-server.partitions.interval:DAY}") PartitionInterval interval,
+                                @Value("${stat-server.partitions.premake:7}") int premake,
+                                @Value("${stat-server.partitions.retention:}") Duration retention,
+                                @Value("${stat-server.partitions.archive:false}") boolean archive) {
+        this.statPartitionRepository = statPartitionRepository;
+        this.sqlDialect = sqlDialect;
+        this.interval = interval;
+        this.premake = premake;
+        this.retention = retention;
+        this.archive = archive;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (sqlDialect == SqlDialect.POSTGRESQL) {
+            if (statPartitionRepository.isLegacyTable()) {
+                log.info("Перевод таблицы statistics на секционирование по интервалу {}", interval);
+                statPartitionRepository.migrateLegacyTable(interval);
+            }
+            statPartitionRepository.createDefaultPartition();
+        }
+        maintain();
+    }
+
+    @Scheduled(cron = "${stat-server.partitions.maintenance-cron:0 5 0 * * *}")
+    public void maintain() {
+        LocalDateTime now = LocalDateTime.now();
+        if (sqlDialect == SqlDialect.POSTGRESQL) {
+            createAhead(now);
+        }
+        if (retention != null && !retention.isZero()) {
+            expire(interval.floor(now.minus(retention)));
+        }
+    }
+
+    private void createAhead(LocalDateTime now) {
+        Set<String> existing = new HashSet<>(statPartitionRepository.findPartitionNames());
+        LocalDateTime start = interval.floor(now);
+        for (int i = 0; i <= premake; i++, start = interval.next(start)) {
+            if (existing.contains(StatPartitionRepository.PARTITION_PREFIX + interval.suffix(start))) {
+                continue;
+            }
+            try {
+                statPartitionRepository.createPartition(interval, start);
+            } catch (RuntimeException e) {
+                log.warn("Не удалось создать секцию statistics с {}: {}", start, e.getMessage());
+            }
+        }
+    }
+
+    private void expire(LocalDateTime cutoff) {
+        if (sqlDialect == SqlDialect.H2) {
+            int expired = archive
+                    ? statPartitionRepository.archiveBefore(cutoff)
+                    : statPartitionRepository.deleteBefore(cutoff);
+            log.info("Удалено {} просмотров ранее {}", expired, cutoff);
+            return;
+        }
+        for (String name : statPartitionRepository.findPartitionNames()) {
+            String suffix = name.substring(StatPartitionRepository.PARTITION_PREFIX.length());
+            PartitionInterval partitionInterval = PartitionInterval.ofSuffix(suffix);
+            if (partitionInterval.next(partitionInterval.parseSuffix(suffix)).isAfter(cutoff)) {
+                continue;
+            }
+            if (archive) {
+                statPartitionRepository.detachPartition(name);
+                log.info("Секция {} отсоединена в архив", name);
+            } else {
+                statPartitionRepository.dropPartition(name);
+                log.info("Секция {} удалена по сроку хранения", name);
+            }
+        }
+        if (!archive) {
+            statPartitionRepository.deleteFromDefaultPartition(cutoff);
+        }
+    }
+}
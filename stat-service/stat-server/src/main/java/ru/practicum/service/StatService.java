@@ -1,13 +1,32 @@
 package ru.practicum.service;
 
+import ru.practicum.HitBatchResultDto;
 import ru.practicum.HitDto;
 import ru.practicum.StatDto;
+import ru.practicum.StatSeriesDto;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface StatService {
 
     void addHit(HitDto hitDto);
 
+    HitBatchResultDto addHits(List<HitDto> hitDtos);
+
+    /**
+     * Saves a batch read from text lines; {@code parseErrors} holds, by position, the lines that could not be read
+     * as a hit, whose entries in {@code hitDtos} are {@code null}.
+     */
+    HitBatchResultDto addHits(List<HitDto> hitDtos, Map<Integer, String> parseErrors);
+
+    HitBatchResultDto addEncodedHits(byte[] frame);
+
     List<StatDto> getStats(LocalDateTime start, LocalDateTime end, String[] uris, boolean unique);
+
+    List<StatSeriesDto> getTimeSeries(LocalDateTime start, LocalDateTime end, String[] uris, String step);
+
+    void streamStats(LocalDateTime start, LocalDateTime end, String[] uris, boolean unique,
+                     Consumer<StatDto> consumer);
 }
\ No newline at end of file
@@ -1,50 +1,113 @@
 package ru.practicum.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
-import ru.practicum.HitDto;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.StatDto;
-import ru.practicum.exceptions.ValidationRequestException;
+import ru.practicum.StatSeriesDto;
+import ru.practicum.model.Granularity;
+import ru.practicum.model.Hit;
 import ru.practicum.model.Stat;
+import ru.practicum.model.StatKey;
 import ru.practicum.model.StatMapper;
-import ru.practicum.repository.StatRepository;
+import ru.practicum.model.StatsQuery;
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
-
-import static ru.practicum.model.HitMapper.toHit;
+import java.util.Map;
+import java.util.function.Consumer;
 
 @Service
+@ConditionalOnProperty(name = "stat-server.storage", havingValue = "jdbc", matchIfMissing = true)
 @RequiredArgsConstructor
-public class StatServiceImpl implements StatService {
-    private final StatRepository statRepository;
+public class StatServiceImpl extends AbstractStatService {
+    private final HitRollupService hitRollupService;
+    private final HitSketchService hitSketchService;
+    private final HitRecorder hitRecorder;
+    private final HitJournalService hitJournalService;
+    private final StatsCache statsCache;
+    private final HitDeduplicator hitDeduplicator;
+    private final HitCompactionService hitCompactionService;
 
     @Override
-    public void addHit(HitDto hitDto) {
-        statRepository.save(toHit(hitDto));
+    public List<StatDto> getStats(LocalDateTime start, LocalDateTime end, String[] uris, boolean unique) {
+        validateRange(start, end);
+        if (uris != null && uris.length == 0) {
+            return Collections.emptyList();
+        }
+        return statsCache.get(StatsQuery.of(start, end.plusSeconds(1), uris, unique), this::loadStats);
     }
 
     @Override
-    public List<StatDto> getStats(LocalDateTime start, LocalDateTime end, String[] uris, boolean unique) {
-        List<Stat> stats;
-        if (start.isAfter(end)) {
-            throw new ValidationRequestException("Дата старта должна быть раньше даты конца");
+    public List<StatSeriesDto> getTimeSeries(LocalDateTime start, LocalDateTime end, String[] uris, String step) {
+        validateRange(start, end);
+        LocalDateTime to = end.plusSeconds(1);
+        Granularity granularity = toSeriesStep(start, to, step);
+        if (uris != null && uris.length == 0) {
+            return Collections.emptyList();
+        }
+        LocalDateTime first = granularity.floor(start);
+        LocalDateTime from = hitCompactionService.retainedBound(start, Granularity.MINUTE);
+        to = hitCompactionService.retainedBound(to, Granularity.MINUTE);
+        if (!from.isBefore(to)) {
+            return Collections.emptyList();
+        }
+        Map<StatKey, long[]> series = hitRollupService.countSeries(from, to, granularity, uris);
+        return series.entrySet().stream()
+                .map(entry -> StatMapper.toStatSeriesDto(entry.getKey(), entry.getValue(), first, granularity))
+                .sorted(Comparator.comparingLong(StatSeriesDto::getHits).reversed())
+                .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public void streamStats(LocalDateTime start, LocalDateTime end, String[] uris, boolean unique,
+                            Consumer<StatDto> consumer) {
+        validateRange(start, end);
+        if (uris != null && uris.length == 0) {
+            return;
         }
         if (unique) {
-            if (uris == null) {
-                stats = statRepository.findAllUrisWithUniqueIp(start, end);
-            } else {
-                stats = statRepository.findUrisWithUniqueIp(uris, start, end);
-            }
+            getStats(start, end, uris, true).forEach(consumer);
         } else {
-            if (uris == null) {
-                stats = statRepository.findAllUris(start, end);
-            } else {
-                stats = statRepository.findUris(uris, start, end);
+            LocalDateTime from = hitCompactionService.retainedBound(start, Granularity.MINUTE);
+            LocalDateTime to = hitCompactionService.retainedBound(end.plusSeconds(1), Granularity.MINUTE);
+            if (from.isBefore(to)) {
+                hitRollupService.streamHits(from, to, uris, stat -> consumer.accept(StatMapper.toStatDto(stat)));
             }
         }
-        return !stats.isEmpty() ? stats.stream().map(StatMapper::toStatDto)
-                .collect(Collectors.toList()) : Collections.emptyList();
     }
-}
\ No newline at end of file
+
+    private List<StatDto> loadStats(StatsQuery query) {
+        Granularity retained = query.unique() ? Granularity.HOUR : Granularity.MINUTE;
+        LocalDateTime from = hitCompactionService.retainedBound(query.from(), retained);
+        LocalDateTime to = hitCompactionService.retainedBound(query.to(), retained);
+        if (!from.isBefore(to)) {
+            return Collections.emptyList();
+        }
+        List<Stat> stats;
+        if (query.unique()) {
+            stats = hitSketchService.countUnique(from, to, query.urisArray(), !hitCompactionService.isCompacted(from));
+        } else {
+            stats = hitRollupService.countHits(from, to, query.urisArray());
+        }
+        return stats.stream().map(StatMapper::toStatDto).toList();
+    }
+
+    @Override
+    protected int record(List<Hit> hits) {
+        List<Hit> unique = hitDeduplicator.filter(hits);
+        if (unique.isEmpty()) {
+            return 0;
+        }
+        if (hitJournalService.isEnabled()) {
+            hitJournalService.append(unique);
+        } else {
+            hitRecorder.record(unique);
+        }
+        return unique.size();
+    }
+}
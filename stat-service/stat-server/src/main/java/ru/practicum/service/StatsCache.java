@@ -0,0 +1,157 @@
+package ru.practicum.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+import ru.practicum.StatDto;
+import ru.practicum.model.Hit;
+import ru.practicum.model.StatsQuery;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Weight-bounded cache of /stats results. Every cached query is indexed by its uris, and a recorded hit evicts the
+ * queries whose range contains the hit's timestamp, so closed windows stay cached until evicted by size while
+ * windows that are still receiving hits are reloaded on the next request.
+ */
+@Component
+public class StatsCache {
+    private static final int ENTRY_WEIGHT = 64;
+    private static final int STAT_WEIGHT = 48;
+
+    private final Cache<StatsQuery, List<StatDto>> cache;
+    private final Map<String, Set<StatsQuery>> queriesByUri = new ConcurrentHashMap<>();
+    private final Set<StatsQuery> allUriQueries = ConcurrentHashMap.newKeySet();
+
+    public StatsCache(@Value("${stat-server.cache.enabled:true}") boolean enabled,
+                      @Value("${stat-server.cache.max-size:64MB}") DataSize maxSize,
+                      MeterRegistry meterRegistry) {
+        if (!enabled) {
+            this.cache = null;
+            return;
+        }
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((StatsQuery query, List<StatDto> stats) -> weigh(query, stats))
+                .executor(Runnable::run)
+                .removalListener((StatsQuery query, List<StatDto> stats, RemovalCause cause) -> {
+                    if (query != null && cause != RemovalCause.REPLACED) {
+                        unindexIfAbsent(query);
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "stats");
+    }
+
+    public List<StatDto> get(StatsQuery query, Function<StatsQuery, List<StatDto>> loader) {
+        if (cache == null) {
+            return loader.apply(query);
+        }
+        // the query is indexed before it reads anything, so a hit recorded meanwhile evicts the loaded result
+        return cache.get(query, key -> {
+            index(key);
+            try {
+                return loader.apply(key);
+            } catch (RuntimeException e) {
+                unindex(key);
+                throw e;
+            }
+        });
+    }
+
+    public void evict(List<Hit> hits) {
+        if (cache == null || hits.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(hits);
+                }
+            });
+        } else {
+            invalidate(hits);
+        }
+    }
+
+    private void invalidate(List<Hit> hits) {
+        for (Hit hit : hits) {
+            invalidateCovering(queriesByUri.get(hit.getUri()), hit);
+            invalidateCovering(allUriQueries, hit);
+        }
+    }
+
+    private void invalidateCovering(Set<StatsQuery> queries, Hit hit) {
+        if (queries == null) {
+            return;
+        }
+        for (StatsQuery query : queries) {
+            if (query.covers(hit.getTimestamp())) {
+                cache.invalidate(query);
+            }
+        }
+    }
+
+    private void index(StatsQuery query) {
+        if (query.uris() == null) {
+            allUriQueries.add(query);
+            return;
+        }
+        for (String uri : query.uris()) {
+            queriesByUri.compute(uri, (key, queries) -> {
+                Set<StatsQuery> indexed = queries == null ? ConcurrentHashMap.newKeySet() : queries;
+                indexed.add(query);
+                return indexed;
+            });
+        }
+    }
+
+    private void unindexIfAbsent(StatsQuery query) {
+        // runs as a no-op compute so it cannot interleave with a concurrent reload of the same query
+        cache.asMap().compute(query, (key, stats) -> {
+            if (stats == null) {
+                unindex(key);
+            }
+            return stats;
+        });
+    }
+
+    private void unindex(StatsQuery query) {
+        if (query.uris() == null) {
+            allUriQueries.remove(query);
+            return;
+        }
+        for (String uri : query.uris()) {
+            queriesByUri.computeIfPresent(uri, (key, queries) -> {
+                queries.remove(query);
+                return queries.isEmpty() ? null : queries;
+            });
+        }
+    }
+
+    private static int weigh(StatsQuery query, List<StatDto> stats) {
+        long weight = ENTRY_WEIGHT;
+        if (query.uris() != null) {
+            for (String uri : query.uris()) {
+                weight += 2L * uri.length();
+            }
+        }
+        for (StatDto stat : stats) {
+            weight += STAT_WEIGHT + 2L * (stat.getApp().length() + stat.getUri().length());
+        }
+        return (int) Math.min(Integer.MAX_VALUE, weight);
+    }
+}
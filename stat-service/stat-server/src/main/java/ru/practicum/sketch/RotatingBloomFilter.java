@@ -0,0 +1,108 @@
+package ru.practicum.sketch;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filters over consecutive time slices, of which only the most recent {@code generations} are kept. A key is
+ * only added to the slice of its time and is reported as seen if one kept slice holds all of its bits, so a key added
+ * at time t is remembered until somewhere between {@code (generations - 1) * slice} and {@code generations * slice}
+ * after t. A lookup can be a false positive in any kept slice, so each slice is sized for
+ * {@code falsePositiveRate / generations}. Memory is fixed at construction.
+ * <p>
+ * Lookups and insertions only lock to recycle the oldest slice; two threads adding the same new key at once may
+ * both see it as new.
+ */
+public class RotatingBloomFilter {
+    private final AtomicLongArray sliceStarts;
+    private final AtomicLongArray[] slices;
+    private final long sliceMillis;
+    private final int bits;
+    private final int hashes;
+
+    /**
+     * @param expectedPerSlice number of distinct keys one slice is sized for
+     * @param falsePositiveRate target false positive rate of a lookup with every kept slice at that load
+     */
+    public RotatingBloomFilter(int generations, long sliceMillis, long expectedPerSlice, double falsePositiveRate) {
+        if (generations < 2 || sliceMillis <= 0 || expectedPerSlice <= 0) {
+            throw new IllegalArgumentException("Некорректные параметры фильтра Блума: generations=" + generations
+                    + ", slice=" + sliceMillis + "ms, expected=" + expectedPerSlice);
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Вероятность ложного срабатывания должна быть в интервале (0, 1): "
+                    + falsePositiveRate);
+        }
+        double sliceRate = falsePositiveRate / generations;
+        double optimalBits = -expectedPerSlice * Math.log(sliceRate) / (Math.log(2) * Math.log(2));
+        this.bits = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, Math.ceil(optimalBits)));
+        this.hashes = Math.max(1, (int) Math.round(optimalBits / expectedPerSlice * Math.log(2)));
+        this.sliceMillis = sliceMillis;
+        this.sliceStarts = new AtomicLongArray(generations);
+        this.slices = new AtomicLongArray[generations];
+        for (int i = 0; i < generations; i++) {
+            sliceStarts.set(i, Long.MIN_VALUE);
+            slices[i] = new AtomicLongArray((bits + 63) / 64);
+        }
+    }
+
+    /**
+     * Adds the key to the slice of the given time and tells whether it was already present in a kept slice.
+     */
+    public boolean checkAndPut(long hash, long nowMillis) {
+        long sliceStart = nowMillis - Math.floorMod(nowMillis, sliceMillis);
+        AtomicLongArray current = slice(sliceStart);
+        long oldest = sliceStart - (slices.length - 1) * sliceMillis;
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        boolean seen = false;
+        for (int s = 0; s < slices.length && !seen; s++) {
+            seen = sliceStarts.get(s) >= oldest && containsAll(slices[s], h1, h2);
+        }
+        for (int i = 0; i < hashes; i++) {
+            set(current, Math.floorMod(h1 + i * h2, bits));
+        }
+        return seen;
+    }
+
+    public long getSizeInBytes() {
+        return (long) slices.length * ((bits + 63) / 64) * Long.BYTES;
+    }
+
+    private AtomicLongArray slice(long sliceStart) {
+        int index = (int) Math.floorMod(Math.floorDiv(sliceStart, sliceMillis), (long) slices.length);
+        if (sliceStarts.get(index) != sliceStart) {
+            synchronized (this) {
+                if (sliceStarts.get(index) < sliceStart) {
+                    AtomicLongArray slice = slices[index];
+                    for (int i = 0; i < slice.length(); i++) {
+                        slice.set(i, 0);
+                    }
+                    sliceStarts.set(index, sliceStart);
+                }
+            }
+        }
+        return slices[index];
+    }
+
+    private boolean containsAll(AtomicLongArray slice, int h1, int h2) {
+        for (int i = 0; i < hashes; i++) {
+            if (!isSet(slice, Math.floorMod(h1 + i * h2, bits))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSet(AtomicLongArray slice, int bit) {
+        return (slice.get(bit >>> 6) & (1L << bit)) != 0;
+    }
+
+    private static void set(AtomicLongArray slice, int bit) {
+        long mask = 1L << bit;
+        int word = bit >>> 6;
+        long value = slice.get(word);
+        while ((value & mask) == 0 && !slice.compareAndSet(word, value, value | mask)) {
+            value = slice.get(word);
+        }
+    }
+}
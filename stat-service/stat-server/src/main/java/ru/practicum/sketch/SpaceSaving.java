@@ -0,0 +1,140 @@
+package ru.practicum.sketch;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Space-Saving summary (Metwally, Agrawal, El Abbadi) keeping at most {@code capacity} counters.
+ * <p>
+ * Every reported count overestimates the true count by at most the reported error, and the error never exceeds
+ * total / capacity, where total is the weight offered so far. Consequently every item whose true count is above
+ * total / capacity is present in the summary. A merge of two summaries still reports counts that exceed the true
+ * ones by at most the reported error: an item missing from one side is charged that side's minimum counter, which
+ * bounds its count there. Not thread-safe.
+ */
+public class SpaceSaving<T> {
+    private static final Comparator<Counter<?>> ORDER = Comparator.<Counter<?>>comparingLong(counter -> counter.count)
+            .thenComparingLong(counter -> counter.id);
+
+    private final int capacity;
+    private final Map<T, Counter<T>> counters = new HashMap<>();
+    private final TreeSet<Counter<T>> ordered = new TreeSet<>(ORDER);
+    private long total;
+    private long nextId;
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Число счётчиков Space-Saving должно быть положительным: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    public record Entry<T>(T item, long count, long error) {
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void offer(T item) {
+        offer(item, 1);
+    }
+
+    public void offer(T item, long weight) {
+        if (weight <= 0) {
+            return;
+        }
+        total += weight;
+        Counter<T> counter = counters.get(item);
+        if (counter != null) {
+            ordered.remove(counter);
+            counter.count += weight;
+            ordered.add(counter);
+            return;
+        }
+        if (counters.size() < capacity) {
+            add(item, weight, 0);
+            return;
+        }
+        Counter<T> evicted = ordered.pollFirst();
+        counters.remove(evicted.item);
+        add(item, evicted.count + weight, evicted.count);
+    }
+
+    /**
+     * Upper bound of the count of any item absent from the summary.
+     */
+    public long minCount() {
+        return counters.size() < capacity ? 0 : ordered.first().count;
+    }
+
+    /**
+     * Returns a new summary of the same capacity as this one describing both streams.
+     */
+    public SpaceSaving<T> merge(SpaceSaving<T> other) {
+        long thisMin = minCount();
+        long otherMin = other.minCount();
+        Set<T> items = new HashSet<>(counters.keySet());
+        items.addAll(other.counters.keySet());
+        List<Entry<T>> entries = new ArrayList<>(items.size());
+        for (T item : items) {
+            Counter<T> mine = counters.get(item);
+            Counter<T> theirs = other.counters.get(item);
+            long count = (mine == null ? thisMin : mine.count) + (theirs == null ? otherMin : theirs.count);
+            long error = (mine == null ? thisMin : mine.error) + (theirs == null ? otherMin : theirs.error);
+            entries.add(new Entry<>(item, count, error));
+        }
+        entries.sort(Comparator.comparingLong((Entry<T> entry) -> entry.count()).reversed());
+        SpaceSaving<T> merged = new SpaceSaving<>(capacity);
+        for (int i = 0; i < entries.size() && i < capacity; i++) {
+            Entry<T> entry = entries.get(i);
+            merged.add(entry.item(), entry.count(), entry.error());
+        }
+        merged.total = total + other.total;
+        return merged;
+    }
+
+    /**
+     * Up to k entries with the highest counts, highest first.
+     */
+    public List<Entry<T>> top(int k) {
+        List<Entry<T>> entries = new ArrayList<>(Math.min(k, counters.size()));
+        Iterator<Counter<T>> iterator = ordered.descendingIterator();
+        while (iterator.hasNext() && entries.size() < k) {
+            Counter<T> counter = iterator.next();
+            entries.add(new Entry<>(counter.item, counter.count, counter.error));
+        }
+        return entries;
+    }
+
+    private void add(T item, long count, long error) {
+        Counter<T> counter = new Counter<>(item, count, error, nextId++);
+        counters.put(item, counter);
+        ordered.add(counter);
+    }
+
+    private static final class Counter<T> {
+        private final T item;
+        private final long error;
+        private final long id;
+        private long count;
+
+        private Counter(T item, long count, long error, long id) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+CREATE TABLE IF NOT EXISTS statistics (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+  app VARCHAR(255) NOT NULL,
+  uri VARCHAR(255) NOT NULL,
+  ip VARCHAR(40) NOT NULL,
+  timestamp TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+  CONSTRAINT pk_stat PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+CREATE INDEX IF NOT EXISTS ix_statistics_timestamp ON statistics (timestamp);
+
+CREATE INDEX IF NOT EXISTS ix_statistics_uri_timestamp ON statistics (uri, timestamp);
@@ -1,8 +1,49 @@
-CREATE TABLE IF NOT EXISTS statistics (
-  id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+CREATE TABLE IF NOT EXISTS stat_rollups (
+  granularity VARCHAR(10) NOT NULL,
+  bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
   app VARCHAR(255) NOT NULL,
   uri VARCHAR(255) NOT NULL,
-  ip VARCHAR(40) NOT NULL,
-  timestamp TIMESTAMP WITHOUT TIME ZONE,
-  CONSTRAINT pk_stat PRIMARY KEY (id)
-);
\ No newline at end of file
+  hits BIGINT NOT NULL,
+  CONSTRAINT pk_stat_rollups PRIMARY KEY (granularity, bucket, app, uri)
+);
+
+CREATE INDEX IF NOT EXISTS ix_stat_rollups_uri ON stat_rollups (granularity, uri, bucket);
+
+CREATE TABLE IF NOT EXISTS stat_sketches (
+  granularity VARCHAR(10) NOT NULL,
+  bucket TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+  app VARCHAR(255) NOT NULL,
+  uri VARCHAR(255) NOT NULL,
+  sketch BYTEA NOT NULL,
+  CONSTRAINT pk_stat_sketches PRIMARY KEY (granularity, bucket, app, uri)
+);
+
+CREATE INDEX IF NOT EXISTS ix_stat_sketches_uri ON stat_sketches (granularity, uri, bucket);
+
+CREATE TABLE IF NOT EXISTS stat_journal_checkpoints (
+  node VARCHAR(255) NOT NULL,
+  segment_no BIGINT NOT NULL,
+  segment_offset INTEGER NOT NULL,
+  CONSTRAINT pk_stat_journal_checkpoints PRIMARY KEY (node)
+);
+
+CREATE TABLE IF NOT EXISTS stat_compaction (
+  name VARCHAR(64) NOT NULL,
+  watermark TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+  CONSTRAINT pk_stat_compaction PRIMARY KEY (name)
+);
+
+INSERT INTO stat_rollups (granularity, bucket, app, uri, hits)
+SELECT 'MINUTE', DATE_TRUNC('minute', timestamp), app, uri, COUNT(*) FROM statistics
+WHERE timestamp IS NOT NULL AND NOT EXISTS (SELECT 1 FROM stat_rollups WHERE granularity = 'MINUTE')
+GROUP BY DATE_TRUNC('minute', timestamp), app, uri;
+
+INSERT INTO stat_rollups (granularity, bucket, app, uri, hits)
+SELECT 'HOUR', DATE_TRUNC('hour', timestamp), app, uri, COUNT(*) FROM statistics
+WHERE timestamp IS NOT NULL AND NOT EXISTS (SELECT 1 FROM stat_rollups WHERE granularity = 'HOUR')
+GROUP BY DATE_TRUNC('hour', timestamp), app, uri;
+
+INSERT INTO stat_rollups (granularity, bucket, app, uri, hits)
+SELECT 'DAY', DATE_TRUNC('day', timestamp), app, uri, COUNT(*) FROM statistics
+WHERE timestamp IS NOT NULL AND NOT EXISTS (SELECT 1 FROM stat_rollups WHERE granularity = 'DAY')
+GROUP BY DATE_TRUNC('day', timestamp), app, uri;
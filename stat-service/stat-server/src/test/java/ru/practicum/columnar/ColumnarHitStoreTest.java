@@ -0,0 +1,83 @@
+package ru.practicum.columnar;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.journal.HitJournal;
+import ru.practicum.model.Hit;
+import ru.practicum.model.StatKey;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reopens the store without closing it, as after a crash, and counts the hits it still holds.
+ */
+class ColumnarHitStoreTest {
+    private static final int SEGMENT_ROWS = 1_000;
+    private static final int JOURNAL_SEGMENT_SIZE = 64 * 1024;
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void unsealedHitsSurviveRestartWithJournal() throws IOException {
+        ColumnarHitStore store = open(true);
+        store.append(hits(0, 2_500));
+        store.append(hits(2_500, 300));
+
+        assertThat(countHits(open(true))).isEqualTo(2_800);
+    }
+
+    @Test
+    void replayedHitsAreNotSealedTwice() throws IOException {
+        ColumnarHitStore store = open(true);
+        store.append(hits(0, 1_500));
+
+        ColumnarHitStore reopened = open(true);
+        reopened.append(hits(1_500, 700));
+        reopened.close();
+
+        assertThat(countHits(open(true))).isEqualTo(2_200);
+    }
+
+    @Test
+    void unsealedHitsAreLostWithoutJournal() throws IOException {
+        ColumnarHitStore store = open(false);
+        store.append(hits(0, 2_500));
+
+        assertThat(countHits(open(false))).isEqualTo(2 * SEGMENT_ROWS);
+    }
+
+    private ColumnarHitStore open(boolean journaled) throws IOException {
+        return new ColumnarHitStore(directory, SEGMENT_ROWS, 10 * SEGMENT_ROWS, journaled
+                ? new HitJournal(directory.resolve("journal"), JOURNAL_SEGMENT_SIZE, false)
+                : null);
+    }
+
+    private static List<Hit> hits(int first, int count) {
+        List<Hit> hits = new ArrayList<>(count);
+        for (int i = first; i < first + count; i++) {
+            hits.add(Hit.builder()
+                    .app("ewm-main-service")
+                    .uri("/events/" + i % 7)
+                    .ip("10.0." + i / 250 + "." + i % 250)
+                    .timestamp(BASE.plusSeconds(i))
+                    .build());
+        }
+        return hits;
+    }
+
+    private static long countHits(ColumnarHitStore store) {
+        Map<StatKey, Long> totals = new HashMap<>();
+        store.scan(0, Long.MAX_VALUE, segment -> segment.countHits(0, Long.MAX_VALUE, null, totals));
+        return totals.values().stream().mapToLong(Long::longValue).sum();
+    }
+}
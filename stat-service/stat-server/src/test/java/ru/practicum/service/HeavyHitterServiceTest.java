@@ -0,0 +1,87 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.StatDto;
+import ru.practicum.TopStatDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the approximate most-viewed uris with the exact top of {@code /stats} over the same hits.
+ */
+@SpringBootTest(properties = {
+        "stat-server.top.capacity=" + HeavyHitterServiceTest.CAPACITY,
+        "stat-server.top.drain-interval=PT1H"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class HeavyHitterServiceTest {
+    static final int CAPACITY = 200;
+
+    private static final int TOP = 10;
+    private static final int HEAVY_STEP = 500;
+    private static final int NOISE_URIS = 2_000;
+    private static final int NOISE_HITS = 10_000;
+    private static final int VISITORS = 1 << 24;
+
+    @Autowired
+    private StatService statService;
+
+    @Autowired
+    private HeavyHitterService heavyHitterService;
+
+    private LocalDateTime start;
+    private long total;
+
+    @BeforeAll
+    void addHits() {
+        HitFixture fixture = new HitFixture();
+        LocalDateTime now = LocalDateTime.now();
+        start = now.minusHours(1);
+        List<String> uris = new ArrayList<>();
+        for (int i = 1; i <= TOP; i++) {
+            for (int j = 0; j < i * HEAVY_STEP; j++) {
+                uris.add("/events/" + i);
+            }
+        }
+        for (int i = 0; i < NOISE_HITS; i++) {
+            uris.add("/events/" + (TOP + 1 + fixture.random().nextInt(NOISE_URIS)));
+        }
+        Collections.shuffle(uris, fixture.random());
+        fixture.addHits(statService, uris, VISITORS, now.minusMinutes(49), Duration.ofMinutes(49));
+        total = statService.getStats(start, now.plusMinutes(1), null, false).stream()
+                .mapToLong(StatDto::getHits)
+                .sum();
+    }
+
+    @Test
+    void topStaysWithinErrorBoundOfExactTop() {
+        List<StatDto> exact = statService.getStats(start, LocalDateTime.now().plusMinutes(1), null, false).stream()
+                .sorted(Comparator.comparingLong(StatDto::getHits).reversed())
+                .toList();
+        Map<String, Integer> exactByUri = exact.stream()
+                .collect(Collectors.toMap(StatDto::getUri, StatDto::getHits));
+
+        List<TopStatDto> top = heavyHitterService.top(TOP, Duration.ofHours(2));
+
+        assertThat(top).extracting(TopStatDto::getUri)
+                .containsExactlyElementsOf(exact.subList(0, TOP).stream().map(StatDto::getUri).toList());
+        for (TopStatDto entry : top) {
+            long trueHits = exactByUri.get(entry.getUri());
+            assertThat(entry.getMaxError()).isLessThanOrEqualTo(total / CAPACITY);
+            assertThat(trueHits).isBetween(entry.getHits() - entry.getMaxError(), entry.getHits());
+        }
+    }
+}
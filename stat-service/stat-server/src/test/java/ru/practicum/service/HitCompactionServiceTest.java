@@ -0,0 +1,84 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.StatDto;
+import ru.practicum.model.Granularity;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares /stats answers for ranges below the compaction cutoff before and after their raw hits are deleted.
+ */
+@SpringBootTest(properties = {
+        "stat-server.compaction.enabled=true",
+        "stat-server.compaction.age=3d",
+        "stat-server.compaction.cron=-",
+        "stat-server.cache.enabled=false",
+        "stat-server.unique.flush-interval=PT1H"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class HitCompactionServiceTest {
+    private static final String[] URIS = {"/events/1", "/events/2", "/events/3"};
+    private static final int HITS = 20_000;
+    private static final int VISITORS = 5_000;
+    private static final LocalDateTime BASE = Granularity.HOUR.floor(LocalDateTime.now().minusDays(6));
+
+    @Autowired
+    private StatService statService;
+
+    @Autowired
+    private HitCompactionService hitCompactionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void addHits() {
+        HitFixture fixture = new HitFixture();
+        fixture.addHits(statService, fixture.randomUris(URIS, HITS), VISITORS, BASE, Duration.ofDays(2));
+    }
+
+    @Test
+    void statsAreTheSameBeforeAndAfterCompaction() {
+        List<LocalDateTime[]> ranges = List.of(
+                new LocalDateTime[]{BASE, BASE.plusDays(2)},
+                new LocalDateTime[]{BASE.plusMinutes(7).plusSeconds(13), BASE.plusHours(3).plusMinutes(41)},
+                new LocalDateTime[]{BASE.plusHours(1).plusSeconds(30), BASE.plusHours(1).plusSeconds(50)},
+                new LocalDateTime[]{BASE.plusHours(5).plusMinutes(30), BASE.plusHours(29).plusMinutes(17)});
+        Map<String, Map<String, Integer>> before = queryAll(ranges);
+
+        hitCompactionService.compact();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM statistics", Long.class)).isZero();
+        assertThat(queryAll(ranges)).isEqualTo(before);
+    }
+
+    private Map<String, Map<String, Integer>> queryAll(List<LocalDateTime[]> ranges) {
+        Map<String, Map<String, Integer>> results = new LinkedHashMap<>();
+        for (LocalDateTime[] range : ranges) {
+            for (boolean unique : new boolean[]{false, true}) {
+                results.put(range[0] + ".." + range[1] + " unique=" + unique + " all",
+                        toHitsByUri(statService.getStats(range[0], range[1], null, unique)));
+                results.put(range[0] + ".." + range[1] + " unique=" + unique + " uris",
+                        toHitsByUri(statService.getStats(range[0], range[1], URIS, unique)));
+            }
+        }
+        return results;
+    }
+
+    private static Map<String, Integer> toHitsByUri(List<StatDto> stats) {
+        return stats.stream().collect(Collectors.toMap(StatDto::getUri, StatDto::getHits));
+    }
+}
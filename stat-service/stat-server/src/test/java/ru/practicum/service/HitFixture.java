@@ -0,0 +1,59 @@
+package ru.practicum.service;
+
+import ru.practicum.HitDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Reproducible hits for the tests that load a stat-server context: every hit gets a random visitor and time drawn
+ * from one seeded generator, and hits are added in batches the way clients send them.
+ */
+class HitFixture {
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int BATCH_SIZE = 5_000;
+
+    private final Random random = new Random(42);
+
+    Random random() {
+        return random;
+    }
+
+    /**
+     * Uris of {@code count} hits, each drawn at random from the given ones.
+     */
+    List<String> randomUris(String[] uris, int count) {
+        List<String> drawn = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            drawn.add(uris[random.nextInt(uris.length)]);
+        }
+        return drawn;
+    }
+
+    /**
+     * Adds one hit per uri, from one of {@code visitors} addresses at a time within [from, from + spread).
+     */
+    void addHits(StatService statService, List<String> uris, int visitors, LocalDateTime from, Duration spread) {
+        List<HitDto> batch = new ArrayList<>(BATCH_SIZE);
+        for (String uri : uris) {
+            int visitor = random.nextInt(visitors);
+            batch.add(HitDto.builder()
+                    .app("ewm-main-service")
+                    .uri(uri)
+                    .ip("10." + (visitor >>> 16 & 0xFF) + "." + (visitor >>> 8 & 0xFF) + "." + (visitor & 0xFF))
+                    .timestamp(from.plusSeconds(random.nextInt((int) spread.toSeconds())).format(FORMATTER))
+                    .build());
+            if (batch.size() == BATCH_SIZE) {
+                statService.addHits(batch);
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+        if (!batch.isEmpty()) {
+            statService.addHits(batch);
+        }
+    }
+}
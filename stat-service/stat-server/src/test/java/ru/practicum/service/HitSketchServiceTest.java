@@ -0,0 +1,114 @@
+package ru.practicum.service;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.model.Granularity;
+import ru.practicum.model.Stat;
+import ru.practicum.repository.HitSketchRepository;
+import ru.practicum.repository.StatRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares unique visitor counts merged from HyperLogLog sketches with {@code COUNT(DISTINCT ip)} over the same
+ * raw hits.
+ */
+@SpringBootTest(properties = {
+        "stat-server.unique.relative-error=0.02",
+        "stat-server.unique.flush-interval=PT1H"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class HitSketchServiceTest {
+    private static final LocalDateTime START = LocalDateTime.of(2020, 3, 1, 0, 0);
+    private static final LocalDateTime END = START.plusDays(3);
+    private static final String[] URIS = {"/events/1", "/events/2", "/events/3"};
+    private static final int HITS = 60_000;
+    private static final int VISITORS = 20_000;
+    private static final double MAX_RELATIVE_ERROR = 3 * 0.02;
+
+    @Autowired
+    private StatService statService;
+
+    @Autowired
+    private HitSketchService hitSketchService;
+
+    @Autowired
+    private StatRepository statRepository;
+
+    @Autowired
+    private HitSketchRepository hitSketchRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void addHits() {
+        List<String> uris = new ArrayList<>(HITS);
+        for (int i = 0; i < HITS; i++) {
+            uris.add(URIS[i % URIS.length]);
+        }
+        new HitFixture().addHits(statService, uris, VISITORS, START, Duration.between(START, END));
+        hitSketchService.flush();
+    }
+
+    @Test
+    void sketchEstimateStaysWithinErrorBoundOfCountDistinct() {
+        Map<String, Long> exact = toHitsByUri(statRepository.countUniqueIpsInRange(URIS, START, END));
+        Map<String, Long> estimated = toHitsByUri(hitSketchService.countUnique(START, END, URIS, false));
+
+        assertThat(estimated).containsOnlyKeys(URIS);
+        for (String uri : URIS) {
+            assertThat(exact.get(uri)).isGreaterThan(VISITORS / 2);
+            double error = Math.abs(estimated.get(uri) - exact.get(uri)) / (double) exact.get(uri);
+            assertThat(error)
+                    .as("погрешность для %s: оценка %d, точно %d", uri, estimated.get(uri), exact.get(uri))
+                    .isLessThanOrEqualTo(MAX_RELATIVE_ERROR);
+        }
+    }
+
+    @Test
+    void partialRangesAreEstimatedWithinErrorBound() {
+        LocalDateTime from = START.plusHours(5);
+        LocalDateTime to = START.plusDays(2).plusHours(7);
+        Map<String, Long> exact = toHitsByUri(statRepository.countUniqueIpsInRange(URIS, from, to));
+        Map<String, Long> estimated = toHitsByUri(hitSketchService.countUnique(from, to, URIS, false));
+
+        for (String uri : URIS) {
+            double error = Math.abs(estimated.get(uri) - exact.get(uri)) / (double) exact.get(uri);
+            assertThat(error).isLessThanOrEqualTo(MAX_RELATIVE_ERROR);
+        }
+    }
+
+    @Test
+    void backfillSketchesHoursThatHaveNoneOnce() {
+        LocalDateTime hour = START.plusHours(10);
+        jdbcTemplate.update("DELETE FROM stat_compaction WHERE name = 'stat_sketches'");
+        jdbcTemplate.update("DELETE FROM stat_sketches WHERE granularity = 'HOUR' AND bucket = ?", hour);
+        assertThat(hitSketchRepository.findBuckets(Granularity.HOUR, hour, hour.plusHours(1))).isEmpty();
+
+        hitSketchService.backfill();
+
+        assertThat(hitSketchRepository.findBuckets(Granularity.HOUR, START, END))
+                .hasSize((int) Duration.between(START, END).toHours());
+
+        jdbcTemplate.update("DELETE FROM stat_sketches WHERE granularity = 'HOUR' AND bucket = ?", hour);
+        hitSketchService.backfill();
+
+        assertThat(hitSketchRepository.findBuckets(Granularity.HOUR, hour, hour.plusHours(1))).isEmpty();
+    }
+
+    private static Map<String, Long> toHitsByUri(List<Stat> stats) {
+        return stats.stream().collect(Collectors.toMap(Stat::getUri, Stat::getHits));
+    }
+}
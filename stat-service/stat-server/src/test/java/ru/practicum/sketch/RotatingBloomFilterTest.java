@@ -0,0 +1,48 @@
+package ru.practicum.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the false positive rate of lookups while slices are rotated at full load.
+ */
+class RotatingBloomFilterTest {
+    private static final int GENERATIONS = 4;
+    private static final long SLICE_MILLIS = 1_000;
+    private static final int KEYS_PER_SLICE = 20_000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final int ROTATIONS = 12;
+
+    @Test
+    void falsePositiveRateStaysNearTargetAfterRotations() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(GENERATIONS, SLICE_MILLIS, KEYS_PER_SLICE,
+                FALSE_POSITIVE_RATE);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int slice = 0; slice < ROTATIONS; slice++) {
+            int falsePositives = 0;
+            for (int i = 0; i < KEYS_PER_SLICE; i++) {
+                if (filter.checkAndPut(random.nextLong(), slice * SLICE_MILLIS)) {
+                    falsePositives++;
+                }
+            }
+            assertThat((double) falsePositives / KEYS_PER_SLICE)
+                    .as("false positive rate in slice %d", slice)
+                    .isLessThan(1.5 * FALSE_POSITIVE_RATE);
+        }
+    }
+
+    @Test
+    void keysAreRememberedForTheWindowAndForgottenAfterIt() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(GENERATIONS, SLICE_MILLIS, KEYS_PER_SLICE,
+                FALSE_POSITIVE_RATE);
+        long key = new SplittableRandom(7).nextLong();
+
+        assertThat(filter.checkAndPut(key, 0)).isFalse();
+        assertThat(filter.checkAndPut(key + 1, (GENERATIONS - 1) * SLICE_MILLIS)).isFalse();
+        assertThat(filter.checkAndPut(key, (GENERATIONS - 1) * SLICE_MILLIS)).isTrue();
+        assertThat(filter.checkAndPut(key, 3 * GENERATIONS * SLICE_MILLIS)).isFalse();
+    }
+}